@@ -0,0 +1,142 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Durable append-only log of binary records.
+ * <p>
+ * Each record is framed as [int length][int crc32][payload]. On open the file is scanned and
+ * any torn or corrupt tail left by a crash is truncated, so every record returned by
+ * {@link #replay(RecordVisitor)} was fully written.
+ */
+class AppendOnlyJournal implements Closeable {
+    private static final String TAG = "AppendOnlyJournal";
+    private static final int FRAME_HEADER = 8;
+    /** Upper bound on a single record, to reject garbage lengths during recovery. */
+    static final int MAX_RECORD_SIZE = 1024 * 1024;
+
+    /** Receives records during {@link #replay(RecordVisitor)}. */
+    interface RecordVisitor {
+        /** @param payload Read-only view of one record, valid only for the duration of the call. */
+        void onRecord(ByteBuffer payload);
+    }
+
+    private final File file;
+    private final FileChannel channel;
+    private final boolean syncEveryAppend;
+    private final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+    private final CRC32 crc = new CRC32();
+    private long size;
+
+    /**
+     * @param syncEveryAppend Force each record to storage before {@link #append} returns.
+     *                        When false, callers decide when to {@link #sync()}.
+     */
+    AppendOnlyJournal(File file, boolean syncEveryAppend) throws IOException {
+        this.file = file;
+        this.syncEveryAppend = syncEveryAppend;
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        this.size = recover();
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /** Bytes of valid records in the journal. */
+    synchronized long size() {
+        return size;
+    }
+
+    /** Appends the remaining bytes of {@code payload} as one record. */
+    synchronized void append(ByteBuffer payload) throws IOException {
+        int length = payload.remaining();
+        if (length > MAX_RECORD_SIZE) throw new IOException("Record too large: " + length);
+        crc.reset();
+        if (payload.hasArray()) {
+            crc.update(payload.array(), payload.arrayOffset() + payload.position(), length);
+        } else {
+            for (int i = payload.position(); i < payload.limit(); i++) crc.update(payload.get(i));
+        }
+        header.clear();
+        header.putInt(length).putInt((int) crc.getValue()).flip();
+        long position = size;
+        while (header.hasRemaining()) position += channel.write(header, position);
+        while (payload.hasRemaining()) position += channel.write(payload, position);
+        size = position;
+        if (syncEveryAppend) channel.force(false);
+    }
+
+    synchronized void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /** Visits every record in append order. */
+    synchronized void replay(RecordVisitor visitor) throws IOException {
+        long position = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position + FRAME_HEADER <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            header.getInt();
+            if (buffer.capacity() < length) buffer = ByteBuffer.allocate(length);
+            buffer.clear().limit(length);
+            long read = position + FRAME_HEADER;
+            while (buffer.hasRemaining()) read += channel.read(buffer, read);
+            buffer.flip();
+            visitor.onRecord(buffer.asReadOnlyBuffer());
+            position = read;
+        }
+    }
+
+    /** Discards every record; forced to storage only if appends are. */
+    synchronized void truncate() throws IOException {
+        channel.truncate(0);
+        size = 0;
+        if (syncEveryAppend) channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /** Scans the journal and truncates it after the last intact record. */
+    private long recover() throws IOException {
+        long length = channel.size();
+        long position = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (position + FRAME_HEADER <= length) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int recordLength = header.getInt();
+            int recordCrc = header.getInt();
+            if (recordLength < 0 || recordLength > MAX_RECORD_SIZE || position + FRAME_HEADER + recordLength > length) break;
+            if (buffer.capacity() < recordLength) buffer = ByteBuffer.allocate(recordLength);
+            buffer.clear().limit(recordLength);
+            long read = position + FRAME_HEADER;
+            while (buffer.hasRemaining()) read += channel.read(buffer, read);
+            crc.reset();
+            crc.update(buffer.array(), 0, recordLength);
+            if ((int) crc.getValue() != recordCrc) break;
+            position = read;
+        }
+        if (position != length) {
+            Log.w(TAG, "Truncating " + (length - position) + " bytes of torn tail in " + file.getName());
+            channel.truncate(position);
+            channel.force(false);
+        }
+        return position;
+    }
+}
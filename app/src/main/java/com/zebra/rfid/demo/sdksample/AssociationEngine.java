@@ -0,0 +1,197 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pairs each barcode scan with the strongest tag read around it, for "scan barcode, then
+ * read the nearest tag" commissioning.
+ * <p>
+ * Recent reads are kept in a ring of fixed-duration time buckets covering only the pairing
+ * window, so recording a read is O(1) and resolving a scan scans O(reads in window) no matter
+ * how long the session has run. A scan is resolved {@code postWindowMillis} after it happens
+ * and pairs with the highest-RSSI EPC read between {@code preWindowMillis} before and
+ * {@code postWindowMillis} after the scan that has not already been paired. A paired tag is
+ * held back from later scans for {@code pairedHoldMillis} or until {@link #clear()} starts a
+ * new session, so the paired set stays as small as the scans of that period. Every pair is
+ * appended to an {@link AppendOnlyJournal}.
+ */
+class AssociationEngine {
+    private static final String TAG = "AssociationEngine";
+    private static final int BUCKET_MILLIS = 50;
+    private static final int INITIAL_BUCKET_CAPACITY = 32;
+
+    /** A barcode paired with a tag. */
+    static final class Pair {
+        final String barcode;
+        final String epc;
+        final short rssi;
+        final long scanTimeMillis;
+
+        Pair(String barcode, String epc, short rssi, long scanTimeMillis) {
+            this.barcode = barcode;
+            this.epc = epc;
+            this.rssi = rssi;
+            this.scanTimeMillis = scanTimeMillis;
+        }
+    }
+
+    interface Listener {
+        /** Called on the engine thread; {@code pair} is null when no unpaired tag was read in the window. */
+        void onAssociation(String barcode, Pair pair);
+    }
+
+    /** Reads that fell into one time slice. Arrays are reused when the bucket is recycled. */
+    private static final class Bucket {
+        long slice = Long.MIN_VALUE;
+        int count;
+        String[] epcs = new String[INITIAL_BUCKET_CAPACITY];
+        short[] rssi = new short[INITIAL_BUCKET_CAPACITY];
+        long[] times = new long[INITIAL_BUCKET_CAPACITY];
+
+        void add(String epc, short peakRssi, long time) {
+            if (count == epcs.length) {
+                epcs = Arrays.copyOf(epcs, count * 2);
+                rssi = Arrays.copyOf(rssi, count * 2);
+                times = Arrays.copyOf(times, count * 2);
+            }
+            epcs[count] = epc;
+            rssi[count] = peakRssi;
+            times[count] = time;
+            count++;
+        }
+
+        void reset(long newSlice) {
+            Arrays.fill(epcs, 0, count, null);
+            count = 0;
+            slice = newSlice;
+        }
+    }
+
+    private final long preWindowMillis;
+    private final long postWindowMillis;
+    private final Bucket[] ring;
+    private final long pairedHoldMillis;
+    /** Paired EPC to its scan time, in the order scans were resolved. */
+    private final LinkedHashMap<String, Long> pairedEpcs = new LinkedHashMap<>();
+    private final AppendOnlyJournal journal;
+    private final Listener listener;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * @param pairedHoldMillis How long a paired tag is not paired again.
+     * @param journal Destination for pairs, or null to keep them in memory only.
+     */
+    AssociationEngine(long preWindowMillis, long postWindowMillis, long pairedHoldMillis, AppendOnlyJournal journal,
+                      Listener listener) {
+        this.preWindowMillis = preWindowMillis;
+        this.postWindowMillis = postWindowMillis;
+        this.pairedHoldMillis = pairedHoldMillis;
+        this.journal = journal;
+        this.listener = listener;
+        int buckets = (int) ((preWindowMillis + postWindowMillis) / BUCKET_MILLIS) + 2;
+        ring = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) ring[i] = new Bucket();
+    }
+
+    /** Records one tag read. */
+    synchronized void onTagRead(String epc, short peakRssi, long timeMillis) {
+        if (epc == null) return;
+        long slice = timeMillis / BUCKET_MILLIS;
+        Bucket bucket = ring[(int) (slice % ring.length)];
+        if (bucket.slice != slice) bucket.reset(slice);
+        bucket.add(epc, peakRssi, timeMillis);
+    }
+
+    /**
+     * Schedules pairing for a barcode scanned at {@code timeMillis} (normally now). Scans are
+     * resolved in arrival order, so earlier scans get first pick of the strongest tags.
+     * @param barcode What the pair records for the scan: its GTIN when it has one, else its text.
+     */
+    void onBarcode(final String barcode, final long timeMillis) {
+        if (barcode == null || scheduler.isShutdown()) return;
+        scheduler.schedule(() -> resolve(barcode, timeMillis), postWindowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Starts a new session: tags paired so far may be paired again. */
+    synchronized void clear() {
+        pairedEpcs.clear();
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Error closing association journal", e);
+            }
+        }
+    }
+
+    private void resolve(String barcode, long scanTime) {
+        Pair pair = findStrongest(barcode, scanTime);
+        if (pair != null && journal != null) {
+            try {
+                journal.append(encode(pair));
+            } catch (IOException e) {
+                Log.e(TAG, "Error journaling association", e);
+            }
+        }
+        if (listener != null) listener.onAssociation(barcode, pair);
+    }
+
+    private synchronized Pair findStrongest(String barcode, long scanTime) {
+        Iterator<Long> held = pairedEpcs.values().iterator();
+        while (held.hasNext() && scanTime - held.next() > pairedHoldMillis) held.remove();
+        long from = scanTime - preWindowMillis;
+        long to = scanTime + postWindowMillis;
+        String bestEpc = null;
+        short bestRssi = Short.MIN_VALUE;
+        for (long slice = from / BUCKET_MILLIS; slice <= to / BUCKET_MILLIS; slice++) {
+            Bucket bucket = ring[(int) (slice % ring.length)];
+            if (bucket.slice != slice) continue;
+            for (int i = 0; i < bucket.count; i++) {
+                long t = bucket.times[i];
+                if (t < from || t > to || bucket.rssi[i] <= bestRssi) continue;
+                if (pairedEpcs.containsKey(bucket.epcs[i])) continue;
+                bestEpc = bucket.epcs[i];
+                bestRssi = bucket.rssi[i];
+            }
+        }
+        if (bestEpc == null) return null;
+        pairedEpcs.put(bestEpc, scanTime);
+        return new Pair(barcode, bestEpc, bestRssi, scanTime);
+    }
+
+    /** Journal record: [long scanTime][short rssi][short len][barcode utf8][short len][epc ascii]. */
+    static ByteBuffer encode(Pair pair) {
+        byte[] barcode = pair.barcode.getBytes(StandardCharsets.UTF_8);
+        byte[] epc = pair.epc.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 2 + 2 + barcode.length + 2 + epc.length);
+        buffer.putLong(pair.scanTimeMillis).putShort(pair.rssi);
+        buffer.putShort((short) barcode.length).put(barcode);
+        buffer.putShort((short) epc.length).put(epc);
+        buffer.flip();
+        return buffer;
+    }
+
+    static Pair decode(ByteBuffer record) {
+        long time = record.getLong();
+        short rssi = record.getShort();
+        byte[] barcode = new byte[record.getShort() & 0xFFFF];
+        record.get(barcode);
+        byte[] epc = new byte[record.getShort() & 0xFFFF];
+        record.get(epc);
+        return new Pair(new String(barcode, StandardCharsets.UTF_8), new String(epc, StandardCharsets.US_ASCII), rssi, time);
+    }
+}
@@ -0,0 +1,151 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.util.Map;
+
+/**
+ * Byte-level decoding of retail and logistics symbologies: GS1 mod-10 check digits, UPC-E
+ * expansion, GTIN normalisation and GS1 Application Identifier parsing. Works directly on the
+ * scanner's byte array without building an intermediate String.
+ */
+final class BarcodeDecoder {
+    /** FNC1 separator as transmitted by the scanner for variable-length GS1 fields. */
+    static final byte GS = 0x1D;
+
+    private BarcodeDecoder() {
+    }
+
+    static boolean isDigits(byte[] data, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (data[i] < '0' || data[i] > '9') return false;
+        }
+        return length > 0;
+    }
+
+    /** GS1 mod-10 check over {@code length} digits, the last of which is the check digit. */
+    static boolean checkDigitValid(byte[] data, int offset, int length) {
+        if (!isDigits(data, offset, length) || length < 2) return false;
+        int sum = 0;
+        // Weights alternate 3,1,... from the digit left of the check digit.
+        for (int i = offset + length - 2, weight = 3; i >= offset; i--, weight = 4 - weight) {
+            sum += (data[i] - '0') * weight;
+        }
+        return (10 - sum % 10) % 10 == data[offset + length - 1] - '0';
+    }
+
+    /**
+     * Expands an 8-digit UPC-E (number system, six digits, check) to its 12-digit UPC-A form.
+     * @return The UPC-A digits, or null if {@code data} is not an 8-digit UPC-E.
+     */
+    static byte[] upcEToUpcA(byte[] data, int offset, int length) {
+        if (length != 8 || !isDigits(data, offset, length)) return null;
+        byte ns = data[offset];
+        byte d1 = data[offset + 1], d2 = data[offset + 2], d3 = data[offset + 3];
+        byte d4 = data[offset + 4], d5 = data[offset + 5], d6 = data[offset + 6];
+        byte z = '0';
+        byte[] body;
+        switch (d6) {
+            case '0': case '1': case '2':
+                body = new byte[]{ns, d1, d2, d6, z, z, z, z, d3, d4, d5};
+                break;
+            case '3':
+                body = new byte[]{ns, d1, d2, d3, z, z, z, z, z, d4, d5};
+                break;
+            case '4':
+                body = new byte[]{ns, d1, d2, d3, d4, z, z, z, z, z, d5};
+                break;
+            default:
+                body = new byte[]{ns, d1, d2, d3, d4, d5, z, z, z, z, d6};
+                break;
+        }
+        byte[] upcA = new byte[12];
+        System.arraycopy(body, 0, upcA, 0, 11);
+        upcA[11] = data[offset + 7];
+        return upcA;
+    }
+
+    /** Left-pads a GTIN-8/12/13/14 to 14 digits. */
+    static String gtin14(byte[] data, int offset, int length) {
+        char[] gtin = new char[14];
+        int pad = 14 - length;
+        for (int i = 0; i < 14; i++) {
+            gtin[i] = i < pad ? '0' : (char) data[offset + i - pad];
+        }
+        return new String(gtin);
+    }
+
+    /**
+     * Parses a GS1 element string (GS1-128, GS1 DataBar Expanded, GS1 DataMatrix) into
+     * {@code out}, AI to value. A leading symbology identifier such as {@code ]C1} is skipped.
+     * @return false if the data is not a well-formed element string or a GTIN/SSCC check digit fails.
+     */
+    static boolean parseGs1(byte[] data, int offset, int length, Map<String, String> out) {
+        int pos = offset;
+        int end = offset + length;
+        if (length >= 3 && data[pos] == ']') pos += 3;
+        while (pos < end) {
+            if (data[pos] == GS) {
+                pos++;
+                continue;
+            }
+            int aiLength = aiLength(data, pos, end);
+            if (aiLength < 0) return false;
+            int valueStart = pos + aiLength;
+            int fixed = fixedValueLength(data[pos], data[pos + 1]);
+            int valueEnd;
+            if (fixed > 0) {
+                valueEnd = valueStart + fixed;
+                if (valueEnd > end || !isDigits(data, valueStart, fixed)) return false;
+            } else {
+                valueEnd = valueStart;
+                while (valueEnd < end && data[valueEnd] != GS) valueEnd++;
+                if (valueEnd == valueStart) return false;
+            }
+            if (fixed == 18 || fixed == 14) {
+                // SSCC (00) and GTIN (01, 02, 03) carry a check digit
+                if (!checkDigitValid(data, valueStart, fixed)) return false;
+            }
+            out.put(ascii(data, pos, aiLength), ascii(data, valueStart, valueEnd - valueStart));
+            pos = valueEnd;
+        }
+        return !out.isEmpty();
+    }
+
+    /** Number of digits in the AI starting at {@code pos}, per the GS1 General Specifications prefix table. */
+    private static int aiLength(byte[] data, int pos, int end) {
+        if (pos + 2 > end || !isDigits(data, pos, 2)) return -1;
+        int prefix = (data[pos] - '0') * 10 + (data[pos + 1] - '0');
+        int length;
+        if (prefix <= 22 || prefix == 30 || prefix == 37 || prefix >= 90) {
+            length = 2;
+        } else if ((prefix >= 23 && prefix <= 25) || (prefix >= 40 && prefix <= 42) || prefix == 71) {
+            length = 3;
+        } else if ((prefix >= 31 && prefix <= 36) || prefix == 39 || prefix == 43 || prefix == 70
+                || prefix == 72 || (prefix >= 80 && prefix <= 82)) {
+            length = 4;
+        } else {
+            return -1;
+        }
+        return pos + length <= end && isDigits(data, pos, length) ? length : -1;
+    }
+
+    /** Predefined value length for AIs starting with the given two digits, or 0 if variable. */
+    private static int fixedValueLength(byte first, byte second) {
+        int prefix = (first - '0') * 10 + (second - '0');
+        switch (prefix) {
+            case 0: return 18;
+            case 1: case 2: case 3: return 14;
+            case 4: return 16;
+            case 11: case 12: case 13: case 14: case 15: case 16: case 17: case 18: case 19: return 6;
+            case 20: return 2;
+            case 31: case 32: case 33: case 34: case 35: case 36: return 6;
+            case 41: return 13;
+            default: return 0;
+        }
+    }
+
+    static String ascii(byte[] data, int offset, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) chars[i] = (char) (data[offset + i] & 0x7F);
+        return new String(chars);
+    }
+}
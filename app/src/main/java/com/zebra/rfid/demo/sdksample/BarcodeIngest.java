@@ -0,0 +1,247 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Single barcode ingest stage shared by the scanner SDK and DataWedge.
+ * <p>
+ * Raw scan bytes are decoded per symbology on a dedicated thread (UPC/EAN check digits and
+ * GTIN normalisation, GS1 Application Identifiers), repeats of the same code within the
+ * duplicate window are suppressed, and the resulting {@link BarcodeEvent} is delivered to the
+ * {@link Listener}. Throughput and receive-to-delivery latency are tracked for {@link #report()}.
+ */
+class BarcodeIngest {
+    private static final String TAG = "BarcodeIngest";
+    static final long DEFAULT_DUPLICATE_WINDOW_MS = 1000;
+    /** Accepted events between periodic {@link #report()} log lines. */
+    private static final int REPORT_INTERVAL = 100;
+
+    enum Source { SCANNER_SDK, DATAWEDGE }
+
+    /**
+     * Symbologies the ingest stage understands, with the scanner SDK barcode type code and the
+     * DataWedge label type that identify them.
+     */
+    enum Symbology {
+        CODE_39(0x01, "LABEL-TYPE-CODE39"),
+        CODABAR(0x02, "LABEL-TYPE-CODABAR"),
+        CODE_128(0x03, "LABEL-TYPE-CODE128"),
+        INTERLEAVED_2OF5(0x06, "LABEL-TYPE-I2OF5"),
+        CODE_93(0x07, "LABEL-TYPE-CODE93"),
+        UPC_A(0x08, "LABEL-TYPE-UPCA"),
+        UPC_E(0x09, "LABEL-TYPE-UPCE0"),
+        EAN_8(0x0A, "LABEL-TYPE-EAN8"),
+        EAN_13(0x0B, "LABEL-TYPE-EAN13"),
+        GS1_128(0x0F, "LABEL-TYPE-EAN128"),
+        UPC_E1(0x10, "LABEL-TYPE-UPCE1"),
+        PDF_417(0x11, "LABEL-TYPE-PDF417"),
+        DATA_MATRIX(0x1B, "LABEL-TYPE-DATAMATRIX"),
+        QR_CODE(0x1C, "LABEL-TYPE-QRCODE"),
+        GS1_DATABAR(0x30, "LABEL-TYPE-GS1-DATABAR"),
+        GS1_DATABAR_EXPANDED(0x32, "LABEL-TYPE-GS1-DATABAR-EXP"),
+        UNKNOWN(-1, null);
+
+        final int scannerType;
+        final String labelType;
+
+        Symbology(int scannerType, String labelType) {
+            this.scannerType = scannerType;
+            this.labelType = labelType;
+        }
+
+        static Symbology fromScannerType(int type) {
+            for (Symbology s : values()) {
+                if (s.scannerType == type) return s;
+            }
+            return UNKNOWN;
+        }
+
+        static Symbology fromLabelType(String label) {
+            if (label != null) {
+                for (Symbology s : values()) {
+                    if (label.equals(s.labelType)) return s;
+                }
+            }
+            return UNKNOWN;
+        }
+    }
+
+    /** A decoded, de-duplicated scan. */
+    static final class BarcodeEvent {
+        final Source source;
+        final Symbology symbology;
+        final byte[] data;
+        /** Data as text; GS separators are kept. */
+        final String text;
+        /** GTIN-14 for UPC/EAN/GS1 codes carrying one, otherwise null. */
+        final String gtin;
+        /** GS1 Application Identifier to value, empty for non-GS1 data. */
+        final Map<String, String> applicationIdentifiers;
+        /** False if a check digit or GS1 structure failed to validate. */
+        final boolean valid;
+
+        BarcodeEvent(Source source, Symbology symbology, byte[] data, String text, String gtin,
+                     Map<String, String> applicationIdentifiers, boolean valid) {
+            this.source = source;
+            this.symbology = symbology;
+            this.data = data;
+            this.text = text;
+            this.gtin = gtin;
+            this.applicationIdentifiers = applicationIdentifiers;
+            this.valid = valid;
+        }
+
+        @Override
+        public String toString() {
+            return symbology + " " + text.replace((char) BarcodeDecoder.GS, '|')
+                    + (gtin != null ? " GTIN " + gtin : "")
+                    + (applicationIdentifiers.isEmpty() ? "" : " " + applicationIdentifiers)
+                    + (valid ? "" : " [invalid]");
+        }
+    }
+
+    /** Receives events on the ingest thread. */
+    interface Listener {
+        void onBarcode(BarcodeEvent event);
+    }
+
+    /** Last-seen time per recently accepted code, oldest first. */
+    private final LinkedHashMap<ByteBuffer, Long> recent = new LinkedHashMap<>();
+    private final ExecutorService ingestExecutor = Executors.newSingleThreadExecutor();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Listener listener;
+    private volatile long duplicateWindowNanos;
+    private long firstEventNanos;
+    private long lastEventNanos;
+    private long accepted;
+    private long duplicates;
+    private long invalid;
+
+    BarcodeIngest(long duplicateWindowMillis, Listener listener) {
+        this.listener = listener;
+        setDuplicateWindowMillis(duplicateWindowMillis);
+    }
+
+    void setDuplicateWindowMillis(long millis) {
+        duplicateWindowNanos = Math.max(0, millis) * 1_000_000L;
+    }
+
+    /**
+     * Queues raw scan data for decoding. Safe to call from any thread.
+     * @param data Scan bytes; ownership passes to the ingest stage.
+     */
+    void submit(final Source source, final Symbology symbology, final byte[] data) {
+        if (data == null || data.length == 0 || ingestExecutor.isShutdown()) return;
+        final long receivedNanos = System.nanoTime();
+        ingestExecutor.execute(() -> process(source, symbology, data, receivedNanos));
+    }
+
+    void shutdown() {
+        ingestExecutor.shutdownNow();
+    }
+
+    /** Events/sec, duplicate and invalid counts, and receive-to-delivery latency. */
+    synchronized String report() {
+        double seconds = (lastEventNanos - firstEventNanos) / 1e9;
+        return String.format(Locale.US, "%d events (%.1f/s), %d duplicates suppressed, %d invalid, latency %s",
+                accepted, seconds > 0 ? accepted / seconds : 0, duplicates, invalid, latency);
+    }
+
+    private void process(Source source, Symbology symbology, byte[] data, long receivedNanos) {
+        if (isDuplicate(data, receivedNanos)) return;
+        BarcodeEvent event = decode(source, symbology, data);
+        if (listener != null) listener.onBarcode(event);
+        long done = System.nanoTime();
+        latency.record(done - receivedNanos);
+        boolean logReport;
+        synchronized (this) {
+            if (accepted == 0) firstEventNanos = receivedNanos;
+            lastEventNanos = done;
+            accepted++;
+            if (!event.valid) invalid++;
+            logReport = accepted % REPORT_INTERVAL == 0;
+        }
+        Log.d(TAG, "Barcode " + source + ": " + event);
+        if (logReport) Log.d(TAG, report());
+    }
+
+    private boolean isDuplicate(byte[] data, long now) {
+        long window = duplicateWindowNanos;
+        Iterator<Map.Entry<ByteBuffer, Long>> it = recent.entrySet().iterator();
+        while (it.hasNext() && now - it.next().getValue() > window) it.remove();
+        ByteBuffer key = ByteBuffer.wrap(data);
+        if (window > 0 && recent.containsKey(key)) {
+            synchronized (this) {
+                duplicates++;
+            }
+            return true;
+        }
+        recent.put(key, now);
+        return false;
+    }
+
+    static BarcodeEvent decode(Source source, Symbology symbology, byte[] data) {
+        int length = data.length;
+        String gtin = null;
+        Map<String, String> ais = Collections.emptyMap();
+        boolean valid = true;
+        switch (symbology) {
+            case UPC_A:
+            case EAN_13:
+            case EAN_8:
+                valid = (length == 12 || length == 13 || length == 8) && BarcodeDecoder.checkDigitValid(data, 0, length);
+                if (valid) gtin = BarcodeDecoder.gtin14(data, 0, length);
+                break;
+            case UPC_E:
+            case UPC_E1:
+                byte[] upcA = BarcodeDecoder.upcEToUpcA(data, 0, length);
+                valid = upcA != null && BarcodeDecoder.checkDigitValid(upcA, 0, upcA.length);
+                if (valid) gtin = BarcodeDecoder.gtin14(upcA, 0, upcA.length);
+                break;
+            case GS1_DATABAR:
+                if (length == 14 && BarcodeDecoder.checkDigitValid(data, 0, 14)) {
+                    gtin = BarcodeDecoder.gtin14(data, 0, 14);
+                    break;
+                }
+                // Otherwise transmitted with its "01" AI: parse as an element string
+            case GS1_128:
+            case GS1_DATABAR_EXPANDED:
+                Map<String, String> parsed = new LinkedHashMap<>();
+                valid = BarcodeDecoder.parseGs1(data, 0, length, parsed);
+                if (valid) {
+                    ais = Collections.unmodifiableMap(parsed);
+                    gtin = parsed.get("01");
+                }
+                break;
+            default:
+                break;
+        }
+        return new BarcodeEvent(source, symbology, data, toText(data), gtin, ais, valid);
+    }
+
+    /** UTF-8 when the bytes are valid UTF-8 (2D codes), otherwise ISO-8859-1 as sent by 1D symbologies. */
+    private static String toText(byte[] data) {
+        try {
+            CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(data));
+            return chars.toString();
+        } catch (CharacterCodingException e) {
+            return new String(data, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Handler for the Zebra DataWedge Intent API: owns the app's DataWedge profile and receives
+ * barcodes, command results and scanner status.
+ * <p>
+ * The profile configuration is fingerprinted and the fingerprint of the last configuration
+ * DataWedge confirmed is kept in preferences. On a cold start SET_CONFIG is only sent when
+ * the configuration changed or the profile is missing from DataWedge, so an unchanged profile
+ * is not re-applied on every launch. Nothing here blocks: every command is a broadcast and
+ * results arrive on {@code RESULT_ACTION}.
+ */
+class DataWedgeHandler {
+    private static final String TAG = "DataWedgeHandler";
+
+    // DataWedge Intent API constants
+    private static final String ACTION_DATAWEDGE = "com.symbol.datawedge.api.ACTION";
+    private static final String EXTRA_GET_VERSION_INFO = "com.symbol.datawedge.api.GET_VERSION_INFO";
+    private static final String EXTRA_GET_PROFILES_LIST = "com.symbol.datawedge.api.GET_PROFILES_LIST";
+    private static final String EXTRA_REGISTER_NOTIFICATION = "com.symbol.datawedge.api.REGISTER_FOR_NOTIFICATION";
+    private static final String EXTRA_SET_CONFIG = "com.symbol.datawedge.api.SET_CONFIG";
+    private static final String EXTRA_SEND_RESULT = "SEND_RESULT";
+    private static final String EXTRA_COMMAND_IDENTIFIER = "COMMAND_IDENTIFIER";
+
+    private static final String RESULT_ACTION = "com.symbol.datawedge.api.RESULT_ACTION";
+    private static final String NOTIFICATION_ACTION = "com.symbol.datawedge.api.NOTIFICATION_ACTION";
+    private static final String RESULT_CATEGORY = "android.intent.category.DEFAULT";
+    private static final String RESULT_GET_VERSION_INFO = "com.symbol.datawedge.api.RESULT_GET_VERSION_INFO";
+    private static final String RESULT_GET_PROFILES_LIST = "com.symbol.datawedge.api.RESULT_GET_PROFILES_LIST";
+    private static final String EXTRA_NOTIFICATION = "com.symbol.datawedge.api.NOTIFICATION";
+
+    private static final String SET_CONFIG_ID = "RFIDSample.SET_CONFIG";
+    private static final String SCANNER_READY_STATUS = "WAITING";
+
+    // Profile constants
+    private static final String PROFILE_NAME = "RFIDSampleProfile";
+    /** App-specific action for decoded barcodes, distinct from the action commands are sent on. */
+    static final String BARCODE_ACTION = "com.zebra.rfid.demo.sdksample.RECV_BARCODE";
+    static final String EXTRA_DATA_STRING = "com.symbol.datawedge.data_string";
+    static final String EXTRA_DECODE_DATA = "com.symbol.datawedge.decode_data";
+    static final String EXTRA_LABEL_TYPE = "com.symbol.datawedge.label_type";
+
+    private static final String PREFS_NAME = "datawedge";
+    private static final String PREF_CONFIG_HASH = "applied_config_hash";
+
+    private final MainActivity context;
+    private final SharedPreferences prefs;
+    private Bundle profileConfig;
+    private String configHash;
+    /** Hash of the SET_CONFIG awaiting a result, or null. */
+    private String pendingHash;
+    private long startElapsed;
+    private long scannerReadyMillis = -1;
+
+    DataWedgeHandler(MainActivity context) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    void onCreate() {
+        startElapsed = SystemClock.elapsedRealtime();
+        registerReceivers();
+        profileConfig = buildProfileConfig();
+        configHash = fingerprint(profileConfig);
+        if (configHash.equals(prefs.getString(PREF_CONFIG_HASH, null))) {
+            // Config unchanged since DataWedge last confirmed it; only make sure the profile still exists.
+            sendDataWedgeIntentWithExtra(EXTRA_GET_PROFILES_LIST, "");
+        } else {
+            applyProfileConfig();
+        }
+        sendDataWedgeIntentWithExtra(EXTRA_GET_VERSION_INFO, "");
+        registerForNotifications();
+    }
+
+    void onDestroy() {
+        try {
+            context.unregisterReceiver(dwReceiver);
+        } catch (Exception e) {
+            Log.e(TAG, "Error unregistering receiver", e);
+        }
+    }
+
+    /** Milliseconds from {@link #onCreate()} until the scanner first reported ready, or -1. */
+    long getScannerReadyMillis() {
+        return scannerReadyMillis;
+    }
+
+    private void registerReceivers() {
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(RESULT_ACTION);
+        filter.addAction(NOTIFICATION_ACTION);
+        filter.addAction(BARCODE_ACTION);
+        filter.addCategory(RESULT_CATEGORY);
+        context.registerReceiver(dwReceiver, filter);
+    }
+
+    /**
+     * Builds the profile: barcode input enabled, RFID input disabled (the app drives RFID
+     * through the SDK), and barcodes broadcast on {@link #BARCODE_ACTION}.
+     */
+    private Bundle buildProfileConfig() {
+        Bundle config = new Bundle();
+        config.putString("PROFILE_NAME", PROFILE_NAME);
+        config.putString("PROFILE_ENABLED", "true");
+        config.putString("CONFIG_MODE", "CREATE_IF_NOT_EXIST");
+
+        // Barcode input plugin
+        Bundle barcodeProps = new Bundle();
+        barcodeProps.putString("PLUGIN_NAME", "BARCODE");
+        barcodeProps.putString("RESET_CONFIG", "true");
+        Bundle barcodeParams = new Bundle();
+        barcodeParams.putString("scanner_selection_by_identifier", "AUTO");
+        barcodeParams.putString("decoder_code128", "true");
+        barcodeParams.putString("decoder_code39", "true");
+        barcodeParams.putString("decoder_ean8", "true");
+        barcodeParams.putString("decoder_ean13", "true");
+        barcodeParams.putString("decoder_upca", "true");
+        barcodeParams.putString("decoder_upce0", "true");
+        barcodeParams.putString("decoder_pdf417", "true");
+        barcodeParams.putString("decoder_qrcode", "true");
+        barcodeProps.putBundle("PARAM_LIST", barcodeParams);
+
+        // RFID input plugin (disable)
+        Bundle rfidProps = new Bundle();
+        rfidProps.putString("PLUGIN_NAME", "RFID");
+        rfidProps.putString("RESET_CONFIG", "true");
+        Bundle rfidParams = new Bundle();
+        rfidParams.putString("rfid_input_enabled", "false");
+        rfidProps.putBundle("PARAM_LIST", rfidParams);
+
+        // Intent output plugin
+        Bundle intentProps = new Bundle();
+        intentProps.putString("PLUGIN_NAME", "INTENT");
+        intentProps.putString("RESET_CONFIG", "true");
+        Bundle intentParams = new Bundle();
+        intentParams.putString("intent_output_enabled", "true");
+        intentParams.putString("intent_action", BARCODE_ACTION);
+        intentParams.putString("intent_delivery", "2"); // 2 = broadcast
+        intentProps.putBundle("PARAM_LIST", intentParams);
+
+        ArrayList<Bundle> pluginConfig = new ArrayList<>();
+        pluginConfig.add(barcodeProps);
+        pluginConfig.add(rfidProps);
+        pluginConfig.add(intentProps);
+        config.putParcelableArrayList("PLUGIN_CONFIG", pluginConfig);
+
+        // Associate app with profile
+        Bundle appAssoc = new Bundle();
+        appAssoc.putString("PACKAGE_NAME", context.getPackageName());
+        appAssoc.putStringArray("ACTIVITY_LIST", new String[]{"*"});
+        ArrayList<Bundle> appList = new ArrayList<>();
+        appList.add(appAssoc);
+        config.putParcelableArrayList("APP_LIST", appList);
+        return config;
+    }
+
+    private void applyProfileConfig() {
+        pendingHash = configHash;
+        Intent i = new Intent();
+        i.setAction(ACTION_DATAWEDGE);
+        i.putExtra(EXTRA_SET_CONFIG, profileConfig);
+        i.putExtra(EXTRA_SEND_RESULT, "true");
+        i.putExtra(EXTRA_COMMAND_IDENTIFIER, SET_CONFIG_ID);
+        context.sendBroadcast(i);
+        Log.d(TAG, "Applying DataWedge profile " + PROFILE_NAME + " (config " + configHash.substring(0, 12) + ")");
+    }
+
+    private void registerForNotifications() {
+        Bundle b = new Bundle();
+        b.putString("com.symbol.datawedge.api.APPLICATION_NAME", context.getPackageName());
+        b.putString("com.symbol.datawedge.api.NOTIFICATION_TYPE", "SCANNER_STATUS");
+        sendDataWedgeIntentWithExtra(EXTRA_REGISTER_NOTIFICATION, b);
+    }
+
+    private void sendDataWedgeIntentWithExtra(String extraKey, Object extraValue) {
+        Intent i = new Intent();
+        i.setAction(ACTION_DATAWEDGE);
+        if (extraValue instanceof String) {
+            i.putExtra(extraKey, (String) extraValue);
+        } else if (extraValue instanceof Bundle) {
+            i.putExtra(extraKey, (Bundle) extraValue);
+        }
+        context.sendBroadcast(i);
+    }
+
+    private void handleResult(Intent intent) {
+        if (intent.hasExtra(RESULT_GET_PROFILES_LIST)) {
+            String[] profiles = intent.getStringArrayExtra(RESULT_GET_PROFILES_LIST);
+            if (profiles == null || !Arrays.asList(profiles).contains(PROFILE_NAME)) {
+                Log.d(TAG, "Profile " + PROFILE_NAME + " missing, re-applying");
+                applyProfileConfig();
+            } else {
+                Log.d(TAG, "Profile " + PROFILE_NAME + " up to date, SET_CONFIG skipped");
+            }
+        }
+        if (intent.hasExtra(RESULT_GET_VERSION_INFO)) {
+            Bundle versionInfo = intent.getBundleExtra(RESULT_GET_VERSION_INFO);
+            if (versionInfo != null) Log.d(TAG, "DataWedge Version: " + versionInfo.getString("DATAWEDGE"));
+        }
+        if (SET_CONFIG_ID.equals(intent.getStringExtra(EXTRA_COMMAND_IDENTIFIER))) {
+            String result = intent.getStringExtra("RESULT");
+            if ("SUCCESS".equals(result) && pendingHash != null) {
+                prefs.edit().putString(PREF_CONFIG_HASH, pendingHash).apply();
+                Log.d(TAG, "DataWedge profile applied");
+            } else {
+                // Leave the stored hash alone so the next start tries again.
+                Bundle info = intent.getBundleExtra("RESULT_INFO");
+                Log.e(TAG, "DataWedge SET_CONFIG " + result + (info != null ? ": " + info.getString("RESULT_CODE") : ""));
+            }
+            pendingHash = null;
+        }
+    }
+
+    private void handleNotification(Intent intent) {
+        Bundle b = intent.getBundleExtra(EXTRA_NOTIFICATION);
+        if (b == null) return;
+        String status = b.getString("STATUS");
+        Log.d(TAG, "Scanner Status: " + status);
+        if (scannerReadyMillis < 0 && SCANNER_READY_STATUS.equals(status)) {
+            long now = SystemClock.elapsedRealtime();
+            scannerReadyMillis = now - startElapsed;
+            Log.d(TAG, "Scanner ready " + scannerReadyMillis + " ms after DataWedge setup, "
+                    + (now - Process.getStartElapsedRealtime()) + " ms after process start");
+        }
+    }
+
+    private final BroadcastReceiver dwReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (action == null) return;
+
+            if (action.equals(RESULT_ACTION)) {
+                handleResult(intent);
+            } else if (action.equals(NOTIFICATION_ACTION)) {
+                handleNotification(intent);
+            } else if (action.equals(BARCODE_ACTION)) {
+                byte[] data = decodeData(intent);
+                if (data != null) {
+                    DataWedgeHandler.this.context.ingestBarcode(BarcodeIngest.Source.DATAWEDGE,
+                            BarcodeIngest.Symbology.fromLabelType(intent.getStringExtra(EXTRA_LABEL_TYPE)), data);
+                }
+            }
+        }
+    };
+
+    /** Raw bytes of the first decoded segment, falling back to the data string. */
+    private static byte[] decodeData(Intent intent) {
+        Object decodeData = intent.getSerializableExtra(EXTRA_DECODE_DATA);
+        if (decodeData instanceof List && !((List<?>) decodeData).isEmpty()
+                && ((List<?>) decodeData).get(0) instanceof byte[]) {
+            return (byte[]) ((List<?>) decodeData).get(0);
+        }
+        String barcode = intent.getStringExtra(EXTRA_DATA_STRING);
+        return barcode != null ? barcode.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * SHA-256 over a canonical rendering of {@code bundle}: keys sorted, nested bundles and
+     * lists rendered recursively, so equal configurations hash equally regardless of insertion order.
+     */
+    static String fingerprint(Bundle bundle) {
+        StringBuilder sb = new StringBuilder();
+        appendCanonical(sb, bundle);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return EpcCodec.toHex(digest, 0, digest.length);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void appendCanonical(StringBuilder sb, Object value) {
+        if (value instanceof Bundle) {
+            Bundle bundle = (Bundle) value;
+            List<String> keys = new ArrayList<>(bundle.keySet());
+            Collections.sort(keys);
+            sb.append('{');
+            for (String key : keys) {
+                sb.append(key).append('=');
+                appendCanonical(sb, bundle.get(key));
+                sb.append(';');
+            }
+            sb.append('}');
+        } else if (value instanceof List) {
+            sb.append('[');
+            for (Object item : (List<?>) value) {
+                appendCanonical(sb, item);
+                sb.append(',');
+            }
+            sb.append(']');
+        } else if (value instanceof Object[]) {
+            appendCanonical(sb, Arrays.asList((Object[]) value));
+        } else {
+            sb.append(value);
+        }
+    }
+}
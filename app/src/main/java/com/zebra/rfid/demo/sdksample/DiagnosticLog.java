@@ -0,0 +1,248 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.zebra.rfid.api3.IRFIDLogger;
+import com.zebra.rfid.api3.RFIDReader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.logging.Level;
+
+/**
+ * Process-wide diagnostics log kept in a ring of preallocated records, cheap enough to leave
+ * on in production.
+ * <p>
+ * The level is checked before anything else, and a record stores its message template,
+ * arguments and time as they are; nothing is formatted until {@link #dump(File)}. With a
+ * constant message and primitive arguments, logging neither allocates nor concatenates.
+ * {@code {}} in a message is replaced by the arguments in order: numbers first, then the
+ * object argument. Object arguments are kept by reference, so pass immutable values.
+ * Records at or above {@link #setLogcatLevel(int)} are also written to logcat right away.
+ * The oldest records are overwritten once {@link #CAPACITY} have been written.
+ * A reader's API3 log output is routed here by {@link #attachTo(RFIDReader)}.
+ */
+final class DiagnosticLog {
+    static final int DEBUG = 0;
+    static final int INFO = 1;
+    static final int WARN = 2;
+    static final int ERROR = 3;
+    static final int CAPACITY = 8192;
+    private static final String API3_TAG = "API3";
+    private static final char[] LEVELS = {'D', 'I', 'W', 'E'};
+
+    private static final long[] times = new long[CAPACITY];
+    /** Level in bits 0-3, number argument count in bits 4-7, double flags in bits 8-9. */
+    private static final int[] meta = new int[CAPACITY];
+    private static final String[] tags = new String[CAPACITY];
+    private static final String[] messages = new String[CAPACITY];
+    private static final long[] first = new long[CAPACITY];
+    private static final long[] second = new long[CAPACITY];
+    private static final Object[] objects = new Object[CAPACITY];
+    /** Total records ever written; the newest is at {@code (count - 1) % CAPACITY}. */
+    private static long count;
+    private static final Api3Logger API3_LOGGER = new Api3Logger();
+
+    private static volatile int level = DEBUG;
+    private static volatile int logcatLevel = WARN;
+
+    private DiagnosticLog() {
+    }
+
+    /** Records below {@code minimum} are dropped before anything else is done. */
+    static void setLevel(int minimum) {
+        level = minimum;
+    }
+
+    /** Records at or above {@code minimum} are also written to logcat. */
+    static void setLogcatLevel(int minimum) {
+        logcatLevel = minimum;
+    }
+
+    static boolean isLoggable(int recordLevel) {
+        return recordLevel >= level;
+    }
+
+    static void d(String tag, String message) {
+        if (DEBUG >= level) record(DEBUG, tag, message, 0, 0, 0, null);
+    }
+
+    static void d(String tag, String message, long value) {
+        if (DEBUG >= level) record(DEBUG, tag, message, 1, value, 0, null);
+    }
+
+    static void d(String tag, String message, long value, long other) {
+        if (DEBUG >= level) record(DEBUG, tag, message, 2, value, other, null);
+    }
+
+    static void d(String tag, String message, double value) {
+        if (DEBUG >= level) record(DEBUG, tag, message, 1 | 1 << 4, Double.doubleToRawLongBits(value), 0, null);
+    }
+
+    static void d(String tag, String message, Object value) {
+        if (DEBUG >= level) record(DEBUG, tag, message, 0, 0, 0, value);
+    }
+
+    static void i(String tag, String message, Object value) {
+        if (INFO >= level) record(INFO, tag, message, 0, 0, 0, value);
+    }
+
+    static void w(String tag, String message, Object value) {
+        if (WARN >= level) record(WARN, tag, message, 0, 0, 0, value);
+    }
+
+    static void e(String tag, String message) {
+        if (ERROR >= level) record(ERROR, tag, message, 0, 0, 0, null);
+    }
+
+    /** A Throwable argument is written with its stack trace. */
+    static void e(String tag, String message, Object value) {
+        if (ERROR >= level) record(ERROR, tag, message, 0, 0, 0, value);
+    }
+
+    /**
+     * Routes the reader's API3 log output into this log. Call before {@code connect()}, which
+     * otherwise installs the SDK's own logcat logger.
+     */
+    static void attachTo(RFIDReader reader) {
+        reader.Logger = API3_LOGGER;
+    }
+
+    /** Records held and records ever written. */
+    static synchronized String stats() {
+        return Math.min(count, CAPACITY) + " of " + count + " records held";
+    }
+
+    /**
+     * Writes the held records to {@code file}, oldest first, one line each.
+     * @return Records written.
+     */
+    static int dump(File file) throws IOException {
+        int held;
+        long[] snapTimes = new long[CAPACITY];
+        int[] snapMeta = new int[CAPACITY];
+        String[] snapTags = new String[CAPACITY];
+        String[] snapMessages = new String[CAPACITY];
+        long[] snapFirst = new long[CAPACITY];
+        long[] snapSecond = new long[CAPACITY];
+        Object[] snapObjects = new Object[CAPACITY];
+        long oldest;
+        synchronized (DiagnosticLog.class) {
+            held = (int) Math.min(count, CAPACITY);
+            oldest = count - held;
+            System.arraycopy(times, 0, snapTimes, 0, CAPACITY);
+            System.arraycopy(meta, 0, snapMeta, 0, CAPACITY);
+            System.arraycopy(tags, 0, snapTags, 0, CAPACITY);
+            System.arraycopy(messages, 0, snapMessages, 0, CAPACITY);
+            System.arraycopy(first, 0, snapFirst, 0, CAPACITY);
+            System.arraycopy(second, 0, snapSecond, 0, CAPACITY);
+            System.arraycopy(objects, 0, snapObjects, 0, CAPACITY);
+        }
+        long wallOffsetMillis = System.currentTimeMillis() - SystemClock.elapsedRealtimeNanos() / 1_000_000;
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+             PrintWriter out = new PrintWriter(writer)) {
+            StringBuilder line = new StringBuilder(160);
+            for (long id = oldest; id < oldest + held; id++) {
+                int slot = (int) (id % CAPACITY);
+                line.setLength(0);
+                long wall = wallOffsetMillis + snapTimes[slot] / 1_000_000;
+                line.append(String.format(Locale.US, "%tF %<tT.%<tL ", wall));
+                line.append(LEVELS[snapMeta[slot] & 0xF]).append('/').append(snapTags[slot]).append(": ");
+                format(line, snapMessages[slot], snapMeta[slot], snapFirst[slot], snapSecond[slot], snapObjects[slot]);
+                out.println(line);
+                if (snapObjects[slot] instanceof Throwable) ((Throwable) snapObjects[slot]).printStackTrace(out);
+            }
+            if (out.checkError()) throw new IOException("Error writing " + file);
+        }
+        return held;
+    }
+
+    private static void record(int recordLevel, String tag, String message, int argInfo, long a, long b, Object value) {
+        long now = SystemClock.elapsedRealtimeNanos();
+        int numbers = argInfo & 0xF;
+        int doubles = argInfo >>> 4;
+        int packed = recordLevel | numbers << 4 | doubles << 8;
+        synchronized (DiagnosticLog.class) {
+            int slot = (int) (count % CAPACITY);
+            times[slot] = now;
+            meta[slot] = packed;
+            tags[slot] = tag;
+            messages[slot] = message;
+            first[slot] = a;
+            second[slot] = b;
+            objects[slot] = value;
+            count++;
+        }
+        if (recordLevel >= logcatLevel) {
+            StringBuilder line = new StringBuilder(message.length() + 32);
+            format(line, message, packed, a, b, value);
+            int priority = recordLevel == ERROR ? Log.ERROR : recordLevel == WARN ? Log.WARN
+                    : recordLevel == INFO ? Log.INFO : Log.DEBUG;
+            if (value instanceof Throwable) line.append('\n').append(Log.getStackTraceString((Throwable) value));
+            Log.println(priority, tag, line.toString());
+        }
+    }
+
+    private static void format(StringBuilder out, String message, int packed, long a, long b, Object value) {
+        int numbers = (packed >>> 4) & 0xF;
+        int doubles = (packed >>> 8) & 0x3;
+        int args = numbers + (value != null ? 1 : 0);
+        int next = 0;
+        int start = 0;
+        int at;
+        while (next < args && (at = message.indexOf("{}", start)) >= 0) {
+            out.append(message, start, at);
+            appendArg(out, next++, numbers, doubles, a, b, value);
+            start = at + 2;
+        }
+        out.append(message, start, message.length());
+        // Arguments without a placeholder go at the end
+        while (next < args) {
+            if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') out.append(' ');
+            appendArg(out, next++, numbers, doubles, a, b, value);
+        }
+    }
+
+    private static void appendArg(StringBuilder out, int index, int numbers, int doubles, long a, long b, Object value) {
+        if (index >= numbers) {
+            out.append(value instanceof Throwable ? value.getClass().getSimpleName() + ": " + ((Throwable) value).getMessage() : value);
+            return;
+        }
+        long bits = index == 0 ? a : b;
+        if ((doubles & (1 << index)) != 0) out.append(Double.longBitsToDouble(bits));
+        else out.append(bits);
+    }
+
+    /** API3 logger that records into the ring instead of logcat. */
+    private static final class Api3Logger extends IRFIDLogger {
+        @Override
+        public void log(Level recordLevel, String message) {
+            log(recordLevel, message, (Object) null);
+        }
+
+        @Override
+        public void log(Level recordLevel, String message, Exception e) {
+            log(recordLevel, message, (Object) e);
+        }
+
+        @Override
+        public void log(Level recordLevel, String message, String detail) {
+            log(recordLevel, message, (Object) detail);
+        }
+
+        private static void log(Level recordLevel, String message, Object value) {
+            if (message == null || recordLevel == null) return;
+            int jul = recordLevel.intValue();
+            int mapped = jul >= Level.SEVERE.intValue() ? ERROR : jul >= Level.WARNING.intValue() ? WARN
+                    : jul >= Level.INFO.intValue() ? INFO : DEBUG;
+            if (mapped >= level) record(mapped, API3_TAG, message, 0, 0, 0, value);
+        }
+    }
+}
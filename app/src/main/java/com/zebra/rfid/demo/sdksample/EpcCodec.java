@@ -0,0 +1,55 @@
+package com.zebra.rfid.demo.sdksample;
+
+/**
+ * Helpers for converting EPCs between the hex form reported by the SDK
+ * and the packed binary form used by the manifest index and session stores.
+ */
+final class EpcCodec {
+    /** Longest EPC allowed by Gen2 (496 bits). */
+    static final int MAX_EPC_BYTES = 62;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private EpcCodec() {
+    }
+
+    /**
+     * Returns the value of a single hex digit, or -1 if the character is not hex.
+     */
+    static int hexValue(int c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        return -1;
+    }
+
+    /**
+     * Packs a hex EPC into {@code out} starting at {@code offset}.
+     * @return The number of bytes written, or -1 if the input is not an even-length hex string
+     *         or does not fit into {@link #MAX_EPC_BYTES}.
+     */
+    static int hexToBytes(CharSequence hex, byte[] out, int offset) {
+        int length = hex.length();
+        if (length == 0 || (length & 1) != 0 || length / 2 > MAX_EPC_BYTES) return -1;
+        for (int i = 0; i < length; i += 2) {
+            int hi = hexValue(hex.charAt(i));
+            int lo = hexValue(hex.charAt(i + 1));
+            if (hi < 0 || lo < 0) return -1;
+            out[offset + i / 2] = (byte) ((hi << 4) | lo);
+        }
+        return length / 2;
+    }
+
+    /**
+     * Formats {@code length} bytes of {@code data} starting at {@code offset} as upper-case hex.
+     */
+    static String toHex(byte[] data, int offset, int length) {
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            int b = data[offset + i] & 0xFF;
+            chars[i * 2] = HEX_DIGITS[b >>> 4];
+            chars[i * 2 + 1] = HEX_DIGITS[b & 0x0F];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,187 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.zebra.rfid.api3.STATUS_EVENT_TYPE;
+import com.zebra.rfid.api3.TagData;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Records the reader event stream to a compact binary file for {@link EventReplayer}.
+ * <p>
+ * Events are captured where {@link RFIDHandler.EventHandler} has reduced the SDK objects:
+ * a read batch as EPC, peak RSSI and antenna per tag, a status event as its type and payload.
+ * Access operation results (TID and user memory reads) are not recorded. Each event carries
+ * its {@code elapsedRealtimeNanos} delta from the previous one.
+ * <p>
+ * Layout: {@code [int magic][long wall clock millis]}, then per event
+ * {@code [varint delta nanos][byte kind]} followed by, for reads,
+ * {@code [varint count]} and per tag {@code [varint epc length << 1 | packed hex][epc][zigzag rssi][varint antenna]};
+ * for status events {@code [zigzag value][zigzag extra][varint length][UTF-8 detail]}.
+ * Writes go through a 64 KB buffer on the calling thread.
+ */
+class EventRecorder implements Closeable {
+    private static final String TAG = "EventRecorder";
+    static final int MAGIC = 0x52455631; // "REV1"
+    static final int KIND_READS = 0;
+    /** Status event kinds are 1 + their index here. Disconnects are not replayable and not recorded. */
+    static final STATUS_EVENT_TYPE[] STATUS_TYPES = {
+            STATUS_EVENT_TYPE.HANDHELD_TRIGGER_EVENT,
+            STATUS_EVENT_TYPE.INVENTORY_START_EVENT,
+            STATUS_EVENT_TYPE.INVENTORY_STOP_EVENT,
+            STATUS_EVENT_TYPE.BUFFER_FULL_WARNING_EVENT,
+            STATUS_EVENT_TYPE.BUFFER_FULL_EVENT,
+            STATUS_EVENT_TYPE.BATTERY_EVENT,
+            STATUS_EVENT_TYPE.TEMPERATURE_ALARM_EVENT,
+            STATUS_EVENT_TYPE.POWER_EVENT
+    };
+
+    private final File file;
+    private final OutputStream out;
+    private final byte[] epcScratch = new byte[EpcCodec.MAX_EPC_BYTES];
+    private long previousNanos;
+    private long events;
+    private long tags;
+    private boolean closed;
+
+    EventRecorder(File file) throws IOException {
+        this.file = file;
+        this.out = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+        writeLong(out, MAGIC, 4);
+        writeLong(out, System.currentTimeMillis(), 8);
+        previousNanos = SystemClock.elapsedRealtimeNanos();
+    }
+
+    synchronized void recordTags(TagData[] batch) {
+        if (closed || batch == null) return;
+        try {
+            int count = 0;
+            for (TagData tag : batch) {
+                if (tag != null && tag.getTagID() != null) count++;
+            }
+            startEvent(KIND_READS);
+            writeVarLong(out, count);
+            for (TagData tag : batch) {
+                if (tag == null || tag.getTagID() == null) continue;
+                String epc = tag.getTagID();
+                int length = EpcCodec.hexToBytes(epc, epcScratch, 0);
+                if (length >= 0) {
+                    writeVarLong(out, (long) length << 1 | 1);
+                    out.write(epcScratch, 0, length);
+                } else {
+                    byte[] ascii = epc.getBytes(StandardCharsets.US_ASCII);
+                    writeVarLong(out, (long) ascii.length << 1);
+                    out.write(ascii);
+                }
+                writeVarLong(out, zigzag(tag.getPeakRSSI()));
+                writeVarLong(out, tag.getAntennaID() & 0xFFFF);
+            }
+            tags += count;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** Ignores event types that are not in {@link #STATUS_TYPES}. */
+    synchronized void recordStatus(STATUS_EVENT_TYPE type, int value, int extra, String detail) {
+        if (closed) return;
+        int kind = statusKind(type);
+        if (kind < 0) return;
+        try {
+            startEvent(kind);
+            writeVarLong(out, zigzag(value));
+            writeVarLong(out, zigzag(extra));
+            byte[] bytes = detail != null ? detail.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    synchronized long events() {
+        return events;
+    }
+
+    synchronized String report() {
+        return events + " events, " + tags + " tags, " + file.length() / 1024 + " KB in " + file.getName();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        out.close();
+    }
+
+    private void startEvent(int kind) throws IOException {
+        long now = SystemClock.elapsedRealtimeNanos();
+        writeVarLong(out, Math.max(0, now - previousNanos));
+        previousNanos = now;
+        out.write(kind);
+        events++;
+    }
+
+    private void fail(IOException e) {
+        Log.e(TAG, "Error recording to " + file + ", recording stopped", e);
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // Already failing
+        }
+    }
+
+    static int statusKind(STATUS_EVENT_TYPE type) {
+        for (int i = 0; i < STATUS_TYPES.length; i++) {
+            if (STATUS_TYPES[i] == type) return i + 1;
+        }
+        return -1;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /** Unsigned LEB128. */
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /** @return The value, or -1 at a clean end of stream before the first byte. */
+    static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) return -1;
+                throw new IOException("Truncated event recording");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Bad varint in event recording");
+    }
+
+    /** Big-endian, {@code bytes} long. */
+    static void writeLong(OutputStream out, long value, int bytes) throws IOException {
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) out.write((int) (value >>> shift));
+    }
+}
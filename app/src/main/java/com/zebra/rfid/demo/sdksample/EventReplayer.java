@@ -0,0 +1,130 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.STATUS_EVENT_TYPE;
+import com.zebra.rfid.api3.TagData;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds an {@link EventRecorder} file back into a {@link Sink}, normally the handler's
+ * replay sink, on the calling thread.
+ * <p>
+ * At speed 1 events are delivered with their recorded spacing, at speed N that spacing is
+ * divided by N, and at {@link #MAX_SPEED} they are delivered back to back. The result holds
+ * the throughput achieved and the time the sink spent on each event. Interrupting the
+ * replaying thread ends the replay early.
+ */
+class EventReplayer {
+    static final double MAX_SPEED = 0;
+
+    /** Receives events in the form {@link EventRecorder} captures them. */
+    interface Sink {
+        void onTags(TagData[] tags);
+
+        void onStatus(STATUS_EVENT_TYPE type, int value, int extra, String detail);
+    }
+
+    static final class Result {
+        final long events;
+        final long tags;
+        final long recordedNanos;
+        final long replayNanos;
+        /** Time spent in the sink per event. */
+        final LatencyHistogram sinkLatency;
+
+        Result(long events, long tags, long recordedNanos, long replayNanos, LatencyHistogram sinkLatency) {
+            this.events = events;
+            this.tags = tags;
+            this.recordedNanos = recordedNanos;
+            this.replayNanos = replayNanos;
+            this.sinkLatency = sinkLatency;
+        }
+
+        double tagsPerSecond() {
+            return replayNanos > 0 ? tags * 1e9 / replayNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d events, %d tags in %.2f s (recorded %.2f s), %.0f tags/s\nsink %s",
+                    events, tags, replayNanos / 1e9, recordedNanos / 1e9, tagsPerSecond(), sinkLatency);
+        }
+    }
+
+    private EventReplayer() {
+    }
+
+    /**
+     * @param speed 1 for real time, N for N times faster, or {@link #MAX_SPEED}.
+     * @throws IOException If the file cannot be read or is not a recording.
+     */
+    static Result replay(File file, Sink sink, double speed) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024)) {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != EventRecorder.MAGIC) throw new IOException(file + " is not an event recording");
+            data.readLong(); // Wall clock at recording start
+            LatencyHistogram sinkLatency = new LatencyHistogram();
+            byte[] epc = new byte[EpcCodec.MAX_EPC_BYTES * 2];
+            long events = 0;
+            long tags = 0;
+            long recordedNanos = 0;
+            long start = System.nanoTime();
+            long delta;
+            while (!Thread.currentThread().isInterrupted() && (delta = EventRecorder.readVarLong(in)) >= 0) {
+                recordedNanos += delta;
+                int kind = in.read();
+                if (kind < 0) throw new EOFException("Truncated event recording");
+                if (speed > 0) {
+                    long wait = start + (long) (recordedNanos / speed) - System.nanoTime();
+                    if (wait > 0) LockSupport.parkNanos(wait);
+                }
+                if (kind == EventRecorder.KIND_READS) {
+                    TagData[] batch = readTags(in, data, epc);
+                    long before = System.nanoTime();
+                    sink.onTags(batch);
+                    sinkLatency.record(System.nanoTime() - before);
+                    tags += batch.length;
+                } else if (kind <= EventRecorder.STATUS_TYPES.length) {
+                    int value = (int) EventRecorder.unzigzag(EventRecorder.readVarLong(in));
+                    int extra = (int) EventRecorder.unzigzag(EventRecorder.readVarLong(in));
+                    byte[] detail = new byte[(int) EventRecorder.readVarLong(in)];
+                    data.readFully(detail);
+                    long before = System.nanoTime();
+                    sink.onStatus(EventRecorder.STATUS_TYPES[kind - 1], value, extra, new String(detail, StandardCharsets.UTF_8));
+                    sinkLatency.record(System.nanoTime() - before);
+                } else {
+                    throw new IOException("Unknown event kind " + kind);
+                }
+                events++;
+            }
+            return new Result(events, tags, recordedNanos, System.nanoTime() - start, sinkLatency);
+        }
+    }
+
+    private static TagData[] readTags(InputStream in, DataInputStream data, byte[] epc) throws IOException {
+        int count = (int) EventRecorder.readVarLong(in);
+        if (count < 0) throw new EOFException("Truncated event recording");
+        TagData[] batch = new TagData[count];
+        for (int i = 0; i < count; i++) {
+            long header = EventRecorder.readVarLong(in);
+            int length = (int) (header >>> 1);
+            if (header < 0 || length > epc.length) throw new IOException("Bad EPC length " + length);
+            data.readFully(epc, 0, length);
+            TagData tag = new TagData();
+            tag.setTagID((header & 1) != 0 ? EpcCodec.toHex(epc, 0, length) : new String(epc, 0, length, StandardCharsets.US_ASCII));
+            tag.setPeakRSSI((short) EventRecorder.unzigzag(EventRecorder.readVarLong(in)));
+            tag.setAntennaID((short) EventRecorder.readVarLong(in));
+            batch[i] = tag;
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,142 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.STOP_TRIGGER_TYPE;
+import com.zebra.rfid.api3.TagData;
+import com.zebra.rfid.api3.TriggerInfo;
+
+import java.util.HashSet;
+import java.util.Locale;
+
+/**
+ * A bounded inventory round that the reader stops by itself: after a duration, after N tags,
+ * or once N inventory rounds in a row find no new tag.
+ * <p>
+ * The last condition is not a reader trigger, so it runs as a chain of reader-side
+ * {@code N_ATTEMPTS} chunks of N rounds each; the round ends after the first chunk without a
+ * new unique tag, so a scripted count finishes as soon as the field is exhausted.
+ */
+final class InventoryRound {
+    enum StopCondition {
+        DURATION,
+        TAG_COUNT,
+        QUIET_ROUNDS
+    }
+
+    /** Outcome of a completed round. */
+    static final class Summary {
+        final StopCondition condition;
+        final long reads;
+        final int uniqueTags;
+        final long durationMillis;
+        /** Reader operations performed; more than one only for {@link StopCondition#QUIET_ROUNDS}. */
+        final int chunks;
+
+        Summary(StopCondition condition, long reads, int uniqueTags, long durationMillis, int chunks) {
+            this.condition = condition;
+            this.reads = reads;
+            this.uniqueTags = uniqueTags;
+            this.durationMillis = durationMillis;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %d reads, %d unique in %d ms (%d chunk%s)",
+                    condition, reads, uniqueTags, durationMillis, chunks, chunks == 1 ? "" : "s");
+        }
+    }
+
+    interface Listener {
+        void onRoundComplete(Summary summary);
+    }
+
+    final StopCondition condition;
+    /** Milliseconds, tag count or quiet rounds, depending on {@link #condition}. */
+    private final int limit;
+    /** Overall cap for tag-count and quiet-round conditions. */
+    private final int timeoutMillis;
+    private final Listener listener;
+    private final HashSet<String> unique = new HashSet<>();
+    private long reads;
+    private int newInChunk;
+    private int chunks;
+    private long startNanos;
+
+    private InventoryRound(StopCondition condition, int limit, int timeoutMillis, Listener listener) {
+        this.condition = condition;
+        this.limit = limit;
+        this.timeoutMillis = timeoutMillis;
+        this.listener = listener;
+    }
+
+    /** Stops after {@code millis}. */
+    static InventoryRound forDuration(int millis, Listener listener) {
+        return new InventoryRound(StopCondition.DURATION, millis, millis, listener);
+    }
+
+    /** Stops once {@code tags} tags have been read, or after {@code timeoutMillis}. */
+    static InventoryRound forTagCount(int tags, int timeoutMillis, Listener listener) {
+        return new InventoryRound(StopCondition.TAG_COUNT, Math.min(tags, Short.MAX_VALUE), timeoutMillis, listener);
+    }
+
+    /** Stops after {@code rounds} consecutive rounds without a new tag, or after {@code timeoutMillis}. */
+    static InventoryRound untilQuiet(int rounds, int timeoutMillis, Listener listener) {
+        return new InventoryRound(StopCondition.QUIET_ROUNDS, Math.min(rounds, Short.MAX_VALUE), timeoutMillis, listener);
+    }
+
+    /** Trigger configuration for the next reader operation of this round. */
+    synchronized TriggerInfo nextTrigger() {
+        if (chunks == 0) startNanos = System.nanoTime();
+        chunks++;
+        newInChunk = 0;
+        TriggerInfo triggerInfo = new TriggerInfo();
+        switch (condition) {
+            case DURATION:
+                triggerInfo.StopTrigger.setTriggerType(STOP_TRIGGER_TYPE.STOP_TRIGGER_TYPE_DURATION);
+                triggerInfo.StopTrigger.setDurationMilliSeconds(limit);
+                break;
+            case TAG_COUNT:
+                triggerInfo.StopTrigger.setTriggerType(STOP_TRIGGER_TYPE.STOP_TRIGGER_TYPE_TAG_OBSERVATION_WITH_TIMEOUT);
+                triggerInfo.StopTrigger.TagObservation.setN((short) limit);
+                triggerInfo.StopTrigger.TagObservation.setTimeout(remainingMillis());
+                break;
+            case QUIET_ROUNDS:
+                triggerInfo.StopTrigger.setTriggerType(STOP_TRIGGER_TYPE.STOP_TRIGGER_TYPE_N_ATTEMPTS_WITH_TIMEOUT);
+                triggerInfo.StopTrigger.NumAttempts.setN((short) limit);
+                triggerInfo.StopTrigger.NumAttempts.setTimeout(remainingMillis());
+                break;
+        }
+        return triggerInfo;
+    }
+
+    synchronized void onTags(TagData[] tags) {
+        for (TagData tag : tags) {
+            if (tag == null || tag.getTagID() == null) continue;
+            reads++;
+            if (unique.add(tag.getTagID())) newInChunk++;
+        }
+    }
+
+    /**
+     * Called when the reader reports the operation stopped.
+     * @return True if the round is over; false if another chunk should be performed.
+     */
+    synchronized boolean onStopped() {
+        if (condition == StopCondition.QUIET_ROUNDS && newInChunk > 0 && remainingMillis() > 0) return false;
+        return true;
+    }
+
+    /** Ends the round and reports its summary to the listener. */
+    void complete() {
+        Summary summary;
+        synchronized (this) {
+            summary = new Summary(condition, reads, unique.size(), (System.nanoTime() - startNanos) / 1_000_000, chunks);
+        }
+        if (listener != null) listener.onRoundComplete(summary);
+    }
+
+    private int remainingMillis() {
+        long elapsed = chunks == 0 ? 0 : (System.nanoTime() - startNanos) / 1_000_000;
+        return (int) Math.max(0, timeoutMillis - elapsed);
+    }
+}
@@ -0,0 +1,64 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Fixed-size latency histogram with power-of-two microsecond buckets. Recording is O(1) and
+ * allocation-free; percentiles are reported as the upper bound of the bucket they fall in.
+ */
+final class LatencyHistogram {
+    private static final int BUCKETS = 40;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    synchronized void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        long micros = nanos / 1000;
+        int bucket = micros == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts[bucket]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+    }
+
+    synchronized long count() {
+        return count;
+    }
+
+    synchronized double meanMillis() {
+        return count > 0 ? totalNanos / 1e6 / count : 0;
+    }
+
+    synchronized double maxMillis() {
+        return maxNanos / 1e6;
+    }
+
+    /** Upper bound in milliseconds of the bucket holding the {@code percentile} (0-100) sample. */
+    synchronized double percentileMillis(double percentile) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min((1L << i) / 1000.0, maxMillis());
+        }
+        return maxMillis();
+    }
+
+    synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "n=%d avg=%.2fms p50=%.2fms p99=%.2fms max=%.2fms",
+                count, meanMillis(), percentileMillis(50), percentileMillis(99), maxMillis());
+    }
+}
@@ -0,0 +1,201 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Minimal HTTP/1.1 endpoint on the loopback interface that stands in for the sync backend.
+ * <p>
+ * Accepts {@link UploadQueue} chunks, decodes them and counts records, ignoring chunks it
+ * has already accepted. A configurable share of requests fails with 503, and another share is
+ * accepted but answered too late for the client, to exercise retries and duplicate delivery.
+ * One request per connection; not meant for anything but local runs.
+ */
+class LocalUploadServer {
+    private static final String TAG = "LocalUploadServer";
+    private static final int MAX_BODY = 16 * 1024 * 1024;
+
+    private final double failureRate;
+    private final double stallRate;
+    private final long stallMillis;
+    private final ExecutorService workers = Executors.newFixedThreadPool(4);
+    private final Set<String> acceptedChunks = Collections.synchronizedSet(new HashSet<>());
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong stalled = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+
+    /** @param failureRate Share of requests answered with 503, from 0 to 1. */
+    LocalUploadServer(double failureRate) {
+        this(failureRate, 0, 0);
+    }
+
+    /**
+     * @param failureRate Share of requests answered with 503, from 0 to 1.
+     * @param stallRate Share of accepted chunks whose reply is held back for {@code stallMillis}.
+     */
+    LocalUploadServer(double failureRate, double stallRate, long stallMillis) {
+        this.failureRate = failureRate;
+        this.stallRate = stallRate;
+        this.stallMillis = stallMillis;
+    }
+
+    /** Binds an ephemeral loopback port and starts accepting. */
+    synchronized void start() throws IOException {
+        if (serverSocket != null) return;
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        final ServerSocket socket = serverSocket;
+        acceptThread = new Thread(() -> {
+            while (!socket.isClosed()) {
+                try {
+                    final Socket client = socket.accept();
+                    workers.execute(() -> handle(client));
+                } catch (IOException e) {
+                    if (!socket.isClosed()) Log.e(TAG, "Accept failed", e);
+                }
+            }
+        }, TAG);
+        acceptThread.start();
+    }
+
+    synchronized URL getUrl() throws IOException {
+        return new URL("http", "127.0.0.1", serverSocket.getLocalPort(), "/sessions");
+    }
+
+    /** Records received, not counting duplicate chunks. */
+    long getRecords() {
+        return records.get();
+    }
+
+    /** Chunks received again after they were accepted. */
+    long getDuplicates() {
+        return duplicates.get();
+    }
+
+    String report() {
+        return String.format(Locale.US,
+                "%d records in %d chunks, %d KB, %d requests (%d failed, %d stalled on purpose), %d duplicates",
+                records.get(), acceptedChunks.size(), bytes.get() / 1024, requests.get(), failed.get(), stalled.get(),
+                duplicates.get());
+    }
+
+    synchronized void stop() {
+        if (serverSocket == null) return;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Error closing server socket", e);
+        }
+        serverSocket = null;
+        workers.shutdownNow();
+    }
+
+    private void handle(Socket client) {
+        try (Socket socket = client) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            String requestLine = readLine(in);
+            int contentLength = 0;
+            boolean gzip = false;
+            String chunkId = null;
+            String line;
+            while ((line = readLine(in)) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon < 0) continue;
+                String name = line.substring(0, colon).trim().toLowerCase(Locale.US);
+                String value = line.substring(colon + 1).trim();
+                if (name.equals("content-length")) contentLength = Integer.parseInt(value);
+                else if (name.equals("content-encoding")) gzip = value.equalsIgnoreCase("gzip");
+                else if (name.equals(UploadQueue.CHUNK_ID_HEADER.toLowerCase(Locale.US))) chunkId = value;
+            }
+            requests.incrementAndGet();
+            if (requestLine == null || !requestLine.startsWith("POST ") || contentLength <= 0 || contentLength > MAX_BODY) {
+                respond(socket.getOutputStream(), 400, "Bad Request");
+                return;
+            }
+            byte[] body = new byte[contentLength];
+            new DataInputStream(in).readFully(body);
+            if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                failed.incrementAndGet();
+                respond(socket.getOutputStream(), 503, "Service Unavailable");
+                return;
+            }
+            byte[] encoded = gzip ? inflate(body) : body;
+            int count;
+            try {
+                count = SessionCodec.decode(encoded).size();
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "Undecodable chunk " + chunkId, e);
+                respond(socket.getOutputStream(), 400, "Bad Request");
+                return;
+            }
+            if (chunkId == null || acceptedChunks.add(chunkId)) {
+                records.addAndGet(count);
+                bytes.addAndGet(contentLength);
+            } else {
+                duplicates.incrementAndGet();
+            }
+            if (ThreadLocalRandom.current().nextDouble() < stallRate) {
+                // Accepted, but the client gives up before the reply and sends the chunk again
+                stalled.incrementAndGet();
+                Thread.sleep(stallMillis);
+            }
+            respond(socket.getOutputStream(), 200, "OK");
+        } catch (IOException | NumberFormatException e) {
+            Log.e(TAG, "Error handling upload", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] inflate(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length * 4);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) >= 0) out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static void respond(OutputStream out, int status, String reason) throws IOException {
+        out.write(("HTTP/1.1 " + status + " " + reason + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '\n') break;
+            if (c != '\r') line.write(c);
+        }
+        if (c < 0 && line.size() == 0) return null;
+        return line.toString("US-ASCII");
+    }
+}
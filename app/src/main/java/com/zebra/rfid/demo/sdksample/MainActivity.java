@@ -5,10 +5,7 @@ import android.annotation.SuppressLint;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
+import android.os.Looper;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -24,10 +21,21 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import com.zebra.rfid.api3.MEMORY_BANK;
 import com.zebra.rfid.api3.TagData;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Main Activity for the RFID Sample application.
@@ -37,37 +45,7 @@ import java.util.HashSet;
 public class MainActivity extends AppCompatActivity implements RFIDHandler.ResponseHandlerInterface {
 
     private static final String TAG = "MainActivity";
-    // DataWedge intent actions and extras
-    private static final String DW_INTENT_ACTION = "com.symbol.datawedge.api.RESULT_ACTION";
-    private static final String DW_BARCODE_ACTION = "com.symbol.datawedge.api.ACTION";
-    private static final String DW_BARCODE_EXTRA = "com.symbol.datawedge.data_string";
-    private static final String DW_STATUS_EXTRA = "com.symbol.datawedge.api.RESULT_GET_STATUS";
-    private static final String DW_VERSION_EXTRA = "com.symbol.datawedge.api.RESULT_GET_VERSION_INFO";
-
-    private final BroadcastReceiver dataWedgeReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            String action = intent.getAction();
-            if (DW_INTENT_ACTION.equals(action) || DW_BARCODE_ACTION.equals(action)) {
-                // Barcode data
-                if (intent.hasExtra(DW_BARCODE_EXTRA)) {
-                    String barcode = intent.getStringExtra(DW_BARCODE_EXTRA);
-                    barcodeData(barcode);
-                }
-                // Status info
-                if (intent.hasExtra(DW_STATUS_EXTRA)) {
-                    String status = intent.getStringExtra(DW_STATUS_EXTRA);
-                    sendToast("DW Status: " + status);
-                }
-                // Version info
-                if (intent.hasExtra(DW_VERSION_EXTRA)) {
-                    String version = intent.getStringExtra(DW_VERSION_EXTRA);
-                    sendToast("DW Version: " + version);
-                }
-            }
-        }
-    };
-    
+
     /** TextView to display RFID connection and operation status. */
     public TextView statusTextViewRFID;
     
@@ -92,94 +70,126 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
     
     /** Handler for RFID and Scanner related operations. */
     private RFIDHandler rfidHandler;
+
+    /** Handler for the DataWedge profile and barcode intents. */
+    private DataWedgeHandler dataWedgeHandler;
+
+    /** Decodes and de-duplicates scans from both the scanner SDK and DataWedge. */
+    private final BarcodeIngest barcodeIngest = new BarcodeIngest(BarcodeIngest.DEFAULT_DUPLICATE_WINDOW_MS,
+            this::onBarcode);
     
-    /** Set to track unique tags discovered during the current session. */
-    private final HashSet<String> tagSet = new HashSet<>();
+    /** Tracks unique tags discovered during the current session; bounded in session store mode. */
+    private volatile TagSessionStore tagStore = new TagSessionStore();
+
+    /** Session store mode limits: heap cap, expiry after last read, and rows kept in the list. */
+    private static final long SESSION_MEMORY_CAP_BYTES = 4L * 1024 * 1024;
+    private static final long SESSION_TTL_MS = 15 * 60 * 1000;
+    private static final int MAX_DISPLAYED_TAGS = 1000;
     
     private static final int BLUETOOTH_PERMISSION_REQUEST_CODE = 100;
 
+    /** Expected-inventory manifests looked up in the app's external files directory. */
+    private static final String[] MANIFEST_FILES = {"manifest.csv", "manifest.json"};
+
+    /** Executor for work that must stay off the UI thread but is not reader I/O. */
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor();
+
+    /** Expected EPCs for reconciliation, or null until a manifest has been loaded. */
+    private volatile ManifestIndex manifest;
 
     /**
-     * Create DataWedge profile to receive barcode data and disable RFID plug-in
+     * Number of unique tags this session that are listed in the manifest. Written only by the
+     * session consumer, which also resets it at a session start.
      */
-    private void createDataWedgeProfile() {
-        final String PROFILE_NAME = "RFIDSampleProfile";
-        final String PACKAGE_NAME = getPackageName();
-        final String ACTIVITY_NAME = getClass().getName();
-
-        // 1. Create profile
-        Bundle bCreateProfile = new Bundle();
-        bCreateProfile.putString("com.symbol.datawedge.api.CREATE_PROFILE", PROFILE_NAME);
-        sendDataWedgeCommand("com.symbol.datawedge.api.ACTION", bCreateProfile);
-
-        // 2. Configure profile: barcode enabled, RFID disabled, intent output
-        Bundle bConfig = new Bundle();
-        bConfig.putString("PROFILE_NAME", PROFILE_NAME);
-        bConfig.putString("PROFILE_ENABLED", "true");
-        bConfig.putString("CONFIG_MODE", "UPDATE");
-
-        // Barcode input plugin
-        Bundle barcodeProps = new Bundle();
-        barcodeProps.putString("PLUGIN_NAME", "BARCODE");
-        barcodeProps.putString("RESET_CONFIG", "true");
-        Bundle barcodeParams = new Bundle();
-        barcodeParams.putString("scanner_selection_by_identifier", "AUTO");
-        barcodeProps.putBundle("PARAM_LIST", barcodeParams);
-
-        // RFID input plugin (disable)
-        Bundle rfidProps = new Bundle();
-        rfidProps.putString("PLUGIN_NAME", "RFID");
-        rfidProps.putString("RESET_CONFIG", "true");
-        Bundle rfidParams = new Bundle();
-        rfidParams.putString("rfid_input_enabled", "false");
-        rfidProps.putBundle("PARAM_LIST", rfidParams);
-
-        // Intent output plugin
-        Bundle intentProps = new Bundle();
-        intentProps.putString("PLUGIN_NAME", "INTENT");
-        intentProps.putString("RESET_CONFIG", "true");
-        Bundle intentParams = new Bundle();
-        intentParams.putString("intent_output_enabled", "true");
-        intentParams.putString("intent_action", "com.symbol.datawedge.api.ACTION");
-        intentParams.putString("intent_delivery", "2"); // 2 = broadcast
-        intentProps.putBundle("PARAM_LIST", intentParams);
-
-        ArrayList<Bundle> pluginConfig = new ArrayList<>();
-        pluginConfig.add(barcodeProps);
-        pluginConfig.add(rfidProps);
-        pluginConfig.add(intentProps);
-        bConfig.putParcelableArrayList("PLUGIN_CONFIG", pluginConfig);
-
-        // Associate app with profile
-        Bundle appAssoc = new Bundle();
-        appAssoc.putString("PACKAGE_NAME", PACKAGE_NAME);
-        appAssoc.putStringArray("ACTIVITY_LIST", new String[]{"*"});
-        ArrayList<Bundle> appList = new ArrayList<>();
-        appList.add(appAssoc);
-        bConfig.putParcelableArrayList("APP_LIST", appList);
-
-        sendDataWedgeCommand("com.symbol.datawedge.api.ACTION", bConfig);
-    }
-
-    private void sendDataWedgeCommand(String action, Bundle extras) {
-        Intent i = new Intent();
-        i.setAction(action);
-        if (extras != null) i.putExtras(extras);
-        sendBroadcast(i);
-    }
+    private int expectedTagsSeen;
+
+    /**
+     * Hashes of the unique TIDs seen this session. Used only by {@link #handleMemoryData} on
+     * the handler's executor, which empties it once {@link #tidSession} moves on.
+     */
+    private final TidSet tidSet = new TidSet();
+    private int tidSetSession;
+    /** Incremented by {@link #clearTagData()} to start a new TID session. */
+    private volatile int tidSession;
+
+    /** Barcode-to-tag pairing window around each scan. */
+    private static final long ASSOCIATION_PRE_WINDOW_MS = 1000;
+    private static final long ASSOCIATION_POST_WINDOW_MS = 1500;
+    /** A paired tag is not paired again this long, or until the next session. */
+    private static final long ASSOCIATION_PAIRED_HOLD_MS = 10 * 60 * 1000;
+
+    /** Pairs scanned barcodes with the strongest nearby tag; null until deferred init opens its journal. */
+    private volatile AssociationEngine associationEngine;
+
+    /** Portal events waiting for the next list refresh, so a burst of tags costs one UI update. */
+    private final ConcurrentLinkedQueue<PortalTracker.PortalEvent> pendingPortalEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean portalRefreshPosted = new AtomicBoolean();
+    /** Tags in the portal field, as of the last ENTERED / DEPARTED event. */
+    private int portalPresent;
+
+    /** Read TIDs: tags per batch, most recently seen first, and retries per read. */
+    private static final int TID_BATCH_TAGS = 50;
+    private static final int TID_READ_RETRIES = 2;
+
+    /** Count round: stop after this many inventory rounds in a row find no new tag, or at the timeout. */
+    private static final int COUNT_QUIET_ROUNDS = 3;
+    private static final int COUNT_TIMEOUT_MS = 30_000;
+
+    /**
+     * Sync backend for session uploads. Empty runs the uploads against a {@link LocalUploadServer}
+     * on the loopback interface instead.
+     */
+    private static final String UPLOAD_ENDPOINT = "";
+    private static final int UPLOAD_BATCH_RECORDS = 2000;
+    private static final long UPLOAD_BATCH_MILLIS = 2000;
+    private static final int UPLOAD_CONCURRENCY = 2;
+    private static final int UPLOAD_MAX_ATTEMPTS = 6;
+
+    /** Created on first upload, on {@link #backgroundExecutor}. */
+    private UploadQueue uploadQueue;
+    private LocalUploadServer uploadStandIn;
+
+    /** Tag list order: null for newest first, otherwise the ranking key. */
+    private volatile TagRanking.Key tagListOrder;
+    /** Kept up to date only while the list is ranked; guarded by itself. */
+    private final TagRanking ranking = new TagRanking();
+    /** Batches the session consumer has recorded; counted under the store's lock with the reads. */
+    private volatile long recordedBatches;
+    /** Batches the ranking consumer has taken, in the same order; its thread only. */
+    private long rankedBatches;
+    /** Batches up to this one are in the ranking rebuilt from the store. Guarded by {@link #ranking}. */
+    private long rankingCut;
+    /** Batches the ranking consumer took while the ranking was being rebuilt, or null. Guarded by {@link #ranking}. */
+    private List<RankedBatch> rankingBacklog;
+    private final AtomicBoolean rankingRefreshPosted = new AtomicBoolean();
+    private final Runnable showRanked = this::showRanked;
+    /** Rows shown when the list is ranked. */
+    private static final int RANKED_ROWS = 100;
+
+    /** Set in analytics mode, where reads go to fixed-size sketches instead of the session store. */
+    private volatile TagSketch sketch;
+    private final AtomicBoolean sketchRefreshPosted = new AtomicBoolean();
+    private final Runnable showSketch = this::showSketch;
+    /** Window for the per-window distinct count in analytics mode. */
+    private static final long ANALYTICS_WINDOW_MS = 60_000;
+
+    /** Recording of reader events, replayed in real time so field timing is reproduced. */
+    private static final String EVENT_RECORDING = "reader_events.rec";
+    private static final double REPLAY_SPEED = 1;
+    /** Runs replays, which can take as long as the recording. */
+    private final ExecutorService replayExecutor = Executors.newSingleThreadExecutor();
+
+    /** Startup budget from process start to the first idle main loop with the UI shown. */
+    private static final long TIME_TO_INTERACTIVE_TARGET_MS = 1000;
+
+    /** True once the idle-time initialization has run. */
+    private boolean deferredInitDone;
 
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        int inflatePhase = StartupTrace.begin("setContentView");
         setContentView(R.layout.activity_main);
-
-        // Programmatically create DataWedge profile for barcode, disable RFID
-        createDataWedgeProfile();
-
-        // Register DataWedge broadcast receiver
-        IntentFilter filter = new IntentFilter();
-        filter.addAction(DW_INTENT_ACTION);
-        filter.addAction(DW_BARCODE_ACTION);
-        registerReceiver(dataWedgeReceiver, filter);
+        StartupTrace.end(inflatePhase);
 
         statusTextViewRFID = findViewById(R.id.textViewStatusrfid);
         if (statusTextViewRFID != null) {
@@ -210,8 +220,407 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
         // Initially disable scan button until session established
         if (btnScan != null) btnScan.setEnabled(false);
 
+        int sdkPhase = StartupTrace.begin("RFIDHandler init");
         rfidHandler = new RFIDHandler();
+        subscribeTagConsumers();
         checkPermissionsAndInit();
+        StartupTrace.end(sdkPhase);
+
+        // Everything below is not needed to draw the first frame
+        Looper.myQueue().addIdleHandler(() -> {
+            runDeferredInit();
+            return false;
+        });
+    }
+
+    /**
+     * Initialization moved off the startup path: runs on the first idle main loop after the UI
+     * is shown, which also marks time-to-interactive. Disk work goes to the background executor.
+     */
+    private void runDeferredInit() {
+        if (deferredInitDone || isDestroyed()) return;
+        deferredInitDone = true;
+        long interactiveMs = StartupTrace.sinceProcessStartMillis();
+        StartupTrace.mark("interactive");
+        Log.d(TAG, "Time to interactive: " + interactiveMs + " ms (target " + TIME_TO_INTERACTIVE_TARGET_MS + " ms)"
+                + (interactiveMs > TIME_TO_INTERACTIVE_TARGET_MS ? " MISSED" : ""));
+
+        // DataWedge profile for barcode with RFID disabled; only re-applied when it changed
+        int dataWedgePhase = StartupTrace.begin("DataWedge config");
+        dataWedgeHandler = new DataWedgeHandler(this);
+        dataWedgeHandler.onCreate();
+        StartupTrace.end(dataWedgePhase);
+
+        backgroundExecutor.execute(() -> {
+            int phase = StartupTrace.begin("Association journal");
+            associationEngine = createAssociationEngine();
+            StartupTrace.end(phase);
+        });
+        loadManifest();
+        rfidHandler.onResume();
+    }
+
+    /**
+     * Opens the expected-inventory manifest in the background. The binary index next to the
+     * source is reused when current, so only the first launch after a manifest change pays
+     * for parsing.
+     */
+    private void loadManifest() {
+        File dir = getExternalFilesDir(null);
+        if (dir == null) return;
+        backgroundExecutor.execute(() -> {
+            for (String name : MANIFEST_FILES) {
+                File source = new File(dir, name);
+                if (!source.isFile()) continue;
+                try {
+                    ManifestIndex index = ManifestIndex.open(source);
+                    manifest = index;
+                    Log.d(TAG, "Manifest " + name + ": " + index.size() + " EPCs in " + index.getOpenMillis()
+                            + " ms" + (index.wasRebuilt() ? " (index rebuilt)" : ""));
+                    sendToast("Manifest loaded: " + index.size() + " expected tags");
+                } catch (IOException e) {
+                    Log.e(TAG, "Error loading manifest " + name, e);
+                }
+                return;
+            }
+        });
+    }
+
+    /**
+     * Switches between the unbounded per-session tag set and the bounded session store for
+     * all-day monitoring, which spills evicted tags to a journal in app storage. Switching
+     * starts a new session.
+     */
+    private void toggleSessionStoreMode() {
+        final TagSessionStore previous = tagStore;
+        backgroundExecutor.execute(() -> {
+            TagSessionStore next;
+            if (previous.isBounded()) {
+                next = new TagSessionStore();
+            } else {
+                AppendOnlyJournal spill = null;
+                try {
+                    spill = new AppendOnlyJournal(new File(getFilesDir(), "session_spill.journal"), false);
+                } catch (IOException e) {
+                    Log.e(TAG, "Error opening spill journal, evicted tags will be dropped", e);
+                }
+                next = new TagSessionStore(SESSION_MEMORY_CAP_BYTES, SESSION_TTL_MS, spill);
+                next.setEvictionListener((entry, reason) -> {
+                    synchronized (ranking) {
+                        ranking.remove(entry.epc);
+                    }
+                });
+            }
+            tagStore = next;
+            Log.d(TAG, "Session store closed: " + previous.report());
+            previous.close();
+            clearTagData();
+            sendToast(next.isBounded() ? "Session store: bounded (" + SESSION_MEMORY_CAP_BYTES / 1024 + " KB, TTL "
+                    + SESSION_TTL_MS / 60000 + " min)" : "Session store: unbounded");
+        });
+    }
+
+    /** Reads of one batch held back while the ranking is rebuilt; no reads for a session start. */
+    private static final class RankedBatch {
+        final long index;
+        final String[] epcs;
+        final short[] rssi;
+
+        RankedBatch(long index, TagBatch batch) {
+            this.index = index;
+            this.epcs = batch.sessionStart ? null : Arrays.copyOf(batch.epcs, batch.size);
+            this.rssi = batch.sessionStart ? null : Arrays.copyOf(batch.rssi, batch.size);
+        }
+    }
+
+    /**
+     * Switches the tag list between newest first, strongest first and most read first. The
+     * ranking is rebuilt from the session store once, then updated incrementally per read.
+     * The store snapshot falls between two batches; the ranking consumer skips the batches
+     * it holds and keeps the ones taken during the rebuild until the rebuild is in place.
+     */
+    private void cycleTagListOrder() {
+        final TagRanking.Key current = tagListOrder;
+        final TagRanking.Key next = current == null ? TagRanking.Key.RSSI
+                : current == TagRanking.Key.RSSI ? TagRanking.Key.READS : null;
+        backgroundExecutor.execute(() -> {
+            tagListOrder = next;
+            if (next == null) {
+                synchronized (ranking) {
+                    ranking.clear();
+                }
+                sendToast("Tags: newest first (new tags only)");
+                return;
+            }
+            if (current == null) {
+                synchronized (ranking) {
+                    rankingBacklog = new ArrayList<>();
+                }
+                final TagSessionStore store = tagStore;
+                List<TagSessionStore.Entry> entries;
+                long through;
+                synchronized (store) {
+                    entries = store.snapshot();
+                    through = recordedBatches;
+                }
+                synchronized (ranking) {
+                    ranking.clear();
+                    for (TagSessionStore.Entry entry : entries) ranking.put(entry.epc, entry.peakRssi, entry.reads);
+                    rankingCut = through;
+                    for (RankedBatch held : rankingBacklog) {
+                        if (held.index <= through) continue;
+                        if (held.epcs == null) {
+                            ranking.clear();
+                        } else {
+                            for (int i = 0; i < held.epcs.length; i++) ranking.onRead(held.epcs[i], held.rssi[i]);
+                        }
+                    }
+                    rankingBacklog = null;
+                }
+            }
+            sendToast(next == TagRanking.Key.RSSI ? "Tags: strongest first" : "Tags: most read first");
+            postRankedRefresh();
+        });
+    }
+
+    /**
+     * Starts or stops analytics mode for unbounded continuous reads: distinct tags and read
+     * counts are estimated in fixed memory, and the list shows the most read tags.
+     */
+    private void toggleAnalyticsMode() {
+        backgroundExecutor.execute(() -> {
+            if (sketch != null) {
+                sketch = null;
+                sendToast("Analytics mode off");
+                return;
+            }
+            sketch = new TagSketch(ANALYTICS_WINDOW_MS);
+            clearTagData();
+            sendToast("Analytics mode on (" + TagSketch.memoryBytes() / 1024 + " KB, +/-"
+                    + Math.round(100 * TagSketch.DISTINCT_STANDARD_ERROR * 10) / 10.0 + "% unique)");
+        });
+    }
+
+    /** Shows the heavy hitters and estimates; coalesces bursts of batches into one update. */
+    private void postSketchRefresh() {
+        if (sketchRefreshPosted.compareAndSet(false, true)) runOnUiThread(showSketch);
+    }
+
+    private void showSketch() {
+        sketchRefreshPosted.set(false);
+        TagSketch current = sketch;
+        if (current == null) return;
+        tagList.clear();
+        for (TagSketch.HeavyHitter hitter : current.heavyHitters()) {
+            tagList.add(hitter.epc + " (~" + hitter.estimatedReads + " reads)");
+        }
+        if (tagAdapter != null) tagAdapter.notifyDataSetChanged();
+        if (scanResult != null) scanResult.setText(current.report());
+    }
+
+    private void toggleEventRecording() {
+        final File file = new File(getFilesDir(), EVENT_RECORDING);
+        backgroundExecutor.execute(() -> {
+            String summary = rfidHandler.stopRecording();
+            if (summary != null) {
+                sendToast("Recorded " + summary);
+                return;
+            }
+            try {
+                rfidHandler.startRecording(file);
+                sendToast("Recording reader events");
+            } catch (IOException e) {
+                Log.e(TAG, "Error starting event recording", e);
+                sendToast("Error starting recording: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Clears the session and feeds the last recording through the reader event handler. */
+    private void replayEvents() {
+        final File file = new File(getFilesDir(), EVENT_RECORDING);
+        if (rfidHandler.isRecording() || !file.isFile()) {
+            sendToast(rfidHandler.isRecording() ? "Stop recording first" : "No recording yet");
+            return;
+        }
+        clearTagData();
+        replayExecutor.execute(() -> {
+            try {
+                EventReplayer.Result result = rfidHandler.replay(file, REPLAY_SPEED);
+                Log.d(TAG, "Replay: " + result);
+                sendToast("Replay: " + result);
+            } catch (IOException e) {
+                Log.e(TAG, "Error replaying " + file, e);
+                sendToast("Error replaying: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Shows the top of the ranking; coalesces bursts of batches into one list update. */
+    private void postRankedRefresh() {
+        if (rankingRefreshPosted.compareAndSet(false, true)) runOnUiThread(showRanked);
+    }
+
+    private void showRanked() {
+        rankingRefreshPosted.set(false);
+        TagRanking.Key key = tagListOrder;
+        if (key == null) return;
+        tagList.clear();
+        synchronized (ranking) {
+            ranking.forEachTop(key, RANKED_ROWS,
+                    (epc, peakRssi, reads) -> tagList.add(epc + " (RSSI: " + peakRssi + ", reads: " + reads + ")"));
+        }
+        if (tagAdapter != null) tagAdapter.notifyDataSetChanged();
+    }
+
+    /**
+     * Queues the records of the current session for upload. Runs on {@link #backgroundExecutor}.
+     */
+    private void uploadSession() {
+        try {
+            if (uploadQueue == null) {
+                URL endpoint;
+                if (UPLOAD_ENDPOINT.isEmpty()) {
+                    uploadStandIn = new LocalUploadServer(0.0);
+                    uploadStandIn.start();
+                    endpoint = uploadStandIn.getUrl();
+                } else {
+                    endpoint = new URL(UPLOAD_ENDPOINT);
+                }
+                UploadQueue queue = new UploadQueue(new File(getFilesDir(), "outbox"), endpoint,
+                        UPLOAD_BATCH_RECORDS, UPLOAD_BATCH_MILLIS, UPLOAD_CONCURRENCY, UPLOAD_MAX_ATTEMPTS);
+                queue.start();
+                uploadQueue = queue;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error starting upload queue", e);
+            sendToast("Upload unavailable: " + e.getMessage());
+            return;
+        }
+        List<TagSessionStore.Entry> records = tagStore.snapshot();
+        uploadQueue.addAll(records);
+        uploadQueue.flush();
+        Log.d(TAG, "Upload: " + uploadQueue.report());
+        sendToast("Uploading " + records.size() + " records\n" + uploadQueue.report());
+    }
+
+    /**
+     * Reads the TID of the session's most recently seen tags with one tag access each.
+     * Inventory must be stopped. Each result is logged and the batch summed up in a toast.
+     */
+    private void readSessionTids() {
+        backgroundExecutor.execute(() -> {
+            List<TagSessionStore.Entry> entries = tagStore.snapshot();
+            List<TagOperation> readTid = Collections.singletonList(
+                    TagOperation.read(MEMORY_BANK.MEMORY_BANK_TID, 0, RFIDHandler.TID_WORDS, 0));
+            List<TagAccessBatch.Target> targets = new ArrayList<>();
+            for (int i = entries.size() - 1; i >= 0 && targets.size() < TID_BATCH_TAGS; i--) {
+                targets.add(new TagAccessBatch.Target(entries.get(i).epc, readTid));
+            }
+            if (targets.isEmpty()) {
+                sendToast("No tags in the session to read");
+                return;
+            }
+            boolean started = rfidHandler.runTagAccessBatch(targets, TID_READ_RETRIES, new TagAccessBatch.Listener() {
+                @Override
+                public void onOperationResult(TagAccessBatch.OperationResult result) {
+                    Log.d(TAG, result.epc + " " + result.operation + ": " + result.status
+                            + (result.readData != null ? ", TID " + result.readData : ""));
+                }
+
+                @Override
+                public void onBatchComplete(TagAccessBatch.Stats stats) {
+                    sendToast("Read TIDs: " + stats);
+                }
+            });
+            if (!started) sendToast("Reading TIDs needs a connected reader");
+        });
+    }
+
+    /**
+     * Counts the tags in the field with a round the reader stops once the field is exhausted.
+     */
+    private void startCountRound() {
+        InventoryRound round = InventoryRound.untilQuiet(COUNT_QUIET_ROUNDS, COUNT_TIMEOUT_MS, summary -> {
+            Log.d(TAG, "Count round " + summary);
+            toggleInventoryButtons(false);
+            sendToast("Count: " + summary.uniqueTags + " tags, " + summary.reads + " reads in "
+                    + summary.durationMillis + " ms");
+        });
+        clearTagData();
+        backgroundExecutor.execute(() -> {
+            if (rfidHandler.performInventory(round)) {
+                toggleInventoryButtons(true);
+            } else {
+                sendToast("Count round needs a connected, idle reader");
+            }
+        });
+    }
+
+    /**
+     * Starts or stops portal mode, in which inventory runs continuously and the list shows tags
+     * entering and leaving the field.
+     */
+    private void togglePortalMode() {
+        if (rfidHandler.isPortalMode()) {
+            rfidHandler.stopPortalMode();
+            toggleInventoryButtons(false);
+            sendToast("Portal mode off");
+            return;
+        }
+        clearTagData();
+        runOnUiThread(() -> portalPresent = 0);
+        if (rfidHandler.startPortalMode(this::onPortalEvent)) {
+            toggleInventoryButtons(true);
+            sendToast("Portal mode on");
+        } else {
+            sendToast("Portal mode needs a connected reader");
+        }
+    }
+
+    private void onPortalEvent(PortalTracker.PortalEvent event) {
+        pendingPortalEvents.add(event);
+        if (portalRefreshPosted.compareAndSet(false, true)) {
+            runOnUiThread(this::drainPortalEvents);
+        }
+    }
+
+    private void drainPortalEvents() {
+        portalRefreshPosted.set(false);
+        PortalTracker.PortalEvent event;
+        while ((event = pendingPortalEvents.poll()) != null) {
+            if (event.kind == PortalTracker.Kind.ENTERED) {
+                portalPresent++;
+                tagList.add(0, "IN  " + event.epc + " (RSSI: " + event.peakRssi + ")");
+            } else {
+                portalPresent--;
+                tagList.add(0, "OUT " + event.epc + " (" + event.dwellMillis() + " ms, " + event.reads + " reads)");
+            }
+        }
+        if (tagList.size() > MAX_DISPLAYED_TAGS) {
+            tagList.subList(MAX_DISPLAYED_TAGS, tagList.size()).clear();
+        }
+        if (tagAdapter != null) tagAdapter.notifyDataSetChanged();
+        if (scanResult != null) scanResult.setText("In field: " + portalPresent);
+    }
+
+    /**
+     * Creates the barcode-to-tag association engine, journaling pairs to app storage.
+     */
+    private AssociationEngine createAssociationEngine() {
+        AppendOnlyJournal journal = null;
+        try {
+            journal = new AppendOnlyJournal(new File(getFilesDir(), "associations.journal"), true);
+        } catch (IOException e) {
+            Log.e(TAG, "Error opening association journal, pairs will not be persisted", e);
+        }
+        return new AssociationEngine(ASSOCIATION_PRE_WINDOW_MS, ASSOCIATION_POST_WINDOW_MS, ASSOCIATION_PAIRED_HOLD_MS,
+                journal, (barcode, pair) -> runOnUiThread(() -> {
+                    if (scanResult == null) return;
+                    scanResult.setText(pair != null
+                            ? String.format("Scan Result : %s\nPaired EPC : %s (RSSI: %d)", barcode, pair.epc, pair.rssi)
+                            : String.format("Scan Result : %s\nNo tag to pair", barcode));
+                }));
     }
 
     /**
@@ -284,6 +693,72 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
             result = rfidHandler.Test2();
             Toast.makeText(this, result, Toast.LENGTH_SHORT).show();
             return true;
+        } else if (id == R.id.memory_read_mode) {
+            RFIDHandler.MemoryReadMode[] modes = RFIDHandler.MemoryReadMode.values();
+            RFIDHandler.MemoryReadMode next = modes[(rfidHandler.getMemoryReadMode().ordinal() + 1) % modes.length];
+            rfidHandler.setMemoryReadMode(next);
+            Toast.makeText(this, "Memory read mode: " + next + "\n" + rfidHandler.getReadRateReport(), Toast.LENGTH_LONG).show();
+            return true;
+        } else if (id == R.id.read_tids) {
+            readSessionTids();
+            return true;
+        } else if (id == R.id.session_store_mode) {
+            toggleSessionStoreMode();
+            return true;
+        } else if (id == R.id.record_events) {
+            toggleEventRecording();
+            return true;
+        } else if (id == R.id.replay_events) {
+            replayEvents();
+            return true;
+        } else if (id == R.id.dump_diagnostics) {
+            final File file = new File(getFilesDir(), "diagnostics.log");
+            backgroundExecutor.execute(() -> {
+                try {
+                    int records = DiagnosticLog.dump(file);
+                    sendToast(records + " records written to " + file.getPath());
+                } catch (IOException e) {
+                    Log.e(TAG, "Error dumping diagnostics log", e);
+                    sendToast("Error dumping diagnostics log: " + e.getMessage());
+                }
+            });
+            return true;
+        } else if (id == R.id.reader_telemetry) {
+            String report = rfidHandler.getTelemetryReport();
+            Log.d(TAG, "Reader telemetry:\n" + report);
+            Toast.makeText(this, report, Toast.LENGTH_LONG).show();
+            return true;
+        } else if (id == R.id.analytics_mode) {
+            toggleAnalyticsMode();
+            return true;
+        } else if (id == R.id.sort_tags) {
+            cycleTagListOrder();
+            return true;
+        } else if (id == R.id.upload_session) {
+            backgroundExecutor.execute(this::uploadSession);
+            return true;
+        } else if (id == R.id.count_round) {
+            startCountRound();
+            return true;
+        } else if (id == R.id.trigger_mode) {
+            RFIDHandler.TriggerMode next = rfidHandler.getTriggerMode() == RFIDHandler.TriggerMode.HOST
+                    ? RFIDHandler.TriggerMode.READER : RFIDHandler.TriggerMode.HOST;
+            backgroundExecutor.execute(() -> {
+                rfidHandler.setTriggerMode(next);
+                sendToast("Trigger mode: " + next + "\n" + rfidHandler.getTriggerLatencyReport());
+            });
+            return true;
+        } else if (id == R.id.all_readers) {
+            backgroundExecutor.execute(() -> sendToast(rfidHandler.connectAdditionalReaders()));
+            return true;
+        } else if (id == R.id.portal_mode) {
+            togglePortalMode();
+            return true;
+        } else if (id == R.id.startup_trace) {
+            String trace = StartupTrace.dump();
+            Log.d(TAG, "Startup trace:\n" + trace);
+            Toast.makeText(this, trace, Toast.LENGTH_LONG).show();
+            return true;
         } else if (id == R.id.Default) {
             result = rfidHandler.Defaults();
             Toast.makeText(this, result, Toast.LENGTH_SHORT).show();
@@ -296,19 +771,34 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
     protected void onPause() {
         super.onPause();
         rfidHandler.onPause();
+        // The process may be killed while in the background
+        backgroundExecutor.execute(tagStore::flush);
     }
 
     @Override
     protected void onPostResume() {
         super.onPostResume();
-        rfidHandler.onResume();
+        // The first connect is started by runDeferredInit once the UI is up
+        if (deferredInitDone) rfidHandler.onResume();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        replayExecutor.shutdownNow();
         rfidHandler.onDestroy();
-        unregisterReceiver(dataWedgeReceiver);
+        // Unsent upload chunks stay in the outbox for the next run
+        backgroundExecutor.execute(() -> {
+            if (uploadQueue != null) uploadQueue.shutdown();
+            if (uploadStandIn != null) uploadStandIn.stop();
+        });
+        backgroundExecutor.shutdown();
+        AssociationEngine association = associationEngine;
+        if (association != null) association.shutdown();
+        if (dataWedgeHandler != null) dataWedgeHandler.onDestroy();
+        tagStore.close();
+        Log.d(TAG, "Barcode ingest: " + barcodeIngest.report());
+        barcodeIngest.shutdown();
     }
 
     /**
@@ -344,14 +834,13 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
         rfidHandler.performInventory();
     }
 
+    /**
+     * Starts a new session. The reset goes through the tag bus as a marker, so each consumer
+     * drops its session state between the batches published before and after this call.
+     */
     private void clearTagData() {
-        runOnUiThread(() -> {
-            tagSet.clear();
-            tagList.clear();
-            if (tagAdapter != null) {
-                tagAdapter.notifyDataSetChanged();
-            }
-        });
+        tidSession++;
+        rfidHandler.getTagBus().publishSessionStart();
     }
 
     /**
@@ -376,59 +865,260 @@ public class MainActivity extends AppCompatActivity implements RFIDHandler.Respo
      */
     public void StopInventory(View view) {
         toggleInventoryButtons(false);
+        if (rfidHandler.isPortalMode()) {
+            rfidHandler.stopPortalMode();
+            return;
+        }
         rfidHandler.stopInventory();
     }
 
-    @SuppressLint("SetTextI18n")
-    @Override
-    public void handleTagdata(TagData[] tagData) {
-        if (tagData == null || tagData.length == 0) return;
-
-        final ArrayList<String> newTags = new ArrayList<>();
-        for (TagData tag : tagData) {
-            if (tag == null) continue;
-            String tagId = tag.getTagID();
-            if (tagId != null && !tagSet.contains(tagId)) {
-                tagSet.add(tagId);
-                newTags.add(tagId + " (RSSI: " + tag.getPeakRSSI() + ")");
-            }
+    /**
+     * Splits read handling into bus consumers: the session records reads and marks the first
+     * read of each tag, and the display shows those once the session is done with a batch.
+     * The ranking also runs after the session, so it can be rebuilt from the store between
+     * two batches; the association follows the stream on its own.
+     */
+    private void subscribeTagConsumers() {
+        TagEventBus bus = rfidHandler.getTagBus();
+        TagEventBus.Subscription session = bus.subscribe("session", this::recordTags);
+        bus.subscribe("display", this::displayTags, session);
+        bus.subscribe("ranking", this::rankTags, session);
+        bus.subscribe("association", this::associateTags);
+    }
+
+    /** Records reads in the session store, or the sketches in analytics mode, and sets {@link TagBatch#fresh}. */
+    private void recordTags(TagBatch batch) {
+        final TagSessionStore store = tagStore;
+        // The store's own lock, so a snapshot of it falls between two batches
+        synchronized (store) {
+            recordBatch(batch, store);
+            recordedBatches++;
         }
-        
-        if (!newTags.isEmpty()) {
-            final int totalUniqueTags = tagSet.size();
+    }
+
+    private void recordBatch(TagBatch batch, TagSessionStore store) {
+        if (batch.sessionStart) {
+            store.clear();
+            TagSketch current = sketch;
+            if (current != null) current.clear();
+            expectedTagsSeen = 0;
+            return;
+        }
+        final int size = batch.size;
+        final String[] epcs = batch.epcs;
+        final short[] rssi = batch.rssi;
+        final boolean[] fresh = batch.fresh;
+        final long[] seen = batch.seenTimes;
+        final TagSketch analytics = sketch;
+        if (analytics != null) {
+            for (int i = 0; i < size; i++) analytics.onRead(epcs[i], seen[i]);
+            return;
+        }
+        final ManifestIndex expected = manifest;
+        for (int i = 0; i < size; i++) {
+            fresh[i] = store.record(epcs[i], rssi[i], seen[i]);
+            if (fresh[i] && expected != null && expected.contains(epcs[i])) expectedTagsSeen++;
+        }
+    }
+
+    /** Adds the tags new to the session to the list. Runs after {@link #recordTags}. */
+    @SuppressLint("SetTextI18n")
+    private void displayTags(TagBatch batch) {
+        if (batch.sessionStart) {
             runOnUiThread(() -> {
-                // Ensure list modification and notifyDataSetChanged happen together on UI thread
-                tagList.addAll(0, newTags); 
+                tagList.clear();
                 if (tagAdapter != null) {
                     tagAdapter.notifyDataSetChanged();
                 }
-                
-                // Update status with unique tag count
-                if (statusTextViewRFID != null && statusTextViewRFID.getText() != null) {
-                    String statusStr = statusTextViewRFID.getText().toString();
-                    if (statusStr.contains("Connected")) {
-                        String[] parts = statusStr.split("\n");
-                        String currentStatus = parts.length > 0 ? parts[0] : statusStr;
-                        statusTextViewRFID.setText(currentStatus + "\nUnique Tags: " + totalUniqueTags);
-                    }
-                }
             });
+            return;
+        }
+        if (batch.size == 0) return;
+        if (sketch != null) {
+            postSketchRefresh();
+            return;
+        }
+        // In portal mode the list shows ENTERED / DEPARTED events and ranked lists are redrawn whole
+        if (rfidHandler.isPortalMode() || tagListOrder != null) return;
+        // Only new tags allocate: a batch of tags already in the session leaves no garbage
+        ArrayList<String> newTags = null;
+        for (int i = 0; i < batch.size; i++) {
+            if (!batch.fresh[i]) continue;
+            if (newTags == null) newTags = new ArrayList<>();
+            newTags.add(batch.epcs[i] + " (RSSI: " + batch.rssi[i] + ")");
+        }
+        if (newTags == null) return;
+        final List<String> added = newTags;
+        final ManifestIndex expected = manifest;
+        final TagSessionStore store = tagStore;
+        final long totalUniqueTags = store.uniqueCount();
+        final String expectedSummary = expected != null
+                ? "\nExpected: " + expectedTagsSeen + " / " + expected.size() : "";
+        final String storeSummary = store.isBounded()
+                ? "\nHeld: " + store.size() + ", Evicted: " + store.evictedCount() : "";
+        runOnUiThread(() -> {
+            // Ensure list modification and notifyDataSetChanged happen together on UI thread
+            tagList.addAll(0, added);
+            if (store.isBounded() && tagList.size() > MAX_DISPLAYED_TAGS) {
+                tagList.subList(MAX_DISPLAYED_TAGS, tagList.size()).clear();
+            }
+            if (tagAdapter != null) {
+                tagAdapter.notifyDataSetChanged();
+            }
+            
+            // Update status with unique tag count
+            if (statusTextViewRFID != null && statusTextViewRFID.getText() != null) {
+                String statusStr = statusTextViewRFID.getText().toString();
+                if (statusStr.contains("Connected")) {
+                    String[] parts = statusStr.split("\n");
+                    String currentStatus = parts.length > 0 ? parts[0] : statusStr;
+                    statusTextViewRFID.setText(currentStatus + "\nUnique Tags: " + totalUniqueTags + expectedSummary + storeSummary);
+                }
+            }
+        });
+    }
+
+    /** Runs after {@link #recordTags}, so every batch it takes is already in the session store. */
+    private void rankTags(TagBatch batch) {
+        long index = ++rankedBatches;
+        if (!batch.sessionStart && (tagListOrder == null || sketch != null || batch.size == 0)) return;
+        synchronized (ranking) {
+            // Already in a ranking rebuilt from the store
+            if (index <= rankingCut) return;
+            if (rankingBacklog != null) {
+                rankingBacklog.add(new RankedBatch(index, batch));
+                return;
+            }
+            if (batch.sessionStart) {
+                ranking.clear();
+                return;
+            }
+            for (int i = 0; i < batch.size; i++) ranking.onRead(batch.epcs[i], batch.rssi[i]);
+        }
+        postRankedRefresh();
+    }
+
+    private void associateTags(TagBatch batch) {
+        final AssociationEngine association = associationEngine;
+        if (association == null) return;
+        if (batch.sessionStart) {
+            association.clear();
+            return;
+        }
+        if (sketch != null) return;
+        for (int i = 0; i < batch.size; i++) association.onTagRead(batch.epcs[i], batch.rssi[i], batch.seenTimes[i]);
+    }
+
+    @Override
+    public void handleMemoryData(TagData[] tagData, MemoryReadBatch memory) {
+        int session = tidSession;
+        if (session != tidSetSession) {
+            tidSet.clear();
+            tidSetSession = session;
+        }
+        int before = tidSet.size();
+        for (int i = 0; i < memory.size(); i++) {
+            if (memory.bank(i) == MemoryReadBatch.BANK_TID) tidSet.add(memory.hash(i));
+        }
+        final int uniqueTids = tidSet.size();
+        memory.recycle();
+        if (uniqueTids != before) {
+            Log.d(TAG, "Unique TIDs: " + uniqueTids);
+        }
+    }
+
+    /**
+     * Open-addressing set of TID hashes, so counting a TID allocates nothing. Two TIDs share a
+     * 64-bit hash with negligible probability at session sizes.
+     */
+    private static final class TidSet {
+        private static final int INITIAL_CAPACITY = 1024;
+        /** 0 marks an empty slot, so a hash of 0 is stored as 1. */
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int size;
+
+        boolean add(long hash) {
+            long key = hash != 0 ? hash : 1;
+            if (size * 2 >= keys.length) grow();
+            int mask = keys.length - 1;
+            for (int slot = (int) (key ^ (key >>> 32)) & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return false;
+                if (keys[slot] == 0) {
+                    keys[slot] = key;
+                    size++;
+                    return true;
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            if (keys.length > INITIAL_CAPACITY) {
+                keys = new long[INITIAL_CAPACITY];
+            } else {
+                Arrays.fill(keys, 0);
+            }
+            size = 0;
+        }
+
+        private void grow() {
+            long[] old = keys;
+            keys = new long[old.length * 2];
+            size = 0;
+            int mask = keys.length - 1;
+            for (long key : old) {
+                if (key == 0) continue;
+                int slot = (int) (key ^ (key >>> 32)) & mask;
+                while (keys[slot] != 0) slot = (slot + 1) & mask;
+                keys[slot] = key;
+                size++;
+            }
         }
     }
 
     @Override
     public void handleTriggerPress(boolean pressed) {
         toggleInventoryButtons(pressed);
-        if (pressed) {
-            clearTagData();
-            rfidHandler.performInventory();
-        } else {
-            rfidHandler.stopInventory();
+        if (pressed) clearTagData();
+    }
+
+    /**
+     * Entry point for raw scans from the scanner SDK and DataWedge.
+     * @param data Scan bytes; ownership passes to the ingest stage.
+     */
+    public void ingestBarcode(BarcodeIngest.Source source, BarcodeIngest.Symbology symbology, byte[] data) {
+        barcodeIngest.submit(source, symbology, data);
+    }
+
+    /**
+     * Pairs and shows a decoded scan. Codes carrying a GTIN are paired under the GTIN, so an
+     * item pairs the same way whether its UPC-A, EAN-13 or GS1-128 label was scanned; the
+     * other GS1 Application Identifiers (lot, expiry, serial...) are shown with it.
+     */
+    private void onBarcode(BarcodeIngest.BarcodeEvent event) {
+        String key = event.gtin != null ? event.gtin : event.text;
+        AssociationEngine association = associationEngine;
+        if (association != null) association.onBarcode(key, System.currentTimeMillis());
+        StringBuilder text = new StringBuilder("Scan Result : ")
+                .append(event.text.replace((char) BarcodeDecoder.GS, '|'));
+        if (event.gtin != null) text.append("\nGTIN : ").append(event.gtin);
+        for (Map.Entry<String, String> ai : event.applicationIdentifiers.entrySet()) {
+            if (!"01".equals(ai.getKey())) text.append("\n(").append(ai.getKey()).append(") ").append(ai.getValue());
         }
+        if (!event.valid) text.append("\nCheck digit / GS1 structure invalid");
+        final String shown = text.toString();
+        runOnUiThread(() -> {
+            if (scanResult != null) scanResult.setText(shown);
+        });
     }
 
     @Override
     public void barcodeData(String val) {
+        AssociationEngine association = associationEngine;
+        if (association != null) association.onBarcode(val, System.currentTimeMillis());
         runOnUiThread(() -> {
             if (scanResult != null) {
                 scanResult.setText(String.format("Scan Result : %s", val != null ? val : ""));
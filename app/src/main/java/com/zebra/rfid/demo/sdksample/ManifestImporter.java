@@ -0,0 +1,281 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Streams an expected-inventory manifest (CSV or JSON) straight into packed binary EPCs
+ * and writes the sorted, de-duplicated result as a {@link ManifestIndex} file.
+ * <p>
+ * CSV input is tokenized byte by byte so no String is created per EPC. The EPC column is
+ * the one headed {@code epc} when a header row is present, otherwise the first column.
+ * JSON input is walked with Gson's streaming {@link JsonReader}; string array elements and
+ * fields named {@code epc} are taken as EPCs.
+ */
+final class ManifestImporter {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final String EPC_COLUMN = "epc";
+
+    /** Packed EPCs as [length][bytes...] runs. */
+    private byte[] data = new byte[64 * 1024];
+    private int dataSize;
+    /** Start offset of every packed EPC in {@link #data}. */
+    private int[] offsets = new int[4096];
+    private int count;
+    private int maxLength;
+    private int rejected;
+
+    /** CSV tokenizer state. */
+    private final byte[] scratch = new byte[EpcCodec.MAX_EPC_BYTES];
+    private int epcColumn;
+    private int column;
+    private int nibbles;
+    private boolean fieldValid = true;
+
+    private ManifestImporter() {
+    }
+
+    /**
+     * Parses {@code source} and writes its index to {@code indexFile}, replacing any previous index.
+     * @return The number of EPC rows that could not be parsed.
+     */
+    static int importTo(File source, File indexFile) throws IOException {
+        // Stamp the index with the source state seen before parsing so a concurrent edit reads as stale
+        long sourceLength = source.length();
+        long sourceModified = source.lastModified();
+        ManifestImporter importer = new ManifestImporter();
+        if (source.getName().toLowerCase(Locale.US).endsWith(".json")) {
+            importer.parseJson(source);
+        } else {
+            importer.parseCsv(source);
+        }
+        importer.writeIndex(indexFile, sourceLength, sourceModified);
+        return importer.rejected;
+    }
+
+    private void parseCsv(File source) throws IOException {
+        StringBuilder firstLine = new StringBuilder();
+        boolean inFirstLine = true;
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(source)) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    int c = buffer[i] & 0xFF;
+                    if (!inFirstLine) {
+                        feedCsv(c);
+                    } else if (c != '\n') {
+                        firstLine.append((char) c);
+                    } else {
+                        inFirstLine = false;
+                        int headerColumn = findColumn(firstLine, EPC_COLUMN);
+                        if (headerColumn >= 0) {
+                            epcColumn = headerColumn;
+                        } else {
+                            // No header row: the first line is data
+                            for (int j = 0; j < firstLine.length(); j++) feedCsv(firstLine.charAt(j));
+                            feedCsv('\n');
+                        }
+                    }
+                }
+            }
+        }
+        if (inFirstLine) {
+            for (int j = 0; j < firstLine.length(); j++) feedCsv(firstLine.charAt(j));
+        }
+        // Terminate a final line that has no trailing newline
+        feedCsv('\n');
+    }
+
+    /** Advances the CSV tokenizer by one byte, decoding EPC column nibbles in place. */
+    private void feedCsv(int c) {
+        if (c == '\n' || c == ',' || c == ';' || c == '\t') {
+            if (column == epcColumn) acceptField();
+            column = (c == '\n') ? 0 : column + 1;
+            nibbles = 0;
+            fieldValid = true;
+            return;
+        }
+        if (column != epcColumn) return;
+        int v = EpcCodec.hexValue(c);
+        if (v >= 0) {
+            if (nibbles / 2 >= scratch.length) {
+                fieldValid = false;
+            } else if ((nibbles & 1) == 0) {
+                scratch[nibbles++ / 2] = (byte) (v << 4);
+            } else {
+                scratch[nibbles++ / 2] |= (byte) v;
+            }
+        } else if (c != '"' && c != ' ' && c != '\r') {
+            fieldValid = false;
+        }
+    }
+
+    private void acceptField() {
+        if (nibbles == 0 && fieldValid) return;
+        if (!fieldValid || (nibbles & 1) != 0) {
+            rejected++;
+            return;
+        }
+        add(scratch, nibbles / 2);
+    }
+
+    private static int findColumn(CharSequence header, String name) {
+        int column = 0;
+        int start = 0;
+        for (int i = 0; i <= header.length(); i++) {
+            char c = i < header.length() ? header.charAt(i) : ',';
+            if (c == ',' || c == ';' || c == '\t') {
+                String cell = header.subSequence(start, i).toString().replace("\"", "").trim();
+                if (cell.equalsIgnoreCase(name)) return column;
+                column++;
+                start = i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private void parseJson(File source) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(
+                new BufferedInputStream(new FileInputStream(source), READ_BUFFER_SIZE), StandardCharsets.UTF_8))) {
+            reader.setLenient(true);
+            walkJson(reader, false);
+        }
+    }
+
+    private void walkJson(JsonReader reader, boolean isEpcValue) throws IOException {
+        JsonToken token = reader.peek();
+        switch (token) {
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    walkJson(reader, true);
+                }
+                reader.endArray();
+                break;
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    boolean epcField = EPC_COLUMN.equalsIgnoreCase(reader.nextName());
+                    walkJson(reader, epcField);
+                }
+                reader.endObject();
+                break;
+            case STRING:
+                if (isEpcValue) {
+                    int length = EpcCodec.hexToBytes(reader.nextString().trim(), scratch, 0);
+                    if (length > 0) {
+                        add(scratch, length);
+                    } else {
+                        rejected++;
+                    }
+                } else {
+                    reader.skipValue();
+                }
+                break;
+            default:
+                reader.skipValue();
+                break;
+        }
+    }
+
+    private void add(byte[] epc, int length) {
+        if (dataSize + length + 1 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataSize + length + 1));
+        }
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[count++] = dataSize;
+        data[dataSize++] = (byte) length;
+        System.arraycopy(epc, 0, data, dataSize, length);
+        dataSize += length;
+        if (length > maxLength) maxLength = length;
+    }
+
+    private void writeIndex(File indexFile, long sourceLength, long sourceModified) throws IOException {
+        sortOffsets();
+        int width = maxLength + 1;
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        int unique = 0;
+        try (FileOutputStream out = new FileOutputStream(tmp); FileChannel channel = out.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            buffer.position(ManifestIndex.HEADER_SIZE);
+            int previous = -1;
+            for (int i = 0; i < count; i++) {
+                int offset = offsets[i];
+                if (previous >= 0 && compare(previous, offset) == 0) continue;
+                previous = offset;
+                if (buffer.remaining() < width) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                    buffer.clear();
+                }
+                int length = data[offset] & 0xFF;
+                buffer.put(data, offset, length + 1);
+                for (int pad = length + 1; pad < width; pad++) buffer.put((byte) 0);
+                unique++;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+
+            ByteBuffer header = ByteBuffer.allocate(ManifestIndex.HEADER_SIZE);
+            ManifestIndex.writeHeader(header, sourceLength, sourceModified, width, unique);
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        if (!tmp.renameTo(indexFile)) {
+            throw new IOException("Unable to replace " + indexFile);
+        }
+    }
+
+    /** Bottom-up merge sort of {@link #offsets} by EPC, avoiding boxed comparators. */
+    private void sortOffsets() {
+        int[] src = offsets;
+        int[] dst = new int[count];
+        for (int width = 1; width < count; width *= 2) {
+            for (int lo = 0; lo < count; lo += 2 * width) {
+                int mid = Math.min(lo + width, count);
+                int hi = Math.min(lo + 2 * width, count);
+                int i = lo;
+                int j = mid;
+                int k = lo;
+                while (i < mid && j < hi) {
+                    dst[k++] = compare(src[i], src[j]) <= 0 ? src[i++] : src[j++];
+                }
+                while (i < mid) dst[k++] = src[i++];
+                while (j < hi) dst[k++] = src[j++];
+            }
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        offsets = src;
+    }
+
+    /** Orders EPCs by length, then by unsigned byte value, matching {@link ManifestIndex}. */
+    private int compare(int a, int b) {
+        int lengthA = data[a] & 0xFF;
+        int lengthB = data[b] & 0xFF;
+        if (lengthA != lengthB) return lengthA - lengthB;
+        for (int i = 1; i <= lengthA; i++) {
+            int diff = (data[a + i] & 0xFF) - (data[b + i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,165 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only, memory-mapped set of expected EPCs built from a manifest file.
+ * <p>
+ * The index lives next to its source as {@code <source>.idx} and holds fixed-width records
+ * ([length][epc bytes, zero padded]) sorted by length and then by unsigned byte value, so
+ * lookups are a binary search over the mapping with no per-EPC objects on the heap.
+ * The header records the size and modification time of the source it was built from;
+ * a mismatch marks the index as stale and it is rebuilt on open.
+ */
+final class ManifestIndex {
+    private static final String TAG = "ManifestIndex";
+    static final String INDEX_SUFFIX = ".idx";
+    static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x45504358; // "EPCX"
+    private static final int VERSION = 1;
+
+    private final MappedByteBuffer records;
+    private final int recordWidth;
+    private final int count;
+    private final boolean rebuilt;
+    private final long openMillis;
+
+    private ManifestIndex(MappedByteBuffer records, int recordWidth, int count, boolean rebuilt, long openMillis) {
+        this.records = records;
+        this.recordWidth = recordWidth;
+        this.count = count;
+        this.rebuilt = rebuilt;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Opens the index for {@code source}, (re)building it first if it is missing or stale.
+     * Must not be called on the UI thread.
+     */
+    static ManifestIndex open(File source) throws IOException {
+        long start = System.currentTimeMillis();
+        File indexFile = new File(source.getPath() + INDEX_SUFFIX);
+        boolean rebuilt = false;
+        if (!isCurrent(source, indexFile)) {
+            int rejected = ManifestImporter.importTo(source, indexFile);
+            rebuilt = true;
+            if (rejected > 0) Log.w(TAG, "Skipped " + rejected + " malformed EPC rows in " + source.getName());
+        }
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "r"); FileChannel channel = file.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int width = buffer.getInt(24);
+            int count = buffer.getInt(28);
+            return new ManifestIndex(buffer, width, count, rebuilt, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Returns true if {@code indexFile} exists and was built from the current contents of {@code source}.
+     */
+    static boolean isCurrent(File source, File indexFile) {
+        if (!indexFile.isFile() || indexFile.length() < HEADER_SIZE) return false;
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "r")) {
+            if (file.readInt() != MAGIC || file.readInt() != VERSION) return false;
+            long sourceLength = file.readLong();
+            long sourceModified = file.readLong();
+            int width = file.readInt();
+            int count = file.readInt();
+            return sourceLength == source.length()
+                    && sourceModified == source.lastModified()
+                    && indexFile.length() == HEADER_SIZE + (long) width * count;
+        } catch (IOException e) {
+            Log.e(TAG, "Unreadable manifest index " + indexFile, e);
+            return false;
+        }
+    }
+
+    static void writeHeader(ByteBuffer header, long sourceLength, long sourceModified, int recordWidth, int count) {
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(sourceLength);
+        header.putLong(sourceModified);
+        header.putInt(recordWidth);
+        header.putInt(count);
+    }
+
+    /** Number of unique EPCs in the manifest. */
+    int size() {
+        return count;
+    }
+
+    /** True if the index had to be built or rebuilt from the source on this open. */
+    boolean wasRebuilt() {
+        return rebuilt;
+    }
+
+    /** Wall time spent in {@link #open(File)}, including any rebuild. */
+    long getOpenMillis() {
+        return openMillis;
+    }
+
+    /**
+     * Looks up a hex EPC as reported by {@code TagData.getTagID()} without converting it
+     * to bytes or allocating.
+     */
+    boolean contains(CharSequence hexEpc) {
+        if (hexEpc == null) return false;
+        int hexLength = hexEpc.length();
+        if (hexLength == 0 || (hexLength & 1) != 0 || hexLength / 2 >= recordWidth) return false;
+        for (int i = 0; i < hexLength; i++) {
+            if (EpcCodec.hexValue(hexEpc.charAt(i)) < 0) return false;
+        }
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareHex(mid, hexEpc, hexLength / 2);
+            if (cmp == 0) return true;
+            if (cmp < 0) lo = mid + 1; else hi = mid - 1;
+        }
+        return false;
+    }
+
+    /** Looks up a binary EPC. */
+    boolean contains(byte[] epc, int offset, int length) {
+        if (length <= 0 || length >= recordWidth) return false;
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareBytes(mid, epc, offset, length);
+            if (cmp == 0) return true;
+            if (cmp < 0) lo = mid + 1; else hi = mid - 1;
+        }
+        return false;
+    }
+
+    private int compareHex(int record, CharSequence hex, int length) {
+        int base = HEADER_SIZE + record * recordWidth;
+        int recordLength = records.get(base) & 0xFF;
+        if (recordLength != length) return recordLength - length;
+        for (int i = 0; i < length; i++) {
+            int b = (EpcCodec.hexValue(hex.charAt(i * 2)) << 4) | EpcCodec.hexValue(hex.charAt(i * 2 + 1));
+            int diff = (records.get(base + 1 + i) & 0xFF) - b;
+            if (diff != 0) return diff;
+        }
+        return 0;
+    }
+
+    private int compareBytes(int record, byte[] epc, int offset, int length) {
+        int base = HEADER_SIZE + record * recordWidth;
+        int recordLength = records.get(base) & 0xFF;
+        if (recordLength != length) return recordLength - length;
+        for (int i = 0; i < length; i++) {
+            int diff = (records.get(base + 1 + i) & 0xFF) - (epc[offset + i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return 0;
+    }
+}
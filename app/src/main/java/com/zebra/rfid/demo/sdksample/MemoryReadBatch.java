@@ -0,0 +1,157 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.ACCESS_OPERATION_CODE;
+import com.zebra.rfid.api3.ACCESS_OPERATION_STATUS;
+import com.zebra.rfid.api3.MEMORY_BANK;
+import com.zebra.rfid.api3.TagData;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * TID / user memory read results for one batch of {@link TagData}, decoded from the SDK's hex
+ * strings into a single direct {@link ByteBuffer}.
+ * <p>
+ * Entries are addressed by index; {@link #tagIndex(int)} points back into the TagData batch
+ * the reads were decoded from. Batches come from a small pool: call {@link #recycle()} once
+ * the consumer is done so the direct buffer is reused instead of reallocated.
+ */
+final class MemoryReadBatch {
+    /** Bank codes stored per entry. */
+    static final byte BANK_TID = 2;
+    static final byte BANK_USER = 3;
+
+    private static final int INITIAL_ENTRIES = 128;
+    private static final int INITIAL_BYTES = 8 * 1024;
+    private static final int MAX_POOLED = 4;
+    private static final ConcurrentLinkedQueue<MemoryReadBatch> POOL = new ConcurrentLinkedQueue<>();
+
+    private ByteBuffer data = ByteBuffer.allocateDirect(INITIAL_BYTES);
+    private int[] tagIndex = new int[INITIAL_ENTRIES];
+    private byte[] bank = new byte[INITIAL_ENTRIES];
+    private int[] offset = new int[INITIAL_ENTRIES];
+    private short[] length = new short[INITIAL_ENTRIES];
+    private int count;
+
+    private MemoryReadBatch() {
+    }
+
+    /**
+     * Decodes the successful TID and user memory reads in {@code tags}.
+     * @return A pooled batch, or null if the tags carry no memory reads.
+     */
+    static MemoryReadBatch decode(TagData[] tags) {
+        MemoryReadBatch batch = null;
+        for (int i = 0; i < tags.length; i++) {
+            TagData tag = tags[i];
+            if (tag == null || tag.getOpCode() != ACCESS_OPERATION_CODE.ACCESS_OPERATION_READ
+                    || tag.getOpStatus() != ACCESS_OPERATION_STATUS.ACCESS_SUCCESS) {
+                continue;
+            }
+            byte code = bankCode(tag.getMemoryBank());
+            String hex = tag.getMemoryBankData();
+            if (code == 0 || hex == null || hex.isEmpty()) continue;
+            if (batch == null) batch = obtain();
+            batch.add(i, code, hex);
+        }
+        return batch;
+    }
+
+    static byte bankCode(MEMORY_BANK memoryBank) {
+        if (memoryBank == MEMORY_BANK.MEMORY_BANK_TID) return BANK_TID;
+        if (memoryBank == MEMORY_BANK.MEMORY_BANK_USER) return BANK_USER;
+        return 0;
+    }
+
+    private static MemoryReadBatch obtain() {
+        MemoryReadBatch batch = POOL.poll();
+        return batch != null ? batch : new MemoryReadBatch();
+    }
+
+    /** Returns this batch to the pool. It must not be used afterwards. */
+    void recycle() {
+        count = 0;
+        data.clear();
+        if (POOL.size() < MAX_POOLED) POOL.offer(this);
+    }
+
+    private void add(int index, byte code, CharSequence hex) {
+        int bytes = hex.length() / 2;
+        if (count == tagIndex.length) growEntries();
+        if (data.remaining() < bytes) growData(bytes);
+        int start = data.position();
+        for (int i = 0; i < bytes; i++) {
+            int hi = EpcCodec.hexValue(hex.charAt(i * 2));
+            int lo = EpcCodec.hexValue(hex.charAt(i * 2 + 1));
+            if (hi < 0 || lo < 0) {
+                data.position(start);
+                return;
+            }
+            data.put((byte) ((hi << 4) | lo));
+        }
+        tagIndex[count] = index;
+        bank[count] = code;
+        offset[count] = start;
+        length[count] = (short) bytes;
+        count++;
+    }
+
+    private void growEntries() {
+        int size = tagIndex.length * 2;
+        tagIndex = Arrays.copyOf(tagIndex, size);
+        bank = Arrays.copyOf(bank, size);
+        offset = Arrays.copyOf(offset, size);
+        length = Arrays.copyOf(length, size);
+    }
+
+    private void growData(int needed) {
+        ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(data.capacity() * 2, data.position() + needed));
+        data.flip();
+        bigger.put(data);
+        data = bigger;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /** Index into the TagData batch of the tag entry {@code i} was read from. */
+    int tagIndex(int i) {
+        return tagIndex[i];
+    }
+
+    /** {@link #BANK_TID} or {@link #BANK_USER}. */
+    byte bank(int i) {
+        return bank[i];
+    }
+
+    int length(int i) {
+        return length[i];
+    }
+
+    /** Copies the bytes of entry {@code i} into {@code dst} and returns the number copied. */
+    int copy(int i, byte[] dst, int dstOffset) {
+        int n = Math.min(length[i], dst.length - dstOffset);
+        for (int b = 0; b < n; b++) {
+            dst[dstOffset + b] = data.get(offset[i] + b);
+        }
+        return n;
+    }
+
+    /** 64-bit FNV-1a hash of the bytes of entry {@code i}, e.g. to count distinct TIDs without copying them. */
+    long hash(int i) {
+        long hash = 0xcbf29ce484222325L;
+        for (int b = offset[i], end = offset[i] + length[i]; b < end; b++) {
+            hash = (hash ^ (data.get(b) & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /** Read-only view of the bytes of entry {@code i}. */
+    ByteBuffer slice(int i) {
+        ByteBuffer view = data.duplicate();
+        view.limit(offset[i] + length[i]).position(offset[i]);
+        return view.slice().asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,207 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks which tags are in the field of a portal and publishes ENTERED / DEPARTED events.
+ * <p>
+ * A tag departs when it has not been read for {@code departMillis}. Departure deadlines live
+ * in a hashed timing wheel of {@code tickMillis} slots. A read only refreshes the tag's
+ * deadline in place; the tag is moved to the slot of its new deadline when the wheel reaches
+ * its old slot. Each tick therefore visits one slot, and each present tag is touched about
+ * once per departure window, which keeps ticks O(1) amortized per tag even with tens of
+ * thousands of tags in the field.
+ */
+class PortalTracker {
+    private static final String TAG = "PortalTracker";
+    private static final int WHEEL_SLOTS = 512;
+
+    enum Kind { ENTERED, DEPARTED }
+
+    static final class PortalEvent {
+        final Kind kind;
+        final String epc;
+        final long firstSeen;
+        final long lastSeen;
+        final int reads;
+        final short peakRssi;
+
+        PortalEvent(Kind kind, Node node) {
+            this.kind = kind;
+            this.epc = node.epc;
+            this.firstSeen = node.firstSeen;
+            this.lastSeen = node.lastSeen;
+            this.reads = node.reads;
+            this.peakRssi = node.peakRssi;
+        }
+
+        /** Time the tag spent in the field, up to its last read. */
+        long dwellMillis() {
+            return lastSeen - firstSeen;
+        }
+    }
+
+    /** Receives events on the reader thread (ENTERED) or the wheel thread (DEPARTED). */
+    interface Listener {
+        void onPortalEvent(PortalEvent event);
+    }
+
+    private static final class Node {
+        final String epc;
+        final long firstSeen;
+        long lastSeen;
+        long deadline;
+        int reads;
+        short peakRssi;
+        /** Next node in the same wheel slot. */
+        Node next;
+
+        Node(String epc, short rssi, long now) {
+            this.epc = epc;
+            this.firstSeen = now;
+            this.lastSeen = now;
+            this.reads = 1;
+            this.peakRssi = rssi;
+        }
+    }
+
+    private final long tickMillis;
+    private final long departMillis;
+    private final Node[] wheel = new Node[WHEEL_SLOTS];
+    private final HashMap<String, Node> present = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    /** Last tick processed, or -1 before the first read. */
+    private long currentTick = -1;
+    private ScheduledExecutorService ticker;
+
+    /**
+     * @param departMillis Time without reads after which a tag has departed.
+     * @param tickMillis Wheel resolution; departures are reported up to one tick late.
+     */
+    PortalTracker(long departMillis, long tickMillis) {
+        this.departMillis = departMillis;
+        this.tickMillis = Math.max(1, tickMillis);
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Starts advancing the wheel every tick against {@link SystemClock#elapsedRealtime()}. */
+    synchronized void start() {
+        if (ticker != null) return;
+        ticker = Executors.newSingleThreadScheduledExecutor();
+        ticker.scheduleAtFixedRate(() -> advance(SystemClock.elapsedRealtime()), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops the wheel and reports every tag still present as departed. */
+    void stop() {
+        List<PortalEvent> departed = new ArrayList<>();
+        synchronized (this) {
+            if (ticker != null) {
+                ticker.shutdownNow();
+                ticker = null;
+            }
+            for (Node node : present.values()) departed.add(new PortalEvent(Kind.DEPARTED, node));
+            present.clear();
+            Arrays.fill(wheel, null);
+            currentTick = -1;
+        }
+        dispatch(departed);
+    }
+
+    /** Records a read at {@code now} (milliseconds on the same clock passed to {@link #advance}). */
+    void onRead(String epc, short rssi, long now) {
+        PortalEvent entered = null;
+        synchronized (this) {
+            if (currentTick < 0) currentTick = now / tickMillis;
+            Node node = present.get(epc);
+            if (node == null) {
+                node = new Node(epc, rssi, now);
+                node.deadline = now + departMillis;
+                present.put(epc, node);
+                schedule(node, currentTick);
+                entered = new PortalEvent(Kind.ENTERED, node);
+            } else {
+                // Reads from the reader's clock are not strictly ordered
+                if (now > node.lastSeen) {
+                    node.lastSeen = now;
+                    node.deadline = now + departMillis;
+                }
+                node.reads++;
+                if (rssi > node.peakRssi) node.peakRssi = rssi;
+            }
+        }
+        if (entered != null) dispatch(entered);
+    }
+
+    /** Processes every tick up to {@code now}, publishing departures. */
+    void advance(long now) {
+        List<PortalEvent> departed = null;
+        synchronized (this) {
+            if (currentTick < 0) return;
+            long target = now / tickMillis;
+            // After a long pause every slot is visited once, which still finds every due tag.
+            long first = Math.max(currentTick + 1, target - WHEEL_SLOTS + 1);
+            for (long tick = first; tick <= target; tick++) {
+                int slot = (int) (tick % WHEEL_SLOTS);
+                Node node = wheel[slot];
+                wheel[slot] = null;
+                while (node != null) {
+                    Node next = node.next;
+                    if (node.deadline <= now) {
+                        present.remove(node.epc);
+                        if (departed == null) departed = new ArrayList<>();
+                        departed.add(new PortalEvent(Kind.DEPARTED, node));
+                    } else {
+                        schedule(node, tick);
+                    }
+                    node = next;
+                }
+            }
+            if (target > currentTick) currentTick = target;
+        }
+        if (departed != null) dispatch(departed);
+    }
+
+    /** Tags currently in the field. */
+    synchronized int presentCount() {
+        return present.size();
+    }
+
+    /** Links {@code node} into the slot of its deadline, never earlier than the tick after {@code afterTick}. */
+    private void schedule(Node node, long afterTick) {
+        long tick = Math.max(node.deadline / tickMillis, afterTick + 1);
+        int slot = (int) (tick % WHEEL_SLOTS);
+        node.next = wheel[slot];
+        wheel[slot] = node;
+    }
+
+    private void dispatch(PortalEvent event) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onPortalEvent(event);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Portal listener failed", e);
+            }
+        }
+    }
+
+    private void dispatch(List<PortalEvent> events) {
+        for (PortalEvent event : events) dispatch(event);
+    }
+}
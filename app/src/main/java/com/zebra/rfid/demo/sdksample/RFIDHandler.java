@@ -2,15 +2,19 @@ package com.zebra.rfid.demo.sdksample;
 
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
+import android.os.SystemClock;
 import android.widget.TextView;
 
+import com.zebra.rfid.api3.ACCESS_OPERATION_CODE;
+import com.zebra.rfid.api3.ALARM_LEVEL;
 import com.zebra.rfid.api3.Antennas;
 import com.zebra.rfid.api3.ENUM_TRANSPORT;
 import com.zebra.rfid.api3.HANDHELD_TRIGGER_EVENT_TYPE;
+import com.zebra.rfid.api3.IEvents;
 import com.zebra.rfid.api3.INVENTORY_STATE;
 import com.zebra.rfid.api3.IRFIDLogger;
 import com.zebra.rfid.api3.InvalidUsageException;
+import com.zebra.rfid.api3.MEMORY_BANK;
 import com.zebra.rfid.api3.OperationFailureException;
 import com.zebra.rfid.api3.RFIDReader;
 import com.zebra.rfid.api3.ReaderDevice;
@@ -20,13 +24,22 @@ import com.zebra.rfid.api3.RfidReadEvents;
 import com.zebra.rfid.api3.RfidStatusEvents;
 import com.zebra.rfid.api3.SESSION;
 import com.zebra.rfid.api3.SL_FLAG;
+import com.zebra.rfid.api3.START_TRIGGER_TYPE;
 import com.zebra.rfid.api3.STATUS_EVENT_TYPE;
+import com.zebra.rfid.api3.STOP_TRIGGER_TYPE;
+import com.zebra.rfid.api3.TagAccess;
 import com.zebra.rfid.api3.TagData;
+import com.zebra.rfid.api3.TriggerInfo;
 import com.zebra.scannercontrol.DCSSDKDefs;
 import com.zebra.scannercontrol.DCSScannerInfo;
 import com.zebra.scannercontrol.SDKHandler;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -68,21 +81,23 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
         }
     }
 
-    // Helper for establishing scanner sessions
-    private void establishScannerSessions() {
-        if (reader != null && reader.isConnected()) {
-            String hostName = reader.getHostName();
+    // Helper for establishing scanner sessions with the scanner of the connected reader
+    private boolean establishScannerSessions(SDKHandler handler, String hostName) {
+        boolean established = false;
+        if (hostName != null) {
             for (DCSScannerInfo device : scannerList) {
-                if (device != null && device.getScannerName() != null && hostName != null && device.getScannerName().contains(hostName)) {
+                if (device != null && device.getScannerName() != null && device.getScannerName().contains(hostName)) {
                     try {
-                        sdkHandler.dcssdkEstablishCommunicationSession(device.getScannerID());
+                        handler.dcssdkEstablishCommunicationSession(device.getScannerID());
                         scannerID = device.getScannerID();
+                        established = true;
                     } catch (Exception e) {
-                        Log.e(TAG, "Error establishing scanner session", e);
+                        DiagnosticLog.e(TAG, "Error establishing scanner session", e);
                     }
                 }
             }
         }
+        return established;
     }
 
     private static final String TAG = "RFID_SAMPLE";
@@ -98,15 +113,54 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
     private static final String ERROR_DURING_DISPOSE = "Error during dispose";
     private static final String CONNECTED_PREFIX = "Connected: ";
     private static final String DISCONNECTED = "Disconnected";
+    /** Words read for TID serialization (96-bit TID). */
+    static final int TID_WORDS = 6;
+    /** Words of user memory read in {@link MemoryReadMode#TID_AND_USER}. */
+    private static final int USER_WORDS = 8;
+
+    /** Portal mode: a tag departs after this long without a read; departures are checked every tick. */
+    private static final long PORTAL_DEPART_MS = 2000;
+    private static final long PORTAL_TICK_MS = 50;
+
+    /** Tags fetched per read event, and per fetch while draining after a buffer warning. */
+    private static final int READ_BATCH = 100;
+    private static final int TAG_BUS_SLOTS = 64;
+    private static final int BUFFER_DRAIN_BATCH = 1000;
+    /** Fetches per buffer warning, so a reader that keeps filling cannot hold the event thread. */
+    private static final int MAX_DRAIN_FETCHES = 32;
+    /** Transmit power index for antenna 1 while the reader reports a HIGH / CRITICAL temperature. */
+    private static final int HOT_POWER = 200;
+    private static final int CRITICAL_POWER = 150;
+
+    /**
+     * Where a handheld trigger press starts inventory: {@code HOST} starts it straight from the
+     * trigger event callback, {@code READER} pre-arms an inventory that the reader itself starts
+     * on press and stops on release.
+     */
+    enum TriggerMode {
+        HOST,
+        READER
+    }
+
+    /** Memory banks read alongside the EPC during inventory. */
+    enum MemoryReadMode {
+        EPC_ONLY,
+        TID,
+        TID_AND_USER
+    }
 
     private Readers readers;
-    private RFIDReader reader;
+    /** Volatile so the trigger fast path can start inventory without taking the handler lock. */
+    private volatile RFIDReader reader;
     private EventHandler eventHandler;
     private MainActivity context;
-    private SDKHandler sdkHandler;
+    /** Scanner SDK state; created and used on {@link #scannerExecutor}. */
+    private volatile SDKHandler sdkHandler;
     private ScannerHandler scannerHandler;
     private ArrayList<DCSScannerInfo> scannerList;
-    private int scannerID;
+    private volatile int scannerID;
+    /** Incremented on every disconnect so scanner setup for a stale connection is abandoned. */
+    private volatile int connectGeneration;
     private final Handler uiHandler = new Handler(Looper.getMainLooper());
     private int connectionTimer = 0;
     private final Runnable timerRunnable = () -> {
@@ -117,6 +171,40 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
     };
     /** Executor for background tasks. */
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    /** Every reader's read batches, fanned out to the app's consumers. */
+    private final TagEventBus tagBus = new TagEventBus(TAG_BUS_SLOTS, READ_BATCH);
+    /** Brings the scanner SDK up alongside the RFID link so inventory does not wait for it. */
+    private final ExecutorService scannerExecutor = Executors.newSingleThreadExecutor();
+    private volatile MemoryReadMode memoryReadMode = MemoryReadMode.EPC_ONLY;
+    /** True while the running inventory is an access sequence rather than a plain inventory. */
+    private boolean sequenceRunning;
+    /** Maps the primary reader's seen-times onto the host clock. */
+    private final ReaderClock readerClock = new ReaderClock();
+    private final ReadRateMeter readRateMeter = new ReadRateMeter(readerClock);
+    /** Scanner SDK commands, on their own queue so they never wait behind reader work. */
+    private final ScannerCommandQueue scannerCommands = new ScannerCommandQueue();
+    /** Readers connected alongside {@link #reader}; null until {@link #connectAdditionalReaders()}. */
+    private ReaderManager readerManager;
+    /** Channel of {@link #reader} in {@link #readerManager}, so its reads join the merged view. */
+    private volatile ReaderManager.Channel primaryChannel;
+    private volatile TriggerMode triggerMode = TriggerMode.HOST;
+    /** True while an inventory is armed on the reader to start on the next trigger press. */
+    private volatile boolean triggerArmed;
+    /** elapsedRealtimeNanos of the last trigger press, or 0 once its first tag has arrived. */
+    private volatile long triggerPressNanos;
+    private final LatencyHistogram triggerToStart = new LatencyHistogram();
+    private final LatencyHistogram triggerToFirstTag = new LatencyHistogram();
+    /** Bounded round the reader will stop by itself, or null. */
+    private volatile InventoryRound activeRound;
+    /** Non-null while portal mode keeps a continuous inventory running. */
+    private volatile PortalTracker portalTracker;
+    private final ReaderTelemetry telemetry = new ReaderTelemetry();
+    /** Last batch started by {@link #runTagAccessBatch}, or null. */
+    private TagAccessBatch tagAccessBatch;
+    /** Non-null while reader events are being recorded. */
+    private volatile EventRecorder recorder;
+    /** Antenna 1 power index before thermal throttling, or -1 when not throttled. */
+    private int powerBeforeThrottle = -1;
 
     /**
      * Initializes the RFIDHandler with the activity context.
@@ -151,7 +239,7 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
             singulationControl.Action.setSLFlag(SL_FLAG.SL_ALL);
             reader.Config.Antennas.setSingulationControl(1, singulationControl);
         } catch (InvalidUsageException | OperationFailureException e) {
-            Log.e(TAG, "Error in Defaults", e);
+            DiagnosticLog.e(TAG, "Error in Defaults", e);
             return e.getMessage();
         }
         return DEFAULT_SETTINGS_APPLIED;
@@ -187,8 +275,16 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
     }
 
     void onDestroy() {
+        synchronized (this) {
+            if (tagAccessBatch != null) tagAccessBatch.shutdown();
+        }
         dispose();
+        stopRecording();
+        tagBus.close();
         executor.shutdown();
+        scannerExecutor.shutdown();
+        DiagnosticLog.d(TAG, "Scanner commands: {}", scannerCommands.report());
+        scannerCommands.shutdown();
     }
 
 
@@ -232,7 +328,7 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
                 ArrayList<ReaderDevice> availableReaders = readers.GetAvailableRFIDReaderList();
                 reader = selectReader(availableReaders);
             } catch (InvalidUsageException e) {
-                Log.e(TAG, ERROR_GETTING_READERS, e);
+                DiagnosticLog.e(TAG, ERROR_GETTING_READERS, e);
             }
         }
     }
@@ -250,32 +346,47 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
         }
     }
 
+    /**
+     * Connects the RFID link and reports "RFID ready" as soon as it is configured. Scanner SDK
+     * setup runs concurrently on {@link #scannerExecutor}: SDK construction overlaps
+     * {@code reader.connect()}, and scanner discovery and session setup follow once the reader's
+     * host name is known, reporting "Scanner ready" separately.
+     */
     private synchronized String connect() {
         if (reader != null) {
             try {
                 if (!reader.isConnected()) {
                     connectionTimer = 0;
                     uiHandler.post(timerRunnable);
-                    long startTime = System.currentTimeMillis();
+                    final int generation = connectGeneration;
+                    final long startTime = System.currentTimeMillis();
+                    int connectPhase = StartupTrace.begin("RFID connect");
+                    scannerExecutor.execute(this::initScannerSdk);
+                    DiagnosticLog.attachTo(reader);
                     try {
                         reader.connect();
                     } finally {
                         uiHandler.removeCallbacks(timerRunnable);
                     }
-                    long duration = System.currentTimeMillis() - startTime;
+                    long connectMs = System.currentTimeMillis() - startTime;
                     configureReader();
-                    setupScannerSdk();
+                    final long duration = System.currentTimeMillis() - startTime;
+                    StartupTrace.end(connectPhase);
                     if (reader.isConnected()) {
-                            return CONNECTED_PREFIX + reader.getHostName() + " (" + duration + " ms)";
+                        if (triggerMode == TriggerMode.READER) armReaderTrigger();
+                        final String hostName = reader.getHostName();
+                        scannerExecutor.execute(() -> connectScanner(generation, hostName, startTime, duration));
+                        DiagnosticLog.d(TAG, "Phase timings: reader.connect {} ms, RFID ready at {} ms", connectMs, duration);
+                        return CONNECTED_PREFIX + hostName + " (RFID ready " + duration + " ms, scanner starting)";
                     }
                 } else {
                         return CONNECTED_PREFIX + reader.getHostName();
                 }
             } catch (InvalidUsageException e) {
-                Log.e(TAG, CONNECTION_FAILED + e.getMessage());
+                DiagnosticLog.e(TAG, CONNECTION_FAILED, e);
                 return CONNECTION_FAILED + e.getMessage();
             } catch (OperationFailureException e) {
-                Log.e(TAG, CONNECTION_FAILED + e.getStatusDescription());
+                DiagnosticLog.e(TAG, CONNECTION_FAILED + "{}", e.getStatusDescription());
                 return CONNECTION_FAILED + e.getStatusDescription();
             }
 
@@ -283,43 +394,89 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
         return DISCONNECTED;
     }
 
+    /** Creates and configures the scanner SDK if needed. Runs on {@link #scannerExecutor}. */
+    private void initScannerSdk() {
+        if (sdkHandler != null) return;
+        int phase = StartupTrace.begin("Scanner SDK init");
+        long start = System.currentTimeMillis();
+        SDKHandler handler = new SDKHandler(context);
+        handler.dcssdkSetOperationalMode(DCSSDKDefs.DCSSDK_MODE.DCSSDK_OPMODE_USB_CDC);
+        handler.dcssdkSetOperationalMode(DCSSDKDefs.DCSSDK_MODE.DCSSDK_OPMODE_BT_NORMAL);
+        handler.dcssdkSetDelegate(scannerHandler);
+        int notificationsMask = DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SCANNER_APPEARANCE.value |
+            DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SCANNER_DISAPPEARANCE.value |
+            DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_BARCODE.value |
+            DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SESSION_ESTABLISHMENT.value |
+            DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SESSION_TERMINATION.value;
+        handler.dcssdkSubsribeForEvents(notificationsMask);
+        sdkHandler = handler;
+        scannerCommands.setSdkHandler(handler);
+        StartupTrace.end(phase);
+        DiagnosticLog.d(TAG, "Phase timings: scanner SDK init {} ms", System.currentTimeMillis() - start);
+    }
 
-    public void setupScannerSdk() {
-            // This method was previously called setupScannerSDK (case mismatch). Now unified as setupScannerSdk.
-        if (sdkHandler == null) {
-            sdkHandler = new SDKHandler(context);
-            sdkHandler.dcssdkSetOperationalMode(DCSSDKDefs.DCSSDK_MODE.DCSSDK_OPMODE_USB_CDC);
-            sdkHandler.dcssdkSetOperationalMode(DCSSDKDefs.DCSSDK_MODE.DCSSDK_OPMODE_BT_NORMAL);
-            sdkHandler.dcssdkSetDelegate(scannerHandler);
-            int notificationsMask = DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SCANNER_APPEARANCE.value |
-                DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SCANNER_DISAPPEARANCE.value |
-                DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_BARCODE.value |
-                DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SESSION_ESTABLISHMENT.value |
-                DCSSDKDefs.DCSSDK_EVENT.DCSSDK_EVENT_SESSION_TERMINATION.value;
-            sdkHandler.dcssdkSubsribeForEvents(notificationsMask);
-        }
-
-        ArrayList<DCSScannerInfo> availableScanners = (ArrayList<DCSScannerInfo>) sdkHandler.dcssdkGetAvailableScannersList();
+    /**
+     * Finds the reader's scanner and opens its session. Runs on {@link #scannerExecutor} after
+     * {@link #initScannerSdk()}; gives up if the reader disconnected in the meantime.
+     */
+    private void connectScanner(int generation, String hostName, long startTime, long rfidReadyMs) {
+        SDKHandler handler = sdkHandler;
+        if (handler == null || generation != connectGeneration) return;
+        int phase = StartupTrace.begin("Scanner sessions");
+        long start = System.currentTimeMillis();
+        @SuppressWarnings("unchecked")
+        ArrayList<DCSScannerInfo> availableScanners = (ArrayList<DCSScannerInfo>) handler.dcssdkGetAvailableScannersList();
         populateScannerList(availableScanners);
-        establishScannerSessions();
+        boolean established = establishScannerSessions(handler, hostName);
+        StartupTrace.end(phase);
+        long readyMs = System.currentTimeMillis() - startTime;
+        DiagnosticLog.d(TAG, established ? "Phase timings: scanner sessions {} ms, scanner ready at {} ms"
+                : "Phase timings: scanner sessions {} ms, scanner not found at {} ms", System.currentTimeMillis() - start, readyMs);
+        if (generation != connectGeneration) {
+            if (established) handler.dcssdkTerminateCommunicationSession(scannerID);
+            return;
+        }
+        if (context != null) {
+            context.updateReaderStatus(CONNECTED_PREFIX + hostName + " (RFID ready " + rfidReadyMs + " ms, "
+                    + (established ? "Scanner ready " + readyMs + " ms)" : "no scanner)"), true);
+        }
     }
 
     private synchronized void disconnect() {
         try {
             if (reader != null) {
                 if (eventHandler != null) reader.Events.removeEventsListener(eventHandler);
-                if (sdkHandler != null) {
-                    sdkHandler.dcssdkTerminateCommunicationSession(scannerID);
+                connectGeneration++;
+                triggerArmed = false;
+                powerBeforeThrottle = -1;
+                InventoryRound round = activeRound;
+                activeRound = null;
+                if (round != null) round.complete();
+                PortalTracker tracker = portalTracker;
+                if (tracker != null) {
+                    portalTracker = null;
+                    tracker.stop();
+                }
+                if (readerManager != null) {
+                    primaryChannel = null;
+                    readerManager.shutdown();
+                    readerManager = null;
+                }
+                final SDKHandler handler = sdkHandler;
+                if (handler != null && !scannerExecutor.isShutdown()) {
+                    final int id = scannerID;
+                    scannerExecutor.execute(() -> handler.dcssdkTerminateCommunicationSession(id));
                 }
                 reader.disconnect();
                 if (context != null)
                     context.updateReaderStatus(DISCONNECTED, false);
                 reader.Dispose();
                 reader = null;
+                scannerCommands.setSdkHandler(null);
                 sdkHandler = null;
             }
         } catch (Exception e) {
-            Log.e(TAG, ERROR_DURING_DISCONNECT, e);
+            DiagnosticLog.e(TAG, ERROR_DURING_DISCONNECT, e);
         }
     }
 
@@ -331,64 +488,508 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
                 readers = null;
             }
         } catch (Exception e) {
-            Log.e(TAG, ERROR_DURING_DISPOSE, e);
+            DiagnosticLog.e(TAG, ERROR_DURING_DISPOSE, e);
+        }
+    }
+
+    /**
+     * Selects the memory banks read during the next inventory rounds.
+     * TID and user memory are read by an access sequence that runs as part of inventory.
+     */
+    void setMemoryReadMode(MemoryReadMode mode) {
+        memoryReadMode = mode;
+        // Only plain EPC inventory can be armed on the reader
+        if (triggerMode == TriggerMode.READER) {
+            executor.execute(() -> {
+                if (mode != MemoryReadMode.EPC_ONLY && triggerArmed) {
+                    disarmReaderTrigger();
+                } else if (mode == MemoryReadMode.EPC_ONLY) {
+                    armReaderTrigger();
+                }
+            });
         }
     }
 
+    MemoryReadMode getMemoryReadMode() {
+        return memoryReadMode;
+    }
+
+    /** Last measured reads/sec of each memory read mode. */
+    String getReadRateReport() {
+        return readRateMeter.report();
+    }
+
     synchronized void performInventory() {
         try {
-            if (reader != null && reader.isConnected()) reader.Actions.Inventory.perform();
+            if (reader != null && reader.isConnected()) {
+                if (triggerArmed) disarmReaderTrigger();
+                MemoryReadMode mode = memoryReadMode;
+                if (mode == MemoryReadMode.EPC_ONLY) {
+                    reader.Actions.Inventory.perform();
+                } else {
+                    configureMemoryReadSequence(mode);
+                    reader.Actions.TagAccess.OperationSequence.performSequence();
+                    sequenceRunning = true;
+                }
+                readRateMeter.start(mode);
+                if (readerManager != null) readerManager.performInventory();
+            }
         } catch (InvalidUsageException | OperationFailureException e) {
-            Log.e(TAG, "Error performing inventory", e);
+            DiagnosticLog.e(TAG, "Error performing inventory", e);
         }
     }
 
     synchronized void stopInventory() {
+        InventoryRound round = activeRound;
+        activeRound = null;
         try {
-            if (reader != null && reader.isConnected()) reader.Actions.Inventory.stop();
+            if (reader != null && reader.isConnected()) {
+                if (sequenceRunning) {
+                    reader.Actions.TagAccess.OperationSequence.stopSequence();
+                    sequenceRunning = false;
+                } else {
+                    reader.Actions.Inventory.stop();
+                }
+                double rate = readRateMeter.stop();
+                if (rate >= 0) DiagnosticLog.d(TAG, "Inventory rate: {} reads/s", rate);
+                if (readerManager != null) {
+                    readerManager.stopInventory();
+                    DiagnosticLog.d(TAG, "Readers: {}", readerManager.report());
+                }
+            }
         } catch (InvalidUsageException | OperationFailureException e) {
-            Log.e(TAG, "Error stopping inventory", e);
+            DiagnosticLog.e(TAG, "Error stopping inventory", e);
         }
+        if (round != null) round.complete();
+        if (triggerMode == TriggerMode.READER) armReaderTrigger();
     }
 
-    public void scanCode() {
-        String inXml = "<inArgs><scannerID>" + scannerID + "</scannerID></inArgs>";
-        executor.execute(() -> executeCommand(DCSSDKDefs.DCSSDK_COMMAND_OPCODE.DCSSDK_DEVICE_PULL_TRIGGER, inXml, new StringBuilder(), scannerID));
+    /**
+     * Starts a bounded round of plain EPC inventory with a reader-side stop trigger. The reader
+     * ends the round without an app round trip and the summary goes to the round's listener;
+     * {@link #stopInventory()} ends it early.
+     * @return False if no reader is connected or another round is running.
+     */
+    synchronized boolean performInventory(InventoryRound round) {
+        if (!isReaderConnected() || activeRound != null) return false;
+        if (triggerArmed) disarmReaderTrigger();
+        try {
+            reader.Events.setInventoryStopEvent(true);
+            activeRound = round;
+            reader.Actions.Inventory.perform(null, round.nextTrigger(), null);
+            readRateMeter.start(MemoryReadMode.EPC_ONLY);
+            return true;
+        } catch (InvalidUsageException | OperationFailureException e) {
+            DiagnosticLog.e(TAG, "Error starting " + round.condition + " round", e);
+            activeRound = null;
+            return false;
+        }
+    }
+
+    /** Runs on {@link #executor} when the reader reports that an operation stopped. */
+    private synchronized void onRoundStopped(InventoryRound round) {
+        if (activeRound != round) return;
+        if (!round.onStopped() && isReaderConnected()) {
+            try {
+                reader.Actions.Inventory.perform(null, round.nextTrigger(), null);
+                return;
+            } catch (InvalidUsageException | OperationFailureException e) {
+                DiagnosticLog.e(TAG, "Error continuing " + round.condition + " round", e);
+            }
+        }
+        activeRound = null;
+        double rate = readRateMeter.stop();
+        if (rate >= 0) DiagnosticLog.d(TAG, "Inventory rate: {} reads/s", rate);
+        round.complete();
+        if (triggerMode == TriggerMode.READER) armReaderTrigger();
+    }
+
+    /**
+     * Selects how trigger presses start inventory. {@link TriggerMode#READER} falls back to the
+     * host path while a memory read mode or portal mode needs host-started inventory.
+     */
+    synchronized void setTriggerMode(TriggerMode mode) {
+        triggerMode = mode;
+        if (mode == TriggerMode.READER) {
+            armReaderTrigger();
+        } else if (triggerArmed) {
+            disarmReaderTrigger();
+        }
+    }
+
+    TriggerMode getTriggerMode() {
+        return triggerMode;
+    }
+
+    /** Trigger press to inventory started (host mode) and to the first tag read. */
+    String getTriggerLatencyReport() {
+        return "Trigger to start: " + triggerToStart + "\nTrigger to first tag: " + triggerToFirstTag;
+    }
+
+    /**
+     * Arms an inventory that the reader starts on trigger press and stops on release, so a press
+     * costs no host round trip. Only plain EPC inventory can be armed.
+     */
+    private synchronized void armReaderTrigger() {
+        if (triggerArmed || !isReaderConnected() || memoryReadMode != MemoryReadMode.EPC_ONLY || portalTracker != null) return;
+        try {
+            TriggerInfo triggerInfo = new TriggerInfo();
+            triggerInfo.StartTrigger.setTriggerType(START_TRIGGER_TYPE.START_TRIGGER_TYPE_HANDHELD);
+            triggerInfo.StartTrigger.Handheld.setHandheldTriggerEvent(HANDHELD_TRIGGER_EVENT_TYPE.HANDHELD_TRIGGER_PRESSED);
+            triggerInfo.StopTrigger.setTriggerType(STOP_TRIGGER_TYPE.STOP_TRIGGER_TYPE_HANDHELD_WITH_TIMEOUT);
+            triggerInfo.StopTrigger.Handheld.setHandheldTriggerEvent(HANDHELD_TRIGGER_EVENT_TYPE.HANDHELD_TRIGGER_RELEASED);
+            triggerInfo.StopTrigger.Handheld.setHandheldTriggerTimeout(0);
+            reader.Actions.Inventory.perform(null, triggerInfo, null);
+            triggerArmed = true;
+        } catch (InvalidUsageException | OperationFailureException e) {
+            DiagnosticLog.e(TAG, "Reader-side trigger not available, using host trigger path", e);
+        }
+    }
+
+    private synchronized void disarmReaderTrigger() {
+        triggerArmed = false;
+        try {
+            if (isReaderConnected()) reader.Actions.Inventory.stop();
+        } catch (InvalidUsageException | OperationFailureException e) {
+            DiagnosticLog.e(TAG, "Error disarming reader trigger", e);
+        }
+    }
+
+    /**
+     * Trigger press fast path, called on the SDK event thread. The receiver publishes its
+     * session reset to the tag bus before inventory starts, so it lands ahead of the first
+     * batch of tags. Plain EPC inventory starts without taking the handler lock.
+     */
+    private void onTriggerPressed() {
+        triggerPressNanos = SystemClock.elapsedRealtimeNanos();
+        if (context != null) context.handleTriggerPress(true);
+        if (triggerArmed) {
+            readRateMeter.start(MemoryReadMode.EPC_ONLY);
+            return;
+        }
+        RFIDReader current = reader;
+        if (memoryReadMode != MemoryReadMode.EPC_ONLY || current == null) {
+            performInventory();
+        } else {
+            try {
+                current.Actions.Inventory.perform();
+                readRateMeter.start(MemoryReadMode.EPC_ONLY);
+            } catch (InvalidUsageException | OperationFailureException e) {
+                DiagnosticLog.e(TAG, "Error performing inventory", e);
+            }
+            ReaderManager manager = readerManager;
+            if (manager != null) manager.performInventory();
+        }
+        triggerToStart.record(SystemClock.elapsedRealtimeNanos() - triggerPressNanos);
+    }
+
+    private void onTriggerReleased() {
+        executor.execute(() -> {
+            if (triggerArmed) {
+                // The reader stopped on release; arm the next press
+                triggerArmed = false;
+                double rate = readRateMeter.stop();
+                if (rate >= 0) DiagnosticLog.d(TAG, "Inventory rate: {} reads/s", rate);
+                armReaderTrigger();
+            } else {
+                stopInventory();
+            }
+            if (context != null) context.handleTriggerPress(false);
+        });
+    }
+
+    /**
+     * Connects every other available {@code RFD} reader next to the primary one, e.g. a second
+     * sled at the same station. Each gets its own listener and ingest thread; batches go to the
+     * portal tracker and the tag bus like the primary reader's. Inventory rounds, event
+     * recording and the read rate meter stay with the primary reader, whose triggers and clock
+     * they follow; per-reader rates are in the returned report.
+     * Must be called off the UI thread.
+     * @return Per-reader report.
+     */
+    synchronized String connectAdditionalReaders() {
+        if (!isReaderConnected() || readers == null) return DISCONNECTED;
+        if (readerManager == null) {
+            readerManager = new ReaderManager((channel, tags, firstSeen) -> {
+                trackPortal(tags, channel.clock);
+                tagBus.publish(tags, channel.clock);
+            });
+            primaryChannel = readerManager.addExternal(reader.getHostName());
+        }
+        try {
+            for (ReaderDevice device : readers.GetAvailableRFIDReaderList()) {
+                if (device == null || device.getName() == null || !device.getName().startsWith(READER_NAME_PREFIX)
+                        || device.getName().equals(reader.getHostName())) continue;
+                try {
+                    readerManager.connect(device);
+                } catch (InvalidUsageException | OperationFailureException e) {
+                    DiagnosticLog.e(TAG, "Error connecting " + device.getName(), e);
+                }
+            }
+        } catch (InvalidUsageException e) {
+            DiagnosticLog.e(TAG, ERROR_GETTING_READERS, e);
+        }
+        int additional = 0;
+        for (ReaderManager.Channel channel : readerManager.getChannels()) {
+            if (channel != primaryChannel) additional++;
+        }
+        return additional + " additional readers\n" + readerManager.report();
+    }
+
+    /**
+     * Hands a batch of the primary reader, live or replayed, to the app pipeline: portal
+     * tracking, the merged reader view, the inventory round and the tag bus.
+     */
+    private void dispatch(TagData[] tags, ReaderClock clock) {
+        trackPortal(tags, clock);
+        ReaderManager.Channel primary = primaryChannel;
+        if (primary != null) {
+            String[] epcs = new String[tags.length];
+            int count = 0;
+            for (TagData tag : tags) {
+                if (tag != null && tag.getTagID() != null) epcs[count++] = tag.getTagID();
+            }
+            primary.submit(count == epcs.length ? epcs : Arrays.copyOf(epcs, count));
+        }
+        InventoryRound round = activeRound;
+        if (round != null) round.onTags(tags);
+        tagBus.publish(tags, clock);
+    }
+
+    /** Feeds a batch to the portal tracker, if portal mode is on; dwell is measured on the reader's clock. */
+    private void trackPortal(TagData[] tags, ReaderClock clock) {
+        PortalTracker tracker = portalTracker;
+        if (tracker == null) return;
+        for (TagData tag : tags) {
+            if (tag != null && tag.getTagID() != null) {
+                tracker.onRead(tag.getTagID(), tag.getPeakRSSI(), clock.toHost(ReaderClock.seenTime(tag)));
+            }
+        }
+    }
+
+    /**
+     * Starts portal mode: inventory runs continuously until {@link #stopPortalMode()} and every
+     * tag entering or leaving the field is published to {@code listener}.
+     * @return False if no reader is connected.
+     */
+    synchronized boolean startPortalMode(PortalTracker.Listener listener) {
+        if (portalTracker != null) return true;
+        if (!isReaderConnected()) return false;
+        PortalTracker tracker = new PortalTracker(PORTAL_DEPART_MS, PORTAL_TICK_MS);
+        tracker.addListener(listener);
+        tracker.start();
+        portalTracker = tracker;
+        performInventory();
+        return true;
     }
 
-    private boolean executeCommand(DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode, String inXML, StringBuilder outXML, int scannerID) {
-        if (sdkHandler != null) {
-            if (outXML == null) outXML = new StringBuilder();
-            DCSSDKDefs.DCSSDK_RESULT result = sdkHandler.dcssdkExecuteCommandOpCodeInXMLForScanner(opCode, inXML, outXML, scannerID);
-            return result == DCSSDKDefs.DCSSDK_RESULT.DCSSDK_RESULT_SUCCESS;
+    /** Stops the portal inventory; tags still in the field are reported as departed. */
+    synchronized void stopPortalMode() {
+        PortalTracker tracker = portalTracker;
+        if (tracker == null) return;
+        portalTracker = null;
+        stopInventory();
+        tracker.stop();
+    }
+
+    boolean isPortalMode() {
+        return portalTracker != null;
+    }
+
+    private void configureMemoryReadSequence(MemoryReadMode mode) throws InvalidUsageException, OperationFailureException {
+        TagAccess tagAccess = reader.Actions.TagAccess;
+        tagAccess.OperationSequence.deleteAll();
+        tagAccess.OperationSequence.add(newReadOperation(tagAccess, MEMORY_BANK.MEMORY_BANK_TID, TID_WORDS));
+        if (mode == MemoryReadMode.TID_AND_USER) {
+            tagAccess.OperationSequence.add(newReadOperation(tagAccess, MEMORY_BANK.MEMORY_BANK_USER, USER_WORDS));
         }
-        return false;
     }
 
-    public class EventHandler implements RfidEventsListener {
+    private static TagAccess.Sequence.Operation newReadOperation(TagAccess tagAccess, MEMORY_BANK bank, int words) {
+        TagAccess.Sequence.Operation operation = tagAccess.OperationSequence.new Operation();
+        operation.setAccessOperationCode(ACCESS_OPERATION_CODE.ACCESS_OPERATION_READ);
+        operation.ReadAccessParams.setMemoryBank(bank);
+        operation.ReadAccessParams.setOffset(0);
+        operation.ReadAccessParams.setCount(words);
+        return operation;
+    }
+
+    /**
+     * Runs {@code targets} through a batch tag-access engine bound to the connected reader.
+     * Inventory must be stopped; an inventory armed on the reader trigger is disarmed for the
+     * batch and armed again when it completes. {@link #onDestroy()} cancels a running batch.
+     * @param maxRetries Retries per operation on retryable failures.
+     * @param listener Called on the batch's access thread.
+     * @return False if no reader is connected or a batch is already running.
+     */
+    synchronized boolean runTagAccessBatch(List<TagAccessBatch.Target> targets, int maxRetries,
+                                           final TagAccessBatch.Listener listener) {
+        if (!isReaderConnected() || (tagAccessBatch != null && tagAccessBatch.isRunning())) return false;
+        if (triggerArmed) disarmReaderTrigger();
+        TagAccessBatch batch = new TagAccessBatch(new ReaderTagAccessPort(reader), maxRetries);
+        tagAccessBatch = batch;
+        return batch.start(targets, new TagAccessBatch.Listener() {
+            @Override
+            public void onOperationResult(TagAccessBatch.OperationResult result) {
+                listener.onOperationResult(result);
+            }
+
+            @Override
+            public void onBatchComplete(TagAccessBatch.Stats stats) {
+                if (triggerMode == TriggerMode.READER && !executor.isShutdown()) {
+                    executor.execute(RFIDHandler.this::armReaderTrigger);
+                }
+                listener.onBatchComplete(stats);
+            }
+        });
+    }
+
+    public void scanCode() {
+        scannerCommands.pullTrigger(scannerID).thenAccept(result -> {
+            if (!result.isSuccess() && context != null) context.sendToast("Scan failed: " + result.result);
+        });
+    }
+
+    /** Queue for scanner beeper, LED, trigger and attribute commands. */
+    ScannerCommandQueue getScannerCommands() {
+        return scannerCommands;
+    }
+
+    /**
+     * Reader event callbacks. The SDK callbacks reduce their events to {@link #onTags} and
+     * {@link #onStatus}, which are also where {@link EventRecorder} captures the event stream.
+     */
+    public class EventHandler implements RfidEventsListener, EventReplayer.Sink {
         @Override
         public void eventReadNotify(RfidReadEvents e) {
-            if (reader == null) return;
-            TagData[] myTags = reader.Actions.getReadTags(100);
-            if (myTags != null && context != null) {
-                executor.execute(() -> context.handleTagdata(myTags));
+            RFIDReader current = reader;
+            if (current != null) drain(current, READ_BATCH);
+        }
+
+        /**
+         * Fetches up to {@code max} tags from the reader and hands them on.
+         * @return Tags fetched.
+         */
+        private int drain(RFIDReader current, int max) {
+            TagData[] myTags = current.Actions.getReadTags(max);
+            if (myTags == null) return 0;
+            onTags(myTags);
+            return myTags.length;
+        }
+
+        @Override
+        public void onTags(TagData[] myTags) {
+            readerClock.sync(myTags, SystemClock.elapsedRealtime());
+            EventRecorder rec = recorder;
+            if (rec != null) rec.recordTags(myTags);
+            long pressedAt = triggerPressNanos;
+            if (pressedAt != 0 && myTags.length > 0) {
+                triggerPressNanos = 0;
+                long latency = SystemClock.elapsedRealtimeNanos() - pressedAt;
+                triggerToFirstTag.record(latency);
+                DiagnosticLog.d(TAG, "Trigger to first tag: {} us", latency / 1000);
+            }
+            dispatch(myTags, readerClock);
+            if (context != null) {
+                MemoryReadBatch memory = memoryReadMode != MemoryReadMode.EPC_ONLY ? MemoryReadBatch.decode(myTags) : null;
+                readRateMeter.record(myTags, memory != null ? memory.size() : 0);
+                if (memory != null) executor.execute(() -> context.handleMemoryData(myTags, memory));
             }
         }
 
+        /** Empties the reader's tag buffer in large fetches before it overflows and drops reads. */
+        private int drainBuffer() {
+            RFIDReader current = reader;
+            if (current == null) return 0;
+            int drained = 0;
+            for (int i = 0; i < MAX_DRAIN_FETCHES; i++) {
+                int fetched = drain(current, BUFFER_DRAIN_BATCH);
+                drained += fetched;
+                if (fetched < BUFFER_DRAIN_BATCH) break;
+            }
+            return drained;
+        }
+
         @Override
         public void eventStatusNotify(RfidStatusEvents rfidStatusEvents) {
             if (rfidStatusEvents == null || rfidStatusEvents.StatusEventData == null) return;
-            STATUS_EVENT_TYPE eventType = rfidStatusEvents.StatusEventData.getStatusEventType();
+            IEvents.StatusEventData data = rfidStatusEvents.StatusEventData;
+            STATUS_EVENT_TYPE eventType = data.getStatusEventType();
             if (eventType == STATUS_EVENT_TYPE.HANDHELD_TRIGGER_EVENT) {
-                if (rfidStatusEvents.StatusEventData.HandheldTriggerEventData != null) {
-                    HANDHELD_TRIGGER_EVENT_TYPE triggerEvent = rfidStatusEvents.StatusEventData.HandheldTriggerEventData.getHandheldEvent();
-                    boolean pressed = (triggerEvent == HANDHELD_TRIGGER_EVENT_TYPE.HANDHELD_TRIGGER_PRESSED);
-                    if (context != null) {
-                        executor.execute(() -> context.handleTriggerPress(pressed));
-                    }
+                if (data.HandheldTriggerEventData != null) {
+                    HANDHELD_TRIGGER_EVENT_TYPE triggerEvent = data.HandheldTriggerEventData.getHandheldEvent();
+                    onStatus(eventType, triggerEvent == HANDHELD_TRIGGER_EVENT_TYPE.HANDHELD_TRIGGER_PRESSED ? 1 : 0, 0, null);
+                }
+            }
+            else if (eventType == STATUS_EVENT_TYPE.BATTERY_EVENT) {
+                if (data.BatteryData != null) {
+                    onStatus(eventType, data.BatteryData.getLevel(), data.BatteryData.getCharging() ? 1 : 0, data.BatteryData.getCause());
                 }
             }
+            else if (eventType == STATUS_EVENT_TYPE.TEMPERATURE_ALARM_EVENT) {
+                if (data.TemperatureAlarmData != null) {
+                    ALARM_LEVEL level = data.TemperatureAlarmData.getAlarmLevel();
+                    onStatus(eventType, data.TemperatureAlarmData.getCurrentTemperature(), level != null ? level.getValue() : -1, null);
+                }
+            }
+            else if (eventType == STATUS_EVENT_TYPE.POWER_EVENT) {
+                String detail = data.PowerData != null ? String.format(Locale.US, "%.2f V %.2f A",
+                        data.PowerData.getVoltage(), data.PowerData.getCurrent()) : "";
+                onStatus(eventType, 0, 0, detail);
+            }
+            else {
+                onStatus(eventType, 0, 0, null);
+            }
+        }
+
+        /**
+         * Handles a status event reduced to its type and payload. {@code value} is 1 for a
+         * trigger press and 0 for a release, the battery level, or the temperature; {@code extra}
+         * is 1 when charging, or the {@link ALARM_LEVEL} value of a temperature alarm.
+         */
+        @Override
+        public void onStatus(STATUS_EVENT_TYPE eventType, int value, int extra, String detail) {
+            EventRecorder rec = recorder;
+            if (rec != null) rec.recordStatus(eventType, value, extra, detail);
+            long now = SystemClock.elapsedRealtime();
+            if (eventType == STATUS_EVENT_TYPE.HANDHELD_TRIGGER_EVENT) {
+                // Portal inventory runs until portal mode is switched off
+                if (portalTracker != null) return;
+                if (value != 0) {
+                    onTriggerPressed();
+                } else {
+                    onTriggerReleased();
+                }
+            }
+            else if (eventType == STATUS_EVENT_TYPE.INVENTORY_START_EVENT) {
+                telemetry.onInventoryStart(now);
+            }
+            else if (eventType == STATUS_EVENT_TYPE.INVENTORY_STOP_EVENT) {
+                telemetry.onInventoryStop(now);
+                InventoryRound round = activeRound;
+                if (round != null) executor.execute(() -> onRoundStopped(round));
+            }
+            else if (eventType == STATUS_EVENT_TYPE.BUFFER_FULL_WARNING_EVENT) {
+                telemetry.onEvent(ReaderTelemetry.Kind.BUFFER_FULL_WARNING, now, drainBuffer(), "");
+            }
+            else if (eventType == STATUS_EVENT_TYPE.BUFFER_FULL_EVENT) {
+                int drained = drainBuffer();
+                DiagnosticLog.w(TAG, "Reader tag buffer full, reads may have been dropped; drained", drained);
+                telemetry.onEvent(ReaderTelemetry.Kind.BUFFER_FULL, now, drained, "");
+            }
+            else if (eventType == STATUS_EVENT_TYPE.BATTERY_EVENT) {
+                telemetry.onBattery(now, value, extra != 0, detail);
+            }
+            else if (eventType == STATUS_EVENT_TYPE.TEMPERATURE_ALARM_EVENT) {
+                ALARM_LEVEL level = extra >= 0 ? ALARM_LEVEL.GetAlarmLevelTypeValue(extra) : null;
+                telemetry.onTemperature(now, value, String.valueOf(level));
+                if (level != null) executor.execute(() -> applyThermalThrottle(level));
+            }
+            else if (eventType == STATUS_EVENT_TYPE.POWER_EVENT) {
+                telemetry.onEvent(ReaderTelemetry.Kind.POWER, now, 0, detail);
+            }
             else if (eventType == STATUS_EVENT_TYPE.DISCONNECTION_EVENT) {
+                telemetry.onEvent(ReaderTelemetry.Kind.DISCONNECTION, now, 0, "");
                 executor.execute(() -> {
                     disconnect();
                     dispose();
@@ -397,17 +998,175 @@ class RFIDHandler implements Readers.RFIDReaderEventHandler {
         }
     }
 
+    /**
+     * Takes replayed events in place of {@link EventHandler}. Tags reach the app pipeline as
+     * live ones do and status events update telemetry, but nothing acts on the reader: trigger
+     * events start no inventory, buffer warnings drain nothing, temperature alarms leave the
+     * antenna power alone, and nothing is recorded again.
+     */
+    private class ReplaySink implements EventReplayer.Sink {
+        /** Replayed tags carry no seen-times, so this only tracks batch arrival. */
+        private final ReaderClock clock = new ReaderClock();
+
+        @Override
+        public void onTags(TagData[] tags) {
+            clock.sync(tags, SystemClock.elapsedRealtime());
+            dispatch(tags, clock);
+        }
+
+        @Override
+        public void onStatus(STATUS_EVENT_TYPE eventType, int value, int extra, String detail) {
+            long now = SystemClock.elapsedRealtime();
+            if (eventType == STATUS_EVENT_TYPE.INVENTORY_START_EVENT) {
+                telemetry.onInventoryStart(now);
+            }
+            else if (eventType == STATUS_EVENT_TYPE.INVENTORY_STOP_EVENT) {
+                telemetry.onInventoryStop(now);
+            }
+            else if (eventType == STATUS_EVENT_TYPE.BUFFER_FULL_WARNING_EVENT) {
+                telemetry.onEvent(ReaderTelemetry.Kind.BUFFER_FULL_WARNING, now, 0, "");
+            }
+            else if (eventType == STATUS_EVENT_TYPE.BUFFER_FULL_EVENT) {
+                telemetry.onEvent(ReaderTelemetry.Kind.BUFFER_FULL, now, 0, "");
+            }
+            else if (eventType == STATUS_EVENT_TYPE.BATTERY_EVENT) {
+                telemetry.onBattery(now, value, extra != 0, detail);
+            }
+            else if (eventType == STATUS_EVENT_TYPE.TEMPERATURE_ALARM_EVENT) {
+                ALARM_LEVEL level = extra >= 0 ? ALARM_LEVEL.GetAlarmLevelTypeValue(extra) : null;
+                telemetry.onTemperature(now, value, String.valueOf(level));
+            }
+            else if (eventType == STATUS_EVENT_TYPE.POWER_EVENT) {
+                telemetry.onEvent(ReaderTelemetry.Kind.POWER, now, 0, detail);
+            }
+        }
+    }
+
     // Ensure method signatures for initSDK and configureReader exist
     private void initSDK() {
         // SDK initialization logic can be implemented here if needed
     }
 
-    private void configureReader() {
-        // Reader configuration logic can be implemented here if needed
+    /**
+     * Registers the event listener and subscribes to tag reads and the status events the
+     * handler acts on. Called with the handler lock held, right after {@code reader.connect()}.
+     */
+    private void configureReader() throws InvalidUsageException, OperationFailureException {
+        if (!isReaderConnected()) return;
+        TagBatch.configureReport(reader);
+        if (eventHandler == null) eventHandler = new EventHandler();
+        reader.Events.addEventsListener(eventHandler);
+        reader.Events.setTagReadEvent(true);
+        reader.Events.setAttachTagDataWithReadEvent(false);
+        reader.Events.setHandheldEvent(true);
+        reader.Events.setReaderDisconnectEvent(true);
+        reader.Events.setInventoryStartEvent(true);
+        reader.Events.setInventoryStopEvent(true);
+        reader.Events.setBufferFullWarningEvent(true);
+        reader.Events.setBufferFullEvent(true);
+        reader.Events.setBatteryEvent(true);
+        reader.Events.setTemperatureAlarmEvent(true);
+        reader.Events.setPowerEvent(true);
+    }
+
+    /**
+     * Lowers antenna 1 transmit power on a HIGH or CRITICAL temperature alarm and restores it
+     * once the reader reports LOW again. Runs on {@link #executor}.
+     */
+    private synchronized void applyThermalThrottle(ALARM_LEVEL level) {
+        if (!isReaderConnected()) return;
+        try {
+            Antennas.AntennaRfConfig config = reader.Config.Antennas.getAntennaRfConfig(1);
+            int current = config.getTransmitPowerIndex();
+            int target;
+            if (level == ALARM_LEVEL.LOW) {
+                if (powerBeforeThrottle < 0) return;
+                target = powerBeforeThrottle;
+                powerBeforeThrottle = -1;
+            } else {
+                if (powerBeforeThrottle < 0) powerBeforeThrottle = current;
+                target = Math.min(powerBeforeThrottle, level == ALARM_LEVEL.CRITICAL ? CRITICAL_POWER : HOT_POWER);
+            }
+            if (target == current) return;
+            config.setTransmitPowerIndex(target);
+            reader.Config.Antennas.setAntennaRfConfig(1, config);
+            DiagnosticLog.d(TAG, "Temperature alarm: transmit power index {} -> {}", current, target);
+            if (context != null) context.sendToast("Reader temperature " + level + ", power index " + target);
+        } catch (InvalidUsageException | OperationFailureException e) {
+            DiagnosticLog.e(TAG, "Error applying thermal throttle", e);
+        }
+    }
+
+    /**
+     * Starts recording the reader event stream to {@code file}.
+     * @return False if a recording is already running.
+     */
+    synchronized boolean startRecording(File file) throws IOException {
+        if (recorder != null) return false;
+        recorder = new EventRecorder(file);
+        return true;
+    }
+
+    /** @return Summary of the finished recording, or null if none was running. */
+    synchronized String stopRecording() {
+        EventRecorder rec = recorder;
+        if (rec == null) return null;
+        recorder = null;
+        try {
+            rec.close();
+        } catch (IOException e) {
+            DiagnosticLog.e(TAG, "Error closing event recording", e);
+        }
+        return rec.report();
+    }
+
+    boolean isRecording() {
+        return recorder != null;
+    }
+
+    /**
+     * Feeds a recording through the app pipeline on the calling thread, without acting on the
+     * reader; see {@link ReplaySink}.
+     * @param speed 1 for real time, N for N times faster, or {@link EventReplayer#MAX_SPEED}.
+     */
+    EventReplayer.Result replay(File file, double speed) throws IOException {
+        return EventReplayer.replay(file, new ReplaySink(), speed);
+    }
+
+    /** Status event stream of the connected reader. */
+    ReaderTelemetry getTelemetry() {
+        return telemetry;
+    }
+
+    String getTelemetryReport() {
+        return telemetry.report(SystemClock.elapsedRealtime()) + "\n" + readerClock.report() + "\n" + tagBus.report();
+    }
+
+    /** Read batches from all connected readers; subscribe to consume them. */
+    TagEventBus getTagBus() {
+        return tagBus;
+    }
+
+    /**
+     * Reads from all connected readers as a flow-controlled stream, for apps embedding this
+     * handler. Subscribers complete when the handler is destroyed.
+     */
+    TagStream tagStream() {
+        return new TagStream(tagBus);
     }
 
     interface ResponseHandlerInterface {
-        void handleTagdata(TagData[] tagData);
+        /**
+         * Delivers the TID / user memory reads of a read batch; its EPCs go through
+         * {@link #getTagBus()}.
+         * The receiver must call {@link MemoryReadBatch#recycle()} when done.
+         */
+        void handleMemoryData(TagData[] tagData, MemoryReadBatch memory);
+        /**
+         * Called on a trigger press on the SDK event thread, before inventory starts, and on a
+         * release on the handler's executor, once inventory has stopped. The receiver only
+         * updates its session and UI, and must not block.
+         */
         void handleTriggerPress(boolean pressed);
         void barcodeData(String val);
         void sendToast(String val);
@@ -0,0 +1,92 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures tag reads per second for each inventory round and keeps the last rate per
+ * {@link RFIDHandler.MemoryReadMode}, so memory-read modes can be compared with plain EPC inventory.
+ * <p>
+ * When the reader reports seen-times, a round's duration is the span between its first and
+ * last read on the reader's clock, converted with the drift-corrected {@link ReaderClock}
+ * slope; otherwise it is the host time between start and stop.
+ */
+class ReadRateMeter {
+    private final Map<RFIDHandler.MemoryReadMode, Double> lastRates = new EnumMap<>(RFIDHandler.MemoryReadMode.class);
+    private final ReaderClock clock;
+    private RFIDHandler.MemoryReadMode mode;
+    private long startNanos;
+    private long reads;
+    private long memoryReads;
+    /** Reader seen-times of the round's first and last read, or 0. */
+    private long firstSeen;
+    private long lastSeen;
+
+    ReadRateMeter(ReaderClock clock) {
+        this.clock = clock;
+    }
+
+    synchronized void start(RFIDHandler.MemoryReadMode mode) {
+        this.mode = mode;
+        startNanos = System.nanoTime();
+        reads = 0;
+        memoryReads = 0;
+        firstSeen = 0;
+        lastSeen = 0;
+    }
+
+    /**
+     * Counts the singulations in a batch. With an access sequence each operation reports its
+     * own TagData, so user memory results are not counted again.
+     * @param memoryReadCount TID/user memory reads decoded from the batch.
+     */
+    synchronized void record(TagData[] tags, int memoryReadCount) {
+        for (TagData tag : tags) {
+            if (tag == null || MemoryReadBatch.bankCode(tag.getMemoryBank()) == MemoryReadBatch.BANK_USER) continue;
+            reads++;
+            long seen = ReaderClock.seenTime(tag);
+            if (seen <= 0) continue;
+            if (firstSeen == 0 || seen < firstSeen) firstSeen = seen;
+            if (seen > lastSeen) lastSeen = seen;
+        }
+        memoryReads += memoryReadCount;
+    }
+
+    /**
+     * Ends the round and stores its rate.
+     * @return Reads per second of the round, or -1 if no round was running.
+     */
+    synchronized double stop() {
+        if (mode == null) return -1;
+        double millisPerTick = clock.slope();
+        double seconds = lastSeen > firstSeen && !Double.isNaN(millisPerTick)
+                ? (lastSeen - firstSeen) * millisPerTick / 1000
+                : (System.nanoTime() - startNanos) / 1e9;
+        double rate = seconds > 0 ? reads / seconds : 0;
+        lastRates.put(mode, rate);
+        mode = null;
+        return rate;
+    }
+
+    synchronized long getMemoryReads() {
+        return memoryReads;
+    }
+
+    /** Last measured rate of every mode, relative to plain EPC inventory when available. */
+    synchronized String report() {
+        if (lastRates.isEmpty()) return "No inventory rounds measured";
+        Double baseline = lastRates.get(RFIDHandler.MemoryReadMode.EPC_ONLY);
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<RFIDHandler.MemoryReadMode, Double> entry : lastRates.entrySet()) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format(Locale.US, "%s: %.1f reads/s", entry.getKey(), entry.getValue()));
+            if (baseline != null && baseline > 0 && entry.getKey() != RFIDHandler.MemoryReadMode.EPC_ONLY) {
+                sb.append(String.format(Locale.US, " (%.0f%% of EPC only)", 100 * entry.getValue() / baseline));
+            }
+        }
+        return sb.toString();
+    }
+}
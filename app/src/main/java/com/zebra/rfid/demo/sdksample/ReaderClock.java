@@ -0,0 +1,195 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.os.SystemClock;
+
+import com.zebra.rfid.api3.SeenTime;
+import com.zebra.rfid.api3.TagData;
+import com.zebra.rfid.api3.UpTime;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Maps one reader's tag seen-times onto the host's {@link SystemClock#elapsedRealtime()}, so
+ * read times reflect when the reader saw a tag rather than when a batch reached the app.
+ * <p>
+ * Every batch pairs the newest seen-time in it with the host time the batch arrived. Arrival
+ * lags the read by a varying transport delay, so of each {@link #BUCKET_MILLIS} of host time
+ * only the pair with the smallest delay against the current fit becomes an anchor, and the
+ * mapping is a least-squares line through the last {@link #ANCHORS} anchors, refitted without
+ * the ones delayed more than {@link #OUTLIER_MILLIS} beyond the median (stalls). The slope
+ * absorbs both the unit of the reader's up-time and its drift against the host clock. Until
+ * anchors span a bucket, and for reads without a seen-time, reads get their batch's arrival
+ * time. Seen-times jumping back (reconnect, reader reboot) start a new fit.
+ */
+final class ReaderClock {
+    static final long BUCKET_MILLIS = 1000;
+    static final int ANCHORS = 64;
+    /** Anchors delayed this much beyond the median are left out of the fit. */
+    static final long OUTLIER_MILLIS = 100;
+
+    private final double[] anchorReader = new double[ANCHORS];
+    private final double[] anchorHost = new double[ANCHORS];
+    private int anchors;
+    private int nextAnchor;
+    /** Best pair of the current bucket, or bucket -1. */
+    private long bucket = -1;
+    private long bucketReader;
+    private long bucketHost;
+    private double bucketResidual;
+    /** host = intercept + slope * (reader - origin); slope is NaN without a fit. */
+    private long origin;
+    private double slope = Double.NaN;
+    private double intercept;
+    private long firstReader;
+    private long lastReader;
+    private long arrival;
+    private long resets;
+
+    /** Reader up-time of the tag's last sighting, or 0 when the reader did not report one. */
+    static long seenTime(TagData tag) {
+        SeenTime seen = tag.SeenTime;
+        if (seen == null) return 0;
+        UpTime upTime = seen.getUpTime();
+        return upTime != null ? upTime.getLastSeenTimeStamp() : 0;
+    }
+
+    /**
+     * Adds the batch's newest seen-time as a sample. Call once per batch, on the SDK callback,
+     * with {@code hostMillis} taken as the batch arrived.
+     */
+    void sync(TagData[] tags, long hostMillis) {
+        long newest = 0;
+        for (TagData tag : tags) {
+            if (tag != null) newest = Math.max(newest, seenTime(tag));
+        }
+        sync(newest, hostMillis);
+    }
+
+    synchronized void sync(long readerTime, long hostMillis) {
+        arrival = hostMillis;
+        if (readerTime <= 0) return;
+        // Without a fit the step cannot be measured, so only a seen-time before the first sample counts
+        if (Double.isNaN(slope) ? readerTime < firstReader : (lastReader - readerTime) * slope > BUCKET_MILLIS) {
+            reset();
+        }
+        if (lastReader == 0) firstReader = readerTime;
+        lastReader = Math.max(lastReader, readerTime);
+        long sampleBucket = hostMillis / BUCKET_MILLIS;
+        double residual = Double.isNaN(slope) ? 0 : hostMillis - predict(readerTime);
+        if (sampleBucket != bucket) {
+            if (bucket >= 0) addAnchor(bucketReader, bucketHost);
+            bucket = sampleBucket;
+        } else if (residual >= bucketResidual) {
+            return;
+        }
+        bucketReader = readerTime;
+        bucketHost = hostMillis;
+        bucketResidual = residual;
+    }
+
+    /**
+     * @param readerTime A seen-time from {@link #seenTime(TagData)}.
+     * @return The read's host time; never later than the arrival of the latest batch.
+     */
+    synchronized long toHost(long readerTime) {
+        if (readerTime <= 0 || Double.isNaN(slope)) return arrival;
+        return Math.min(arrival, Math.round(predict(readerTime)));
+    }
+
+    /** Host milliseconds per reader time unit, or NaN before the first fit. */
+    synchronized double slope() {
+        return slope;
+    }
+
+    /** How much faster the reader clock runs than the host's, in parts per million, or NaN before the first fit. */
+    synchronized double driftPpm() {
+        if (Double.isNaN(slope) || slope <= 0) return Double.NaN;
+        // The reader's unit is the power of 1000 of a millisecond nearest the fitted slope
+        double nominal = Math.pow(1000, Math.round(Math.log10(slope) / 3));
+        return (nominal / slope - 1) * 1e6;
+    }
+
+    synchronized String report() {
+        if (Double.isNaN(slope)) return "Reader clock: not fitted yet, batch arrival times used (" + resets + " resets)";
+        return String.format(Locale.US, "Reader clock: %d anchors, drift %+.0f ppm, %d resets",
+                anchors, driftPpm(), resets);
+    }
+
+    private double predict(long readerTime) {
+        return intercept + slope * (readerTime - origin);
+    }
+
+    private void addAnchor(long readerTime, long hostMillis) {
+        if (anchors == 0) origin = readerTime;
+        anchorReader[nextAnchor] = readerTime - origin;
+        anchorHost[nextAnchor] = hostMillis;
+        nextAnchor = (nextAnchor + 1) % ANCHORS;
+        if (anchors < ANCHORS) anchors++;
+        fit();
+    }
+
+    private void fit() {
+        if (anchors < 2) return;
+        boolean[] inlier = new boolean[anchors];
+        Arrays.fill(inlier, true);
+        double fitted = leastSquares(inlier);
+        if (Double.isNaN(fitted)) return;
+        // A bucket inside a stall has only late pairs; drop anchors far above the median delay and refit
+        double[] residuals = new double[anchors];
+        for (int i = 0; i < anchors; i++) residuals[i] = anchorHost[i] - fitted * anchorReader[i];
+        double[] sorted = residuals.clone();
+        Arrays.sort(sorted);
+        double median = sorted[anchors / 2];
+        int kept = 0;
+        for (int i = 0; i < anchors; i++) {
+            inlier[i] = residuals[i] - median <= OUTLIER_MILLIS;
+            if (inlier[i]) kept++;
+        }
+        if (kept < anchors && kept >= 2) {
+            double refitted = leastSquares(inlier);
+            if (!Double.isNaN(refitted)) fitted = refitted;
+        }
+        slope = fitted;
+        // Through the anchor with the least delay rather than the mean, which carries the average delay
+        double lowest = Double.MAX_VALUE;
+        for (int i = 0; i < anchors; i++) {
+            lowest = Math.min(lowest, anchorHost[i] - slope * anchorReader[i]);
+        }
+        intercept = lowest;
+    }
+
+    /** Least-squares slope through the anchors marked in {@code use}, or NaN if they give none. */
+    private double leastSquares(boolean[] use) {
+        int count = 0;
+        double meanReader = 0;
+        double meanHost = 0;
+        for (int i = 0; i < anchors; i++) {
+            if (!use[i]) continue;
+            meanReader += anchorReader[i];
+            meanHost += anchorHost[i];
+            count++;
+        }
+        meanReader /= count;
+        meanHost /= count;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < anchors; i++) {
+            if (!use[i]) continue;
+            double dr = anchorReader[i] - meanReader;
+            covariance += dr * (anchorHost[i] - meanHost);
+            variance += dr * dr;
+        }
+        if (variance <= 0 || covariance <= 0) return Double.NaN;
+        return covariance / variance;
+    }
+
+    private void reset() {
+        anchors = 0;
+        nextAnchor = 0;
+        bucket = -1;
+        slope = Double.NaN;
+        lastReader = 0;
+        resets++;
+    }
+}
@@ -0,0 +1,301 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.zebra.rfid.api3.InvalidUsageException;
+import com.zebra.rfid.api3.OperationFailureException;
+import com.zebra.rfid.api3.RFIDReader;
+import com.zebra.rfid.api3.ReaderDevice;
+import com.zebra.rfid.api3.RfidEventsListener;
+import com.zebra.rfid.api3.RfidReadEvents;
+import com.zebra.rfid.api3.RfidStatusEvents;
+import com.zebra.rfid.api3.STATUS_EVENT_TYPE;
+import com.zebra.rfid.api3.TagData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps several readers connected at once, e.g. two sleds paired to one packing station host.
+ * <p>
+ * Every reader gets its own event listener and its own ingest thread, so a busy reader never
+ * queues behind another. Ingest threads share one merged session view, a concurrent EPC map
+ * that records which reader saw each tag first; the map is the only shared state, so ingest
+ * throughput grows with the number of readers. Reads and first sightings are counted per
+ * reader for rate attribution.
+ */
+class ReaderManager {
+    private static final String TAG = "ReaderManager";
+    /** Tags fetched from a reader per read event. */
+    private static final int READ_BATCH = 100;
+
+    /** Receives each batch on the ingest thread of the reader that read it. */
+    interface Listener {
+        /**
+         * @param firstSeen Tags of the batch not seen by any reader before, in batch order.
+         */
+        void onTags(Channel channel, TagData[] tags, List<String> firstSeen);
+    }
+
+    /** One connected reader, or an external channel fed by the caller. */
+    final class Channel {
+        final String name;
+        /** Null for external channels. */
+        final RFIDReader reader;
+        private final ExecutorService ingest;
+        private final ChannelEventHandler eventHandler;
+        /** Maps this reader's seen-times onto the host clock; synced on the SDK callback. */
+        final ReaderClock clock = new ReaderClock();
+        /** Written by the ingest thread only. */
+        private volatile long reads;
+        private volatile long firstSeen;
+        private volatile long startNanos = System.nanoTime();
+
+        private Channel(String name, RFIDReader reader) {
+            this.name = name;
+            this.reader = reader;
+            this.ingest = Executors.newSingleThreadExecutor(r -> new Thread(r, "ingest-" + name));
+            this.eventHandler = reader != null ? new ChannelEventHandler(this) : null;
+        }
+
+        /** Queues a batch of EPCs read by an external channel; the listener is not called. */
+        void submit(final String[] epcs) {
+            post(() -> ingestEpcs(this, epcs));
+        }
+
+        private void submit(final TagData[] tags) {
+            post(() -> ingestTags(this, tags));
+        }
+
+        /**
+         * Runs {@code task} on the ingest thread.
+         * @return False if the channel was removed, in which case the task is dropped.
+         */
+        private boolean post(Runnable task) {
+            try {
+                ingest.execute(task);
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        long getReads() {
+            return reads;
+        }
+
+        /** Tags this reader saw before any other reader. */
+        long getFirstSeen() {
+            return firstSeen;
+        }
+
+        /** Reads per second since the channel was added or last reset. */
+        double readRate() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            return seconds > 0 ? reads / seconds : 0;
+        }
+
+        /** Restarts the counters on the ingest thread, after the batches already queued. */
+        private void reset() {
+            post(() -> {
+                reads = 0;
+                firstSeen = 0;
+                startNanos = System.nanoTime();
+            });
+        }
+    }
+
+    private final class ChannelEventHandler implements RfidEventsListener {
+        private final Channel channel;
+
+        ChannelEventHandler(Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void eventReadNotify(RfidReadEvents e) {
+            TagData[] tags = channel.reader.Actions.getReadTags(READ_BATCH);
+            if (tags == null) return;
+            channel.clock.sync(tags, SystemClock.elapsedRealtime());
+            channel.submit(tags);
+        }
+
+        @Override
+        public void eventStatusNotify(RfidStatusEvents rfidStatusEvents) {
+            if (rfidStatusEvents == null || rfidStatusEvents.StatusEventData == null) return;
+            if (rfidStatusEvents.StatusEventData.getStatusEventType() == STATUS_EVENT_TYPE.DISCONNECTION_EVENT) {
+                Log.d(TAG, channel.name + " disconnected");
+                channel.post(() -> remove(channel));
+            }
+        }
+    }
+
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
+    /** Merged session view: EPC to the reader that saw it first. */
+    private final ConcurrentHashMap<String, Channel> merged = new ConcurrentHashMap<>(1024, 0.75f, 4);
+    private final Listener listener;
+
+    /** @param listener Receives every batch, or null when only counts are needed. */
+    ReaderManager(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Connects a reader and starts its listener and ingest thread.
+     * @return The existing channel if the reader is already managed.
+     */
+    Channel connect(ReaderDevice device) throws InvalidUsageException, OperationFailureException {
+        Channel existing = find(device.getName());
+        if (existing != null) return existing;
+        RFIDReader rfidReader = device.getRFIDReader();
+        if (!rfidReader.isConnected()) {
+            DiagnosticLog.attachTo(rfidReader);
+            rfidReader.connect();
+        }
+        Channel channel = new Channel(device.getName(), rfidReader);
+        TagBatch.configureReport(rfidReader);
+        rfidReader.Events.addEventsListener(channel.eventHandler);
+        rfidReader.Events.setTagReadEvent(true);
+        rfidReader.Events.setAttachTagDataWithReadEvent(false);
+        rfidReader.Events.setReaderDisconnectEvent(true);
+        channels.add(channel);
+        Log.d(TAG, "Connected " + channel.name + " (" + channels.size() + " readers)");
+        return channel;
+    }
+
+    /**
+     * Adds a channel fed with {@link Channel#submit(String[])}: a simulated reader, or a reader
+     * whose events are handled elsewhere but whose reads belong in the merged view.
+     */
+    Channel addExternal(String name) {
+        Channel channel = new Channel(name, null);
+        channels.add(channel);
+        return channel;
+    }
+
+    /** Starts a new merged session and inventory on every connected reader. */
+    void performInventory() {
+        clear();
+        for (Channel channel : channels) {
+            if (channel.reader == null) continue;
+            try {
+                channel.reader.Actions.Inventory.perform();
+            } catch (InvalidUsageException | OperationFailureException e) {
+                Log.e(TAG, "Error starting inventory on " + channel.name, e);
+            }
+        }
+    }
+
+    void stopInventory() {
+        for (Channel channel : channels) {
+            if (channel.reader == null) continue;
+            try {
+                channel.reader.Actions.Inventory.stop();
+            } catch (InvalidUsageException | OperationFailureException e) {
+                Log.e(TAG, "Error stopping inventory on " + channel.name, e);
+            }
+        }
+    }
+
+    List<Channel> getChannels() {
+        return new ArrayList<>(channels);
+    }
+
+    /** Unique tags across all readers this session. */
+    int mergedUniqueCount() {
+        return merged.size();
+    }
+
+    /** Starts a new session; per-reader counters restart once each reader's queued batches are in. */
+    void clear() {
+        merged.clear();
+        for (Channel channel : channels) channel.reset();
+    }
+
+    /** Per-reader rates and first sightings, plus the merged total. */
+    String report() {
+        StringBuilder sb = new StringBuilder();
+        double total = 0;
+        for (Channel channel : channels) {
+            double rate = channel.readRate();
+            total += rate;
+            sb.append(String.format(Locale.US, "%s: %d reads (%.1f/s), %d first seen%n",
+                    channel.name, channel.getReads(), rate, channel.getFirstSeen()));
+        }
+        sb.append(String.format(Locale.US, "Merged: %d unique, %.1f reads/s from %d readers",
+                merged.size(), total, channels.size()));
+        return sb.toString();
+    }
+
+    /** Waits for every ingest thread to drain its queue. */
+    void awaitIdle() throws InterruptedException {
+        for (Channel channel : channels) {
+            CountDownLatch latch = new CountDownLatch(1);
+            // A channel removed meanwhile has nothing left to drain
+            if (channel.post(latch::countDown)) latch.await();
+        }
+    }
+
+    /** Disconnects every reader and stops the ingest threads. */
+    void shutdown() {
+        for (Channel channel : channels) remove(channel);
+    }
+
+    private Channel find(String name) {
+        for (Channel channel : channels) {
+            if (channel.name.equals(name)) return channel;
+        }
+        return null;
+    }
+
+    private void remove(Channel channel) {
+        if (!channels.remove(channel)) return;
+        channel.ingest.shutdown();
+        if (channel.reader == null) return;
+        try {
+            channel.reader.Events.removeEventsListener(channel.eventHandler);
+            channel.reader.disconnect();
+        } catch (Exception e) {
+            Log.e(TAG, "Error disconnecting " + channel.name, e);
+        }
+    }
+
+    private void ingestTags(Channel channel, TagData[] tags) {
+        List<String> firstSeen = null;
+        int reads = 0;
+        for (TagData tag : tags) {
+            if (tag == null || tag.getTagID() == null) continue;
+            reads++;
+            if (merged.putIfAbsent(tag.getTagID(), channel) == null) {
+                if (firstSeen == null) firstSeen = new ArrayList<>();
+                firstSeen.add(tag.getTagID());
+            }
+        }
+        account(channel, reads, firstSeen);
+        if (listener != null) listener.onTags(channel, tags, firstSeen != null ? firstSeen : new ArrayList<>(0));
+    }
+
+    private void ingestEpcs(Channel channel, String[] epcs) {
+        List<String> firstSeen = null;
+        for (String epc : epcs) {
+            if (merged.putIfAbsent(epc, channel) == null) {
+                if (firstSeen == null) firstSeen = new ArrayList<>();
+                firstSeen.add(epc);
+            }
+        }
+        account(channel, epcs.length, firstSeen);
+    }
+
+    private static void account(Channel channel, int reads, List<String> firstSeen) {
+        channel.reads += reads;
+        if (firstSeen != null) channel.firstSeen += firstSeen.size();
+    }
+}
@@ -0,0 +1,97 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import com.zebra.rfid.api3.InvalidUsageException;
+import com.zebra.rfid.api3.OperationFailureException;
+import com.zebra.rfid.api3.RFIDReader;
+import com.zebra.rfid.api3.RFIDResults;
+import com.zebra.rfid.api3.TagAccess;
+import com.zebra.rfid.api3.TagData;
+
+/**
+ * {@link TagAccessPort} backed by the blocking {@code TagAccess.*Wait} calls of a connected reader.
+ */
+class ReaderTagAccessPort implements TagAccessPort {
+    private static final String TAG = "ReaderTagAccessPort";
+
+    private final RFIDReader reader;
+
+    ReaderTagAccessPort(RFIDReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public Prepared prepare(TagOperation operation) {
+        final TagAccess access = reader.Actions.TagAccess;
+        switch (operation.kind) {
+            case READ: {
+                // The params constructors take byte offsets and lengths
+                final TagAccess.ReadAccessParams params = access.new ReadAccessParams(
+                        operation.memoryBank, operation.wordOffset * 2, operation.wordCount * 2, operation.password);
+                return (epc, readData) -> run(() -> {
+                    TagData data = access.readWait(epc, params, null);
+                    if (readData != null && data != null && data.getMemoryBankData() != null) {
+                        readData.append(data.getMemoryBankData());
+                    }
+                });
+            }
+            case WRITE: {
+                final TagAccess.WriteAccessParams params = access.new WriteAccessParams(
+                        operation.memoryBank, operation.wordOffset * 2, operation.data.length, operation.password, operation.data);
+                return (epc, readData) -> run(() -> access.writeWait(epc, params, null, null));
+            }
+            case LOCK: {
+                final TagAccess.LockAccessParams params = lockParams(access, operation);
+                return (epc, readData) -> run(() -> access.lockWait(epc, params, null));
+            }
+            case KILL:
+            default: {
+                final TagAccess.KillAccessParams params = access.new KillAccessParams(operation.password);
+                return (epc, readData) -> run(() -> access.killWait(epc, params, null));
+            }
+        }
+    }
+
+    /** Lock parameters that change only the operation's field; every other field stays unchanged. */
+    static TagAccess.LockAccessParams lockParams(TagAccess access, TagOperation operation) {
+        // Starts with all five fields at LOCK_PRIVILEGE_NONE
+        TagAccess.LockAccessParams params = access.new LockAccessParams();
+        params.setAccessPassword(operation.password);
+        params.setLockPrivilege(operation.lockField, operation.lockPrivilege);
+        return params;
+    }
+
+    private interface ReaderCall {
+        void call() throws InvalidUsageException, OperationFailureException;
+    }
+
+    private static TagOperation.Status run(ReaderCall call) {
+        try {
+            call.call();
+            return TagOperation.Status.SUCCESS;
+        } catch (OperationFailureException e) {
+            return toStatus(e);
+        } catch (InvalidUsageException e) {
+            Log.e(TAG, "Invalid tag access: " + e.getInfo());
+            return TagOperation.Status.REJECTED;
+        }
+    }
+
+    private static TagOperation.Status toStatus(OperationFailureException e) {
+        RFIDResults result = e.getResults();
+        if (result == RFIDResults.RFID_ACCESS_TAG_NOT_FOUND
+                || result == RFIDResults.RFID_ACCESS_NO_RESPONSE_FROM_TAG
+                || result == RFIDResults.RFID_ACCESS_INSUFFIFICENT_POWER
+                || result == RFIDResults.RFID_API_COMMAND_TIMEOUT) {
+            return TagOperation.Status.NO_RESPONSE;
+        }
+        if (result == RFIDResults.RFID_ACCESS_TAG_MEMORY_LOCKED_ERROR) return TagOperation.Status.MEMORY_LOCKED;
+        if (result == RFIDResults.RFID_ACCESS_TAG_PASSWORD_ERROR
+                || result == RFIDResults.RFID_ACCESS_ZERO_KILL_PASSWORD_ERROR) {
+            return TagOperation.Status.PASSWORD_ERROR;
+        }
+        Log.e(TAG, "Tag access failed: " + e.getStatusDescription());
+        return TagOperation.Status.FAILED;
+    }
+}
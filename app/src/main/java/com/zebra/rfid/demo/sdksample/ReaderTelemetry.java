@@ -0,0 +1,157 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stream of reader status events with per-kind counters.
+ * <p>
+ * Besides counting, it keeps the derived state the handler acts on: on-air time from
+ * inventory start / stop pairs, the last battery report and the last temperature alarm.
+ * Samples go to listeners on the thread that recorded them.
+ */
+class ReaderTelemetry {
+    private static final String TAG = "ReaderTelemetry";
+
+    enum Kind {
+        INVENTORY_START,
+        INVENTORY_STOP,
+        BUFFER_FULL_WARNING,
+        BUFFER_FULL,
+        BATTERY,
+        TEMPERATURE,
+        POWER,
+        DISCONNECTION,
+        OTHER
+    }
+
+    static final class Sample {
+        final Kind kind;
+        /** {@code SystemClock.elapsedRealtime()} when the event arrived. */
+        final long time;
+        /**
+         * Battery level in percent, temperature in degrees C, tags drained for a buffer
+         * warning, or on-air milliseconds of the operation for INVENTORY_STOP; 0 otherwise.
+         */
+        final int value;
+        /** Alarm level, charging state or event name; may be empty. */
+        final String detail;
+
+        Sample(Kind kind, long time, int value, String detail) {
+            this.kind = kind;
+            this.time = time;
+            this.value = value;
+            this.detail = detail;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + value + (detail.isEmpty() ? "" : " " + detail);
+        }
+    }
+
+    interface Listener {
+        void onTelemetry(Sample sample);
+    }
+
+    private final AtomicLongArray counts = new AtomicLongArray(Kind.values().length);
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    /** Start of the operation on air, or -1. Guarded by this. */
+    private long onAirSince = -1;
+    private long onAirMillis;
+    private volatile int batteryLevel = -1;
+    private volatile boolean charging;
+    private volatile int temperature = Integer.MIN_VALUE;
+    private volatile String alarmLevel = "";
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void onInventoryStart(long now) {
+        synchronized (this) {
+            if (onAirSince < 0) onAirSince = now;
+        }
+        publish(new Sample(Kind.INVENTORY_START, now, 0, ""));
+    }
+
+    void onInventoryStop(long now) {
+        long operation = 0;
+        synchronized (this) {
+            if (onAirSince >= 0) {
+                operation = now - onAirSince;
+                onAirMillis += operation;
+                onAirSince = -1;
+            }
+        }
+        publish(new Sample(Kind.INVENTORY_STOP, now, (int) operation, ""));
+    }
+
+    void onBattery(long now, int level, boolean isCharging, String cause) {
+        batteryLevel = level;
+        charging = isCharging;
+        publish(new Sample(Kind.BATTERY, now, level, (isCharging ? "charging" : "discharging")
+                + (cause != null && !cause.isEmpty() ? " " + cause : "")));
+    }
+
+    void onTemperature(long now, int degrees, String level) {
+        temperature = degrees;
+        alarmLevel = level;
+        publish(new Sample(Kind.TEMPERATURE, now, degrees, level));
+    }
+
+    /** Records any other event; {@code value} as described on {@link Sample#value}. */
+    void onEvent(Kind kind, long now, int value, String detail) {
+        publish(new Sample(kind, now, value, detail != null ? detail : ""));
+    }
+
+    long count(Kind kind) {
+        return counts.get(kind.ordinal());
+    }
+
+    /** Time an inventory has been running on air, including one in progress. */
+    synchronized long onAirMillis(long now) {
+        return onAirMillis + (onAirSince >= 0 ? now - onAirSince : 0);
+    }
+
+    /** Last reported battery level in percent, or -1. */
+    int batteryLevel() {
+        return batteryLevel;
+    }
+
+    /** Last reported temperature in degrees C, or {@link Integer#MIN_VALUE}. */
+    int temperature() {
+        return temperature;
+    }
+
+    String report(long now) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.US, "On air %.1f s", onAirMillis(now) / 1000.0));
+        if (batteryLevel >= 0) out.append(", battery ").append(batteryLevel).append('%').append(charging ? " (charging)" : "");
+        if (temperature != Integer.MIN_VALUE) out.append(", ").append(temperature).append(" C ").append(alarmLevel);
+        for (Kind kind : Kind.values()) {
+            long count = counts.get(kind.ordinal());
+            if (count > 0) out.append('\n').append(kind).append(": ").append(count);
+        }
+        return out.toString();
+    }
+
+    private void publish(Sample sample) {
+        counts.incrementAndGet(sample.kind.ordinal());
+        for (Listener listener : listeners) {
+            try {
+                listener.onTelemetry(sample);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Telemetry listener failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import com.zebra.scannercontrol.DCSSDKDefs;
+import com.zebra.scannercontrol.SDKHandler;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serial queue for scanner SDK commands, separate from the RFID executor so trigger, beeper
+ * and LED commands never wait behind connection or tag work.
+ * <p>
+ * The {@code <inArgs>} XML of argument-less commands such as trigger pulls depends only on the
+ * scanner and is built once per scanner; commands with arguments build theirs directly, as a
+ * cache lookup would cost as much. Commands run one at a time on the queue thread, which reuses a single {@code outXML} buffer; results, including
+ * any RSM attributes in the reply, are delivered through a {@link CompletableFuture}.
+ * Queue wait and execution latency are tracked per opcode.
+ */
+class ScannerCommandQueue {
+    private static final String TAG = "ScannerCommandQueue";
+
+    /** Beeper / LED codes for {@link DCSSDKDefs.DCSSDK_COMMAND_OPCODE#DCSSDK_SET_ACTION}. */
+    static final int ACTION_BEEP_HIGH_SHORT_1 = 0;
+    static final int ACTION_LED_GREEN_ON = 43;
+    static final int ACTION_LED_GREEN_OFF = 42;
+
+    /** Outcome of one command. */
+    static final class CommandResult {
+        final DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode;
+        final int scannerId;
+        final DCSSDKDefs.DCSSDK_RESULT result;
+        final String outXml;
+        /** RSM attribute id to value, parsed from {@link #outXml}; empty when the reply has none. */
+        final Map<Integer, String> attributes;
+        final long queuedNanos;
+        final long executionNanos;
+
+        CommandResult(DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode, int scannerId, DCSSDKDefs.DCSSDK_RESULT result,
+                      String outXml, Map<Integer, String> attributes, long queuedNanos, long executionNanos) {
+            this.opCode = opCode;
+            this.scannerId = scannerId;
+            this.result = result;
+            this.outXml = outXml;
+            this.attributes = attributes;
+            this.queuedNanos = queuedNanos;
+            this.executionNanos = executionNanos;
+        }
+
+        boolean isSuccess() {
+            return result == DCSSDKDefs.DCSSDK_RESULT.DCSSDK_RESULT_SUCCESS;
+        }
+    }
+
+    private static final class NoArgsXml {
+        final int scannerId;
+        final String xml;
+
+        NoArgsXml(int scannerId) {
+            this.scannerId = scannerId;
+            this.xml = "<inArgs><scannerID>" + scannerId + "</scannerID></inArgs>";
+        }
+    }
+
+    private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor();
+    /** {@code <inArgs>} of argument-less commands for the scanner they were last sent to. */
+    private volatile NoArgsXml noArgsXml;
+    private final Map<DCSSDKDefs.DCSSDK_COMMAND_OPCODE, LatencyHistogram> executionLatency =
+            Collections.synchronizedMap(new EnumMap<>(DCSSDKDefs.DCSSDK_COMMAND_OPCODE.class));
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+    /** Reused by the queue thread only. */
+    private final StringBuilder outXml = new StringBuilder(256);
+    private volatile SDKHandler sdkHandler;
+
+    /** Sets the SDK instance commands run against, or null while no scanner SDK is set up. */
+    void setSdkHandler(SDKHandler sdkHandler) {
+        this.sdkHandler = sdkHandler;
+    }
+
+    CompletableFuture<CommandResult> pullTrigger(int scannerId) {
+        return submit(DCSSDKDefs.DCSSDK_COMMAND_OPCODE.DCSSDK_DEVICE_PULL_TRIGGER, scannerId, null);
+    }
+
+    CompletableFuture<CommandResult> releaseTrigger(int scannerId) {
+        return submit(DCSSDKDefs.DCSSDK_COMMAND_OPCODE.DCSSDK_DEVICE_RELEASE_TRIGGER, scannerId, null);
+    }
+
+    /** Runs a beeper or LED action, e.g. {@link #ACTION_LED_GREEN_ON}. */
+    CompletableFuture<CommandResult> setAction(int scannerId, int action) {
+        return submit(DCSSDKDefs.DCSSDK_COMMAND_OPCODE.DCSSDK_SET_ACTION, scannerId,
+                "<cmdArgs><arg-int>" + action + "</arg-int></cmdArgs>");
+    }
+
+    /** Reads RSM attributes; values arrive in {@link CommandResult#attributes}. */
+    CompletableFuture<CommandResult> getAttributes(int scannerId, int... attributeIds) {
+        StringBuilder ids = new StringBuilder();
+        for (int id : attributeIds) {
+            if (ids.length() > 0) ids.append(',');
+            ids.append(id);
+        }
+        return submit(DCSSDKDefs.DCSSDK_COMMAND_OPCODE.DCSSDK_RSM_ATTR_GET, scannerId,
+                "<cmdArgs><arg-xml><attrib_list>" + ids + "</attrib_list></arg-xml></cmdArgs>");
+    }
+
+    /**
+     * Queues a command.
+     * @param cmdArgs Inner {@code <cmdArgs>} XML, or null for commands without arguments.
+     * @return Completes on the queue thread; never completes exceptionally.
+     */
+    CompletableFuture<CommandResult> submit(final DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode, final int scannerId, String cmdArgs) {
+        final String inXml = inXml(scannerId, cmdArgs);
+        final long queuedAt = System.nanoTime();
+        final CompletableFuture<CommandResult> future = new CompletableFuture<>();
+        if (commandExecutor.isShutdown()) {
+            future.complete(new CommandResult(opCode, scannerId, DCSSDKDefs.DCSSDK_RESULT.DCSSDK_RESULT_SCANNER_NOT_ACTIVE,
+                    "", Collections.emptyMap(), 0, 0));
+            return future;
+        }
+        commandExecutor.execute(() -> future.complete(execute(opCode, scannerId, inXml, queuedAt)));
+        return future;
+    }
+
+    /** Per-opcode execution latency and overall queue wait. */
+    String report() {
+        StringBuilder sb = new StringBuilder("queue wait ").append(queueLatency);
+        synchronized (executionLatency) {
+            for (Map.Entry<DCSSDKDefs.DCSSDK_COMMAND_OPCODE, LatencyHistogram> entry : executionLatency.entrySet()) {
+                sb.append('\n').append(entry.getKey()).append(": ").append(entry.getValue());
+            }
+        }
+        return sb.toString();
+    }
+
+    void shutdown() {
+        commandExecutor.shutdownNow();
+    }
+
+    private String inXml(int scannerId, String cmdArgs) {
+        if (cmdArgs != null) return "<inArgs><scannerID>" + scannerId + "</scannerID>" + cmdArgs + "</inArgs>";
+        NoArgsXml cached = noArgsXml;
+        if (cached == null || cached.scannerId != scannerId) {
+            cached = new NoArgsXml(scannerId);
+            noArgsXml = cached;
+        }
+        return cached.xml;
+    }
+
+    private CommandResult execute(DCSSDKDefs.DCSSDK_COMMAND_OPCODE opCode, int scannerId, String inXml, long queuedAt) {
+        long start = System.nanoTime();
+        queueLatency.record(start - queuedAt);
+        SDKHandler handler = sdkHandler;
+        DCSSDKDefs.DCSSDK_RESULT result;
+        outXml.setLength(0);
+        if (handler == null) {
+            result = DCSSDKDefs.DCSSDK_RESULT.DCSSDK_RESULT_SCANNER_NOT_ACTIVE;
+        } else {
+            try {
+                result = handler.dcssdkExecuteCommandOpCodeInXMLForScanner(opCode, inXml, outXml, scannerId);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error executing " + opCode, e);
+                result = DCSSDKDefs.DCSSDK_RESULT.DCSSDK_RESULT_FAILURE;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        LatencyHistogram histogram;
+        synchronized (executionLatency) {
+            histogram = executionLatency.get(opCode);
+            if (histogram == null) {
+                histogram = new LatencyHistogram();
+                executionLatency.put(opCode, histogram);
+            }
+        }
+        histogram.record(elapsed);
+        if (result != DCSSDKDefs.DCSSDK_RESULT.DCSSDK_RESULT_SUCCESS) {
+            Log.d(TAG, opCode + " on scanner " + scannerId + ": " + result);
+        }
+        String reply = outXml.toString();
+        return new CommandResult(opCode, scannerId, result, reply, parseAttributes(reply), start - queuedAt, elapsed);
+    }
+
+    /** Extracts {@code <attribute><id>..</id>..<value>..</value></attribute>} pairs from an RSM reply. */
+    static Map<Integer, String> parseAttributes(String xml) {
+        int pos = xml.indexOf("<attribute>");
+        if (pos < 0) return Collections.emptyMap();
+        Map<Integer, String> attributes = new LinkedHashMap<>();
+        while (pos >= 0) {
+            int end = xml.indexOf("</attribute>", pos);
+            if (end < 0) break;
+            String id = element(xml, "id", pos, end);
+            String value = element(xml, "value", pos, end);
+            if (id != null) {
+                try {
+                    attributes.put(Integer.parseInt(id.trim()), value);
+                } catch (NumberFormatException e) {
+                    Log.e(TAG, "Bad attribute id " + id);
+                }
+            }
+            pos = xml.indexOf("<attribute>", end);
+        }
+        return attributes;
+    }
+
+    private static String element(String xml, String name, int from, int to) {
+        int start = xml.indexOf("<" + name + ">", from);
+        if (start < 0 || start > to) return null;
+        start += name.length() + 2;
+        int end = xml.indexOf("</" + name + ">", start);
+        return end < 0 || end > to ? null : xml.substring(start, end);
+    }
+}
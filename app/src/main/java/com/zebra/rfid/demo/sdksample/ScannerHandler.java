@@ -1,6 +1,5 @@
 package com.zebra.rfid.demo.sdksample;
 
-import android.util.Log;
 import com.zebra.scannercontrol.DCSScannerInfo;
 import com.zebra.scannercontrol.FirmwareUpdateEvent;
 import com.zebra.scannercontrol.IDcsSdkApiDelegate;
@@ -18,12 +17,12 @@ public class ScannerHandler implements IDcsSdkApiDelegate {
 
     @Override
     public void dcssdkEventScannerAppeared(DCSScannerInfo dcsScannerInfo) {
-        Log.d(TAG, "Scanner appeared: " + dcsScannerInfo.getScannerName());
+        DiagnosticLog.d(TAG, "Scanner appeared: {}", dcsScannerInfo.getScannerName());
     }
 
     @Override
     public void dcssdkEventScannerDisappeared(int i) {
-        Log.d(TAG, "Scanner disappeared, ID: " + i);
+        DiagnosticLog.d(TAG, "Scanner disappeared, ID: {}", i);
         if (context != null) {
             context.setScanButtonEnabled(false);
         }
@@ -31,7 +30,7 @@ public class ScannerHandler implements IDcsSdkApiDelegate {
 
     @Override
     public void dcssdkEventCommunicationSessionEstablished(DCSScannerInfo dcsScannerInfo) {
-        Log.d(TAG, "Communication session established: " + dcsScannerInfo.getScannerName());
+        DiagnosticLog.d(TAG, "Communication session established: {}", dcsScannerInfo.getScannerName());
         if(context != null) {
             context.sendToast("Scanner established: " + dcsScannerInfo.getScannerName());
             context.setScanButtonEnabled(true);
@@ -40,7 +39,7 @@ public class ScannerHandler implements IDcsSdkApiDelegate {
 
     @Override
     public void dcssdkEventCommunicationSessionTerminated(int i) {
-        Log.d(TAG, "Communication session terminated, ID: " + i);
+        DiagnosticLog.d(TAG, "Communication session terminated, ID: {}", i);
         if (context != null) {
             context.setScanButtonEnabled(false);
         }
@@ -48,11 +47,10 @@ public class ScannerHandler implements IDcsSdkApiDelegate {
 
     @Override
     public void dcssdkEventBarcode(byte[] barcodeData, int barcodeType, int fromScannerID) {
-        String s = new String(barcodeData);
         if (context != null) {
-            context.barcodeData(s);
+            context.ingestBarcode(BarcodeIngest.Source.SCANNER_SDK, BarcodeIngest.Symbology.fromScannerType(barcodeType), barcodeData);
         }
-        Log.d(TAG, "Barcode scanned: " + s);
+        DiagnosticLog.d(TAG, "Barcode scanned: type {}, {} bytes", barcodeType, barcodeData.length);
     }
 
     @Override
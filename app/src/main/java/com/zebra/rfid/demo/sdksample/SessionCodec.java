@@ -0,0 +1,328 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compact columnar encoding of session records, shared by the spill journal and uploads.
+ * <p>
+ * Records are sorted by EPC and written column by column:
+ * <ul>
+ * <li>EPCs as packed bytes (hex digits become nibbles). An EPC that differs from the previous
+ * one only in its last 8 bytes is written as the varint difference of those bytes, so runs of
+ * serialized EPCs cost a byte or two; any other EPC is front-coded against the previous one.</li>
+ * <li>Peak RSSI as zigzag varint deltas.</li>
+ * <li>Read counts as varints.</li>
+ * <li>First-seen times as zigzag varint delta-of-deltas; last-seen times as the zigzag varint
+ * offset from first-seen.</li>
+ * </ul>
+ * Layout: {@code [int magic][byte flags][varint count]} then the columns. If any EPC is not
+ * even-length upper-case hex, EPCs are stored as their ASCII bytes instead of packed nibbles,
+ * so every EPC decodes exactly as it was given. Decoding returns the records in EPC order.
+ * <p>
+ * The magic doubles as the format version: a layout change takes a new magic, and
+ * {@link #isEncoding} tells the current layout from older ones. Decoding rejects input that
+ * is cut short or inconsistent; the carriers (gzip for uploads, the journal's CRC for spill
+ * blocks) catch corruption that still parses.
+ */
+final class SessionCodec {
+    private static final int MAGIC = 0x54534331; // "TSC1"
+    private static final int FLAG_PACKED_HEX = 1;
+    /** Trailing EPC bytes that may be delta-encoded as a number. */
+    private static final int TAIL_BYTES = 8;
+
+    private SessionCodec() {
+    }
+
+    static byte[] encode(Collection<TagSessionStore.Entry> records) {
+        int count = records.size();
+        TagSessionStore.Entry[] entries = records.toArray(new TagSessionStore.Entry[0]);
+        boolean packed = true;
+        byte[][] epcs = new byte[count][];
+        byte[] scratch = new byte[EpcCodec.MAX_EPC_BYTES];
+        for (int i = 0; i < count && packed; i++) {
+            int length = EpcCodec.hexToBytes(entries[i].epc, scratch, 0);
+            // Packed nibbles decode as upper case, so lower-case EPCs keep their ASCII bytes
+            if (length < 0 || hasLowerCase(entries[i].epc)) packed = false;
+            else epcs[i] = Arrays.copyOf(scratch, length);
+        }
+        if (!packed) {
+            for (int i = 0; i < count; i++) epcs[i] = entries[i].epc.getBytes(StandardCharsets.US_ASCII);
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> compareUnsigned(epcs[a], epcs[b]));
+
+        Writer out = new Writer(16 + count * 8);
+        out.putInt(MAGIC);
+        out.put(packed ? FLAG_PACKED_HEX : 0);
+        out.putVarLong(count);
+
+        byte[] previous = null;
+        for (int i = 0; i < count; i++) {
+            byte[] epc = epcs[order[i]];
+            long delta = previous != null ? tailDelta(previous, epc) : 0;
+            if (delta > 0) {
+                out.putVarLong((delta << 1) | 1);
+            } else {
+                int shared = previous != null ? sharedPrefix(previous, epc) : 0;
+                out.putVarLong((long) shared << 1);
+                out.putVarLong(epc.length - shared);
+                out.put(epc, shared, epc.length - shared);
+            }
+            previous = epc;
+        }
+        int previousRssi = 0;
+        for (int i = 0; i < count; i++) {
+            short rssi = entries[order[i]].peakRssi;
+            out.putVarLong(zigzag(rssi - previousRssi));
+            previousRssi = rssi;
+        }
+        for (int i = 0; i < count; i++) {
+            out.putVarLong(entries[order[i]].reads & 0xFFFFFFFFL);
+        }
+        long previousTime = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < count; i++) {
+            long time = entries[order[i]].firstSeen;
+            long delta = time - previousTime;
+            out.putVarLong(zigzag(delta - previousDelta));
+            previousTime = time;
+            previousDelta = delta;
+        }
+        for (int i = 0; i < count; i++) {
+            TagSessionStore.Entry entry = entries[order[i]];
+            out.putVarLong(zigzag(entry.lastSeen - entry.firstSeen));
+        }
+        return out.toByteArray();
+    }
+
+    /** True if {@code data} starts like an encoding in the current layout. */
+    static boolean isEncoding(byte[] data) {
+        return data.length >= 4 && new Reader(data, 0, 4).getInt() == MAGIC;
+    }
+
+    /**
+     * @throws IllegalArgumentException If {@code data} is not exactly one complete encoding.
+     */
+    static List<TagSessionStore.Entry> decode(byte[] data, int offset, int length) {
+        Reader in = new Reader(data, offset, offset + length);
+        if (in.getInt() != MAGIC) throw new IllegalArgumentException("Not a session encoding");
+        boolean packed = (in.get() & FLAG_PACKED_HEX) != 0;
+        long count = in.getVarLong();
+        if (count < 0 || count > length) throw new IllegalArgumentException("Bad record count " + count);
+        int n = (int) count;
+
+        String[] epcs = new String[n];
+        byte[] previous = new byte[0];
+        for (int i = 0; i < n; i++) {
+            long token = in.getVarLong();
+            byte[] epc;
+            if ((token & 1) != 0) {
+                epc = previous.clone();
+                if (token >>> 1 == 0 || !addToTail(epc, token >>> 1)) {
+                    throw new IllegalArgumentException("Bad EPC delta at record " + i);
+                }
+            } else {
+                long shared = token >>> 1;
+                long suffix = in.getVarLong();
+                if (shared > previous.length || suffix < 0 || shared + suffix > EpcCodec.MAX_EPC_BYTES * 2) {
+                    throw new IllegalArgumentException("Bad EPC at record " + i);
+                }
+                epc = Arrays.copyOf(previous, (int) (shared + suffix));
+                in.get(epc, (int) shared, (int) suffix);
+            }
+            epcs[i] = packed ? EpcCodec.toHex(epc, 0, epc.length) : new String(epc, StandardCharsets.US_ASCII);
+            previous = epc;
+        }
+        short[] rssi = new short[n];
+        int previousRssi = 0;
+        for (int i = 0; i < n; i++) {
+            previousRssi += (int) unzigzag(in.getVarLong());
+            rssi[i] = (short) previousRssi;
+        }
+        int[] reads = new int[n];
+        for (int i = 0; i < n; i++) {
+            long value = in.getVarLong();
+            if (value > 0xFFFFFFFFL) throw new IllegalArgumentException("Bad read count at record " + i);
+            reads[i] = (int) value;
+        }
+        long previousTime = 0;
+        long previousDelta = 0;
+        List<TagSessionStore.Entry> entries = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            previousDelta += unzigzag(in.getVarLong());
+            previousTime += previousDelta;
+            TagSessionStore.Entry entry = new TagSessionStore.Entry(epcs[i], rssi[i], previousTime);
+            entry.reads = reads[i];
+            entries.add(entry);
+        }
+        for (int i = 0; i < n; i++) {
+            TagSessionStore.Entry entry = entries.get(i);
+            entry.lastSeen = entry.firstSeen + unzigzag(in.getVarLong());
+        }
+        if (in.remaining() != 0) throw new IllegalArgumentException(in.remaining() + " bytes after the records");
+        return entries;
+    }
+
+    static List<TagSessionStore.Entry> decode(byte[] data) {
+        return decode(data, 0, data.length);
+    }
+
+    /**
+     * Difference of the trailing bytes of {@code epc} over {@code previous} when both have the
+     * same length and leading bytes, or 0 if the EPC must be front-coded instead.
+     */
+    private static long tailDelta(byte[] previous, byte[] epc) {
+        if (previous.length != epc.length || epc.length == 0) return 0;
+        int tail = Math.min(TAIL_BYTES, epc.length);
+        int head = epc.length - tail;
+        for (int i = 0; i < head; i++) {
+            if (previous[i] != epc[i]) return 0;
+        }
+        long a = 0;
+        long b = 0;
+        for (int i = head; i < epc.length; i++) {
+            a = (a << 8) | (previous[i] & 0xFF);
+            b = (b << 8) | (epc[i] & 0xFF);
+        }
+        long delta = b - a;
+        // Sorted input keeps b >= a; deltas needing the top two bits are front-coded
+        return Long.compareUnsigned(b, a) > 0 && (delta >>> 62) == 0 ? delta : 0;
+    }
+
+    /** @return False if the sum does not fit the trailing bytes, which no encoder writes. */
+    private static boolean addToTail(byte[] epc, long delta) {
+        long carry = delta;
+        for (int i = epc.length - 1; i >= 0 && i >= epc.length - TAIL_BYTES && carry != 0; i--) {
+            long sum = (epc[i] & 0xFF) + (carry & 0xFF);
+            epc[i] = (byte) sum;
+            carry = (carry >>> 8) + (sum >>> 8);
+        }
+        return carry == 0;
+    }
+
+    private static boolean hasLowerCase(String epc) {
+        for (int i = 0; i < epc.length(); i++) {
+            char c = epc.charAt(i);
+            if (c >= 'a' && c <= 'z') return true;
+        }
+        return false;
+    }
+
+    private static int sharedPrefix(byte[] a, byte[] b) {
+        int max = Math.min(a.length, b.length);
+        int i = 0;
+        while (i < max && a[i] == b[i]) i++;
+        return i;
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        int max = Math.min(a.length, b.length);
+        for (int i = 0; i < max; i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return a.length - b.length;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void put(int b) {
+            ensure(1);
+            buffer[position++] = (byte) b;
+        }
+
+        void put(byte[] data, int offset, int length) {
+            ensure(length);
+            System.arraycopy(data, offset, buffer, position, length);
+            position += length;
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        /** Unsigned LEB128. */
+        void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        Reader(byte[] data, int offset, int limit) {
+            this.data = data;
+            this.position = offset;
+            this.limit = limit;
+        }
+
+        int get() {
+            if (position >= limit) throw new IllegalArgumentException("Truncated session encoding");
+            return data[position++] & 0xFF;
+        }
+
+        void get(byte[] out, int offset, int length) {
+            if (length > limit - position) throw new IllegalArgumentException("Truncated session encoding");
+            System.arraycopy(data, position, out, offset, length);
+            position += length;
+        }
+
+        int getInt() {
+            return (get() << 24) | (get() << 16) | (get() << 8) | get();
+        }
+
+        int remaining() {
+            return limit - position;
+        }
+
+        long getVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Bad varint");
+        }
+    }
+}
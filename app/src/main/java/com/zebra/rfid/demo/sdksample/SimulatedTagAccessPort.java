@@ -0,0 +1,131 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.LOCK_DATA_FIELD;
+import com.zebra.rfid.api3.LOCK_PRIVILEGE;
+import com.zebra.rfid.api3.MEMORY_BANK;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * In-memory {@link TagAccessPort} used to exercise {@link TagAccessBatch} without a reader.
+ * Each operation sleeps for a fixed air time and fails with a configurable probability,
+ * so retry handling and throughput figures can be checked on a desk. Accesses outside a
+ * memory bank are {@link TagOperation.Status#REJECTED} as the reader rejects them.
+ */
+class SimulatedTagAccessPort implements TagAccessPort {
+    private static final int USER_MEMORY_BYTES = 64;
+    private static final int TID_BYTES = 12;
+
+    /** Simulated tag memory. */
+    static final class SimulatedTag {
+        byte[] epc;
+        final byte[] tid = new byte[TID_BYTES];
+        final byte[] user = new byte[USER_MEMORY_BYTES];
+        boolean epcLocked;
+        boolean userLocked;
+        boolean killed;
+    }
+
+    private final Map<String, SimulatedTag> tags = new HashMap<>();
+    private final long airTimeMillis;
+    private final double failureRate;
+    private final Random random;
+
+    /**
+     * @param epcs EPCs of the tags in the simulated field.
+     * @param airTimeMillis Time each operation occupies the simulated radio.
+     * @param failureRate Probability (0..1) that an attempt gets no response from the tag.
+     * @param seed Seed for the failure generator, so runs are repeatable.
+     */
+    SimulatedTagAccessPort(Iterable<String> epcs, long airTimeMillis, double failureRate, long seed) {
+        this.airTimeMillis = airTimeMillis;
+        this.failureRate = failureRate;
+        this.random = new Random(seed);
+        for (String epc : epcs) {
+            SimulatedTag tag = new SimulatedTag();
+            tag.epc = new byte[epc.length() / 2];
+            EpcCodec.hexToBytes(epc, tag.epc, 0);
+            random.nextBytes(tag.tid);
+            tags.put(epc.toUpperCase(), tag);
+        }
+    }
+
+    /** Returns the simulated tag currently answering to {@code epc}, or null. */
+    synchronized SimulatedTag getTag(String epc) {
+        return tags.get(epc.toUpperCase());
+    }
+
+    @Override
+    public Prepared prepare(final TagOperation operation) {
+        return (epc, readData) -> {
+            if (airTimeMillis > 0) {
+                try {
+                    Thread.sleep(airTimeMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return TagOperation.Status.FAILED;
+                }
+            }
+            synchronized (SimulatedTagAccessPort.this) {
+                return apply(operation, epc.toUpperCase(), readData);
+            }
+        };
+    }
+
+    private TagOperation.Status apply(TagOperation operation, String epc, StringBuilder readData) {
+        SimulatedTag tag = tags.get(epc);
+        if (tag == null || tag.killed || random.nextDouble() < failureRate) {
+            return TagOperation.Status.NO_RESPONSE;
+        }
+        switch (operation.kind) {
+            case READ: {
+                byte[] bank = bank(tag, operation.memoryBank);
+                int start = operation.wordOffset * 2;
+                int length = operation.wordCount * 2;
+                if (bank == null || start + length > bank.length) return TagOperation.Status.REJECTED;
+                if (readData != null) readData.append(EpcCodec.toHex(bank, start, length));
+                return TagOperation.Status.SUCCESS;
+            }
+            case WRITE:
+                if (operation.memoryBank == MEMORY_BANK.MEMORY_BANK_EPC) {
+                    if (tag.epcLocked) return TagOperation.Status.MEMORY_LOCKED;
+                    tags.remove(epc);
+                    tag.epc = operation.data.clone();
+                    tags.put(EpcCodec.toHex(tag.epc, 0, tag.epc.length), tag);
+                    return TagOperation.Status.SUCCESS;
+                }
+                if (operation.memoryBank != MEMORY_BANK.MEMORY_BANK_USER) return TagOperation.Status.REJECTED;
+                if (tag.userLocked) return TagOperation.Status.MEMORY_LOCKED;
+                int start = operation.wordOffset * 2;
+                if (start + operation.data.length > tag.user.length) return TagOperation.Status.REJECTED;
+                System.arraycopy(operation.data, 0, tag.user, start, operation.data.length);
+                return TagOperation.Status.SUCCESS;
+            case LOCK: {
+                boolean locked = operation.lockPrivilege == LOCK_PRIVILEGE.LOCK_PRIVILEGE_READ_WRITE
+                        || operation.lockPrivilege == LOCK_PRIVILEGE.LOCK_PRIVILEGE_PERMA_LOCK;
+                if (operation.lockField == LOCK_DATA_FIELD.LOCK_EPC_MEMORY) tag.epcLocked = locked;
+                if (operation.lockField == LOCK_DATA_FIELD.LOCK_USER_MEMORY) tag.userLocked = locked;
+                return TagOperation.Status.SUCCESS;
+            }
+            case KILL:
+            default:
+                if (operation.password == 0) return TagOperation.Status.PASSWORD_ERROR;
+                tag.killed = true;
+                return TagOperation.Status.SUCCESS;
+        }
+    }
+
+    private static byte[] bank(SimulatedTag tag, MEMORY_BANK memoryBank) {
+        if (memoryBank == MEMORY_BANK.MEMORY_BANK_TID) return tag.tid;
+        if (memoryBank == MEMORY_BANK.MEMORY_BANK_USER) return tag.user;
+        if (memoryBank == MEMORY_BANK.MEMORY_BANK_EPC) {
+            // CRC and PC words precede the EPC
+            byte[] bank = new byte[tag.epc.length + TagOperation.EPC_WORD_OFFSET * 2];
+            System.arraycopy(tag.epc, 0, bank, TagOperation.EPC_WORD_OFFSET * 2, tag.epc.length);
+            return bank;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+import java.util.Locale;
+
+/**
+ * Process-wide ring buffer of startup phases (DataWedge setup, view inflation, SDK init,
+ * first connect, time-to-interactive). Phases may begin and end on different threads; the
+ * oldest entries are overwritten once {@link #CAPACITY} phases have been recorded.
+ * Times are reported in milliseconds since process start.
+ */
+final class StartupTrace {
+    private static final int CAPACITY = 64;
+
+    private static final String[] names = new String[CAPACITY];
+    private static final String[] threads = new String[CAPACITY];
+    private static final long[] startNanos = new long[CAPACITY];
+    private static final long[] endNanos = new long[CAPACITY];
+    /** Total phases ever begun; the newest phase has id {@code count - 1}. */
+    private static int count;
+
+    private StartupTrace() {
+    }
+
+    /** @return Id to pass to {@link #end(int)}. */
+    static synchronized int begin(String name) {
+        int slot = count % CAPACITY;
+        names[slot] = name;
+        threads[slot] = Thread.currentThread().getName();
+        startNanos[slot] = SystemClock.elapsedRealtimeNanos();
+        endNanos[slot] = -1;
+        return count++;
+    }
+
+    /** Ends a phase; ignored if it has already been overwritten. */
+    static synchronized void end(int id) {
+        if (id < 0 || id < count - CAPACITY || id >= count) return;
+        endNanos[id % CAPACITY] = SystemClock.elapsedRealtimeNanos();
+    }
+
+    /** Records an instant, such as a milestone reached. */
+    static void mark(String name) {
+        end(begin(name));
+    }
+
+    /** Milliseconds from process start to now. */
+    static long sinceProcessStartMillis() {
+        return SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+    }
+
+    /** One line per recorded phase, oldest first: start offset, duration and thread. */
+    static synchronized String dump() {
+        long processStartNanos = Process.getStartElapsedRealtime() * 1_000_000L;
+        StringBuilder sb = new StringBuilder();
+        for (int id = Math.max(0, count - CAPACITY); id < count; id++) {
+            int slot = id % CAPACITY;
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format(Locale.US, "+%6.1f ms ", (startNanos[slot] - processStartNanos) / 1e6));
+            if (endNanos[slot] < 0) {
+                sb.append("   (open) ");
+            } else {
+                sb.append(String.format(Locale.US, "%6.1f ms ", (endNanos[slot] - startNanos[slot]) / 1e6));
+            }
+            sb.append(names[slot]).append(" [").append(threads[slot]).append(']');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,236 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies a list of tag access operations (write EPC, write user memory, lock, kill, read)
+ * to many target tags, for encoding and commissioning stations.
+ * <p>
+ * Work is pipelined in two stages: a preparation thread builds the reader parameters for
+ * upcoming targets while the access thread keeps the radio busy with the current one.
+ * Each operation is retried up to {@code maxRetries} times on retryable failures, every
+ * attempt outcome is reported to the {@link Listener}, and a {@link Stats} summary with
+ * tags encoded per minute is delivered when the batch ends. Both threads exist only while
+ * a batch runs.
+ */
+class TagAccessBatch {
+    private static final String TAG = "TagAccessBatch";
+    /** Number of prepared targets buffered ahead of the access thread. */
+    private static final int PIPELINE_DEPTH = 8;
+
+    /** A tag to encode and the operations to apply to it, in order. */
+    static final class Target {
+        final String epc;
+        final List<TagOperation> operations;
+
+        Target(String epc, List<TagOperation> operations) {
+            this.epc = epc;
+            this.operations = Collections.unmodifiableList(new ArrayList<>(operations));
+        }
+    }
+
+    /** Final outcome of one operation on one target. */
+    static final class OperationResult {
+        final int targetIndex;
+        final String epc;
+        final TagOperation operation;
+        final TagOperation.Status status;
+        final int attempts;
+        /** Hex data returned by a READ operation, otherwise null. */
+        final String readData;
+
+        OperationResult(int targetIndex, String epc, TagOperation operation, TagOperation.Status status,
+                        int attempts, String readData) {
+            this.targetIndex = targetIndex;
+            this.epc = epc;
+            this.operation = operation;
+            this.status = status;
+            this.attempts = attempts;
+            this.readData = readData;
+        }
+    }
+
+    /** Summary of a finished or cancelled batch. */
+    static final class Stats {
+        int targets;
+        int tagsEncoded;
+        int tagsFailed;
+        int operations;
+        int retries;
+        long elapsedMillis;
+        boolean cancelled;
+
+        /** Throughput over the whole batch, counting only fully encoded tags. */
+        double tagsPerMinute() {
+            return elapsedMillis > 0 ? tagsEncoded * 60000.0 / elapsedMillis : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d/%d tags encoded, %d failed, %d ops, %d retries, %d ms (%.1f tags/min)%s",
+                    tagsEncoded, targets, tagsFailed, operations, retries, elapsedMillis, tagsPerMinute(),
+                    cancelled ? " [cancelled]" : "");
+        }
+    }
+
+    /** Receives results on the access thread. */
+    interface Listener {
+        void onOperationResult(OperationResult result);
+
+        void onBatchComplete(Stats stats);
+    }
+
+    private static final class PreparedTarget {
+        final int index;
+        final Target target;
+        final TagAccessPort.Prepared[] operations;
+
+        PreparedTarget(int index, Target target, TagAccessPort.Prepared[] operations) {
+            this.index = index;
+            this.target = target;
+            this.operations = operations;
+        }
+    }
+
+    private static final PreparedTarget END = new PreparedTarget(-1, null, null);
+
+    private final TagAccessPort port;
+    private final int maxRetries;
+    /** Threads of the running batch, or null. */
+    private ExecutorService prepareExecutor;
+    private ExecutorService accessExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean cancelled;
+
+    TagAccessBatch(TagAccessPort port, int maxRetries) {
+        this.port = port;
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    /**
+     * Starts encoding {@code targets} in the background.
+     * @return false if a batch is already running.
+     */
+    boolean start(final List<Target> targets, final Listener listener) {
+        if (!running.compareAndSet(false, true)) return false;
+        cancelled = false;
+        final BlockingQueue<PreparedTarget> pipeline = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+        final ExecutorService prepare = Executors.newSingleThreadExecutor();
+        final ExecutorService access = Executors.newSingleThreadExecutor();
+        synchronized (this) {
+            prepareExecutor = prepare;
+            accessExecutor = access;
+        }
+        prepare.execute(() -> prepareAll(targets, pipeline));
+        access.execute(() -> {
+            Stats stats = new Stats();
+            stats.targets = targets.size();
+            long start = System.currentTimeMillis();
+            try {
+                PreparedTarget next;
+                while ((next = pipeline.take()) != END) {
+                    if (cancelled) continue;
+                    if (encode(next, listener, stats)) stats.tagsEncoded++; else stats.tagsFailed++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                stats.elapsedMillis = System.currentTimeMillis() - start;
+                stats.cancelled = cancelled;
+                prepare.shutdownNow();
+                access.shutdown();
+                running.set(false);
+                Log.d(TAG, "Batch finished: " + stats);
+                if (listener != null) listener.onBatchComplete(stats);
+            }
+        });
+        return true;
+    }
+
+    /** Stops after the operation in flight; remaining targets are reported in the stats as not encoded. */
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isRunning() {
+        return running.get();
+    }
+
+    /** Cancels the running batch and interrupts the operation in flight. */
+    synchronized void shutdown() {
+        cancel();
+        if (prepareExecutor != null) prepareExecutor.shutdownNow();
+        if (accessExecutor != null) accessExecutor.shutdownNow();
+    }
+
+    /**
+     * Prepares every target in order. An operation the port fails to prepare is reported as
+     * {@link TagOperation.Status#REJECTED} for its target, and the pipeline always ends with
+     * {@link #END} so the access thread finishes the batch.
+     */
+    private void prepareAll(List<Target> targets, BlockingQueue<PreparedTarget> pipeline) {
+        try {
+            for (int i = 0; i < targets.size() && !cancelled; i++) {
+                Target target = targets.get(i);
+                TagAccessPort.Prepared[] prepared = new TagAccessPort.Prepared[target.operations.size()];
+                for (int op = 0; op < prepared.length; op++) {
+                    TagOperation operation = target.operations.get(op);
+                    try {
+                        prepared[op] = port.prepare(operation);
+                    } catch (RuntimeException e) {
+                        Log.e(TAG, "Error preparing " + operation.kind + " for " + target.epc, e);
+                        prepared[op] = (epc, readData) -> TagOperation.Status.REJECTED;
+                    }
+                }
+                pipeline.put(new PreparedTarget(i, target, prepared));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                pipeline.put(END);
+            } catch (InterruptedException e) {
+                // Interrupted by shutdown(), which interrupts the access thread too
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Runs every operation of one target; stops at the first operation that fails for good. */
+    private boolean encode(PreparedTarget prepared, Listener listener, Stats stats) {
+        String epc = prepared.target.epc;
+        StringBuilder readData = new StringBuilder();
+        for (int op = 0; op < prepared.operations.length; op++) {
+            TagOperation operation = prepared.target.operations.get(op);
+            TagOperation.Status status;
+            int attempts = 0;
+            readData.setLength(0);
+            do {
+                if (attempts > 0) stats.retries++;
+                status = prepared.operations[op].execute(epc, readData);
+                attempts++;
+            } while (status.retryable && attempts <= maxRetries && !cancelled);
+            stats.operations++;
+            if (listener != null) {
+                listener.onOperationResult(new OperationResult(prepared.index, epc, operation, status, attempts,
+                        operation.kind == TagOperation.Kind.READ && status == TagOperation.Status.SUCCESS
+                                ? readData.toString() : null));
+            }
+            if (status != TagOperation.Status.SUCCESS) return false;
+            if (operation.changesEpc()) {
+                epc = EpcCodec.toHex(operation.data, 0, operation.data.length);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,23 @@
+package com.zebra.rfid.demo.sdksample;
+
+/**
+ * Radio-facing side of {@link TagAccessBatch}. Implemented over the RFID API3 reader by
+ * {@link ReaderTagAccessPort} and in memory by {@link SimulatedTagAccessPort}.
+ */
+interface TagAccessPort {
+
+    /**
+     * An operation whose reader parameters have already been built, so executing it only
+     * costs radio time.
+     */
+    interface Prepared {
+        /**
+         * Applies the operation to the tag currently answering to {@code targetEpc}.
+         * @param readData Receives the words read by a READ operation; may be null otherwise.
+         */
+        TagOperation.Status execute(String targetEpc, StringBuilder readData);
+    }
+
+    /** Builds the parameters for {@code operation}. Called off the radio thread. */
+    Prepared prepare(TagOperation operation);
+}
@@ -0,0 +1,119 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.os.SystemClock;
+
+import com.zebra.rfid.api3.InvalidUsageException;
+import com.zebra.rfid.api3.OperationFailureException;
+import com.zebra.rfid.api3.RFIDReader;
+import com.zebra.rfid.api3.TAG_FIELD;
+import com.zebra.rfid.api3.TagData;
+import com.zebra.rfid.api3.TagStorageSettings;
+
+import java.util.Arrays;
+
+/**
+ * The fields the app uses from one batch of tag reads, copied out of the SDK's
+ * {@link TagData} objects into flat arrays.
+ * <p>
+ * Batches are the reusable slots of a {@link TagEventBus} ring: a consumer sees a batch only
+ * while it handles it and copies anything it keeps. The EPC strings are the SDK's own and are
+ * safe to keep.
+ */
+final class TagBatch {
+    private static final String TAG = "TagBatch";
+    /** Tag report fields behind the arrays below; phase and channel are dropped if a reader refuses them. */
+    private static final TAG_FIELD[] REPORT_FIELDS = {
+            TAG_FIELD.PEAK_RSSI, TAG_FIELD.ANTENNA_ID, TAG_FIELD.FIRST_SEEN_TIME_STAMP,
+            TAG_FIELD.LAST_SEEN_TIME_STAMP, TAG_FIELD.TAG_SEEN_COUNT, TAG_FIELD.PHASE_INFO, TAG_FIELD.CHANNEL_INDEX
+    };
+
+    String[] epcs;
+    short[] rssi;
+    short[] antennas;
+    /**
+     * {@code System.currentTimeMillis()} time at which the reader last saw the tag, mapped
+     * from the reader's clock by {@link ReaderClock}; the batch arrival if it did not say.
+     */
+    long[] seenTimes;
+    /** Phase of the last read, 0 if not reported. */
+    short[] phases;
+    /** Index of the hop channel of the last read, 0 if not reported. */
+    short[] channels;
+    /**
+     * Whether each read is the first of its tag in the session. Written by the session
+     * consumer; valid only for consumers that run after it.
+     */
+    boolean[] fresh;
+    /** Reads in this batch; only the first {@code size} array entries are valid. */
+    int size;
+    /**
+     * Marks a batch from {@link TagEventBus#publishSessionStart()}, which carries no reads:
+     * consumers drop their session state here, in order with the batches around it.
+     */
+    boolean sessionStart;
+
+    TagBatch(int capacity) {
+        epcs = new String[capacity];
+        rssi = new short[capacity];
+        antennas = new short[capacity];
+        seenTimes = new long[capacity];
+        phases = new short[capacity];
+        channels = new short[capacity];
+        fresh = new boolean[capacity];
+    }
+
+    /**
+     * Replaces the contents with the reads in {@code tags} that carry an EPC.
+     * @param clock The reading reader's clock, already synced with this batch.
+     */
+    TagBatch copyFrom(TagData[] tags, ReaderClock clock) {
+        if (tags.length > epcs.length) {
+            epcs = Arrays.copyOf(epcs, tags.length);
+            rssi = Arrays.copyOf(rssi, tags.length);
+            antennas = Arrays.copyOf(antennas, tags.length);
+            seenTimes = new long[tags.length];
+            phases = new short[tags.length];
+            channels = new short[tags.length];
+            fresh = new boolean[tags.length];
+        }
+        long wallOffset = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+        int n = 0;
+        for (TagData tag : tags) {
+            if (tag == null || tag.getTagID() == null) continue;
+            epcs[n] = tag.getTagID();
+            rssi[n] = tag.getPeakRSSI();
+            antennas[n] = tag.getAntennaID();
+            seenTimes[n] = clock.toHost(ReaderClock.seenTime(tag)) + wallOffset;
+            phases[n] = tag.getPhase();
+            channels[n] = tag.getChannelIndex();
+            fresh[n] = false;
+            n++;
+        }
+        size = n;
+        sessionStart = false;
+        return this;
+    }
+
+    /** Empties the batch and marks it as the start of a new session. */
+    TagBatch startSession() {
+        size = 0;
+        sessionStart = true;
+        return this;
+    }
+
+    /**
+     * Has {@code reader} report the fields a batch carries with every tag, seen-times
+     * included. Readers that refuse phase or channel keep the rest.
+     */
+    static void configureReport(RFIDReader reader) throws InvalidUsageException, OperationFailureException {
+        TagStorageSettings settings = reader.Config.getTagStorageSettings();
+        settings.setTagFields(REPORT_FIELDS);
+        try {
+            reader.Config.setTagStorageSettings(settings);
+        } catch (OperationFailureException e) {
+            DiagnosticLog.w(TAG, "Reader refused phase / channel reporting", e.getVendorMessage());
+            settings.setTagFields(Arrays.copyOf(REPORT_FIELDS, REPORT_FIELDS.length - 2));
+            reader.Config.setTagStorageSettings(settings);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.TagData;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fans read batches out to independent consumers through a preallocated ring, in the style
+ * of a disruptor.
+ * <p>
+ * Each batch is copied once into a {@link TagBatch} slot, and every consumer reads the same
+ * slots on its own thread at its own pace, following its own sequence. A consumer subscribed
+ * after others only sees a batch once they are done with it, so it can read what they wrote
+ * into the slot. The publisher waits for the slowest consumer when the ring is full; a
+ * consumer more than {@link #SLOW_LAG_FRACTION} of the ring behind is counted as slow.
+ * Consumers wait by parking and are woken by whoever advances a sequence they depend on.
+ * Publishers take turns on a lock of their own, so a publisher waiting for room never holds
+ * up subscription changes, and a session start never waits at all.
+ */
+final class TagEventBus {
+    private static final String TAG = "TagEventBus";
+    /** A consumer is slow once it lags by this share of the ring, and recovers at half of it. */
+    static final double SLOW_LAG_FRACTION = 0.75;
+    private static final long FULL_WAIT_NANOS = 50_000;
+
+    interface Consumer {
+        /** Called on the consumer's own thread. The batch must not be kept. */
+        void onTagBatch(TagBatch batch);
+
+        /** Called on the consumer's thread when it stops, after its last batch. */
+        default void onClose() {
+        }
+    }
+
+    static final class Subscription {
+        final String name;
+        private final Consumer consumer;
+        private final Subscription[] after;
+        private final long first;
+        private Thread thread;
+        /** Last sequence this consumer has finished. */
+        private volatile long sequence;
+        private volatile boolean waiting;
+        private volatile boolean removed;
+        // Written by the publisher under the publish lock
+        private volatile long maxLag;
+        private volatile long slowEpisodes;
+        private boolean slow;
+
+        private Subscription(String name, Consumer consumer, Subscription[] after, long first) {
+            this.name = name;
+            this.consumer = consumer;
+            this.after = after;
+            this.first = first;
+            this.sequence = first - 1;
+        }
+    }
+
+    private final TagBatch[] ring;
+    private final int mask;
+    private final long slowLag;
+    /** Held by the publisher in turn, also while it waits for room. */
+    private final ReentrantLock publishLock = new ReentrantLock();
+    /** A session start not yet published because the ring was full or busy. */
+    private final AtomicBoolean sessionStartPending = new AtomicBoolean();
+    /** Last published sequence. Written under the publish lock. */
+    private volatile long cursor = -1;
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    private volatile boolean closed;
+    private volatile long fullStalls;
+
+    /**
+     * @param slots Ring size, a power of two.
+     * @param batchCapacity Reads per slot before its arrays grow.
+     */
+    TagEventBus(int slots, int batchCapacity) {
+        if (Integer.bitCount(slots) != 1) throw new IllegalArgumentException("Ring size must be a power of two");
+        ring = new TagBatch[slots];
+        for (int i = 0; i < slots; i++) ring[i] = new TagBatch(batchCapacity);
+        mask = slots - 1;
+        slowLag = (long) (slots * SLOW_LAG_FRACTION);
+    }
+
+    /**
+     * Starts a consumer thread that receives every batch published from now on. Waits for a
+     * publisher that is waiting for room.
+     * @param after Consumers that must finish a batch before this one sees it.
+     */
+    synchronized Subscription subscribe(String name, Consumer consumer, Subscription... after) {
+        Subscription subscription;
+        // No publish may pass the new consumer's first slot before it gates the publisher
+        publishLock.lock();
+        try {
+            subscription = new Subscription(name, consumer, after.clone(), cursor + 1);
+            Subscription[] current = subscriptions;
+            Subscription[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = subscription;
+            subscriptions = next;
+        } finally {
+            publishLock.unlock();
+        }
+        subscription.thread = new Thread(() -> consume(subscription), "tags-" + name);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * Stops a consumer; it finishes the batches in hand first. It keeps gating the publisher
+     * until its thread has left them, and consumers that run after it are then gated by the
+     * publisher alone.
+     */
+    synchronized void unsubscribe(Subscription subscription) {
+        if (subscription.removed || !Arrays.asList(subscriptions).contains(subscription)) return;
+        subscription.removed = true;
+        LockSupport.unpark(subscription.thread);
+    }
+
+    /**
+     * Copies the reads into the next slot and makes it visible to the consumers. Waits while
+     * the ring is full. Safe to call from several reader threads.
+     * @param clock Clock of the reader that read the batch, already synced with it.
+     * @return False if the bus was closed.
+     */
+    boolean publish(TagData[] tags, ReaderClock clock) {
+        publishLock.lock();
+        try {
+            if (sessionStartPending.get()) {
+                long sequence = claim(true);
+                if (sequence < 0) return false;
+                sessionStartPending.set(false);
+                ring[(int) (sequence & mask)].startSession();
+                commit(sequence);
+            }
+            long sequence = claim(true);
+            if (sequence < 0) return false;
+            ring[(int) (sequence & mask)].copyFrom(tags, clock);
+            commit(sequence);
+        } finally {
+            publishLock.unlock();
+        }
+        publishPendingSessionStart();
+        return true;
+    }
+
+    /**
+     * Publishes a {@link TagBatch#sessionStart} marker, so every consumer resets its session
+     * after the batches published before this call and ahead of those published after it.
+     * Never waits, so it is safe on the main thread: while the ring is full or another
+     * publisher holds it, the marker is sent by whichever publisher or consumer next finds
+     * room, still ahead of the next batch.
+     */
+    void publishSessionStart() {
+        sessionStartPending.set(true);
+        publishPendingSessionStart();
+    }
+
+    private void publishPendingSessionStart() {
+        // A publisher that holds the lock now checks again once it lets go
+        while (sessionStartPending.get() && publishLock.tryLock()) {
+            try {
+                if (!sessionStartPending.get()) return;
+                long sequence = claim(false);
+                if (sequence < 0) return;
+                sessionStartPending.set(false);
+                ring[(int) (sequence & mask)].startSession();
+                commit(sequence);
+            } finally {
+                publishLock.unlock();
+            }
+        }
+    }
+
+    /** Stops the consumer threads; batches not yet consumed are dropped. */
+    void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) LockSupport.unpark(subscription.thread);
+    }
+
+    /** Per-consumer progress, lag in batches and slow episodes. */
+    String report() {
+        long published = cursor + 1;
+        StringBuilder out = new StringBuilder();
+        out.append("Tag bus: ").append(published).append(" batches, ring full ").append(fullStalls).append('x');
+        for (Subscription s : subscriptions) {
+            if (s.removed) continue;
+            long done = s.sequence;
+            out.append(String.format(Locale.US, "\n%s: %d batches, lag %d (max %d), slow %dx",
+                    s.name, done + 1 - s.first, published - 1 - done, s.maxLag, s.slowEpisodes));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Claims the slot after the cursor once every consumer has finished with it. Called with
+     * the publish lock held.
+     * @param wait Whether to wait while the ring is full.
+     * @return Its sequence, or -1 if the bus was closed or, without {@code wait}, is full.
+     */
+    private long claim(boolean wait) {
+        if (closed) return -1;
+        long sequence = cursor + 1;
+        // The slot last held this sequence, and is free once every consumer has finished it
+        long wrapPoint = sequence - ring.length;
+        if (checkLag(sequence) < wrapPoint) {
+            if (!wait) return -1;
+            fullStalls++;
+            do {
+                LockSupport.parkNanos(FULL_WAIT_NANOS);
+                if (closed) return -1;
+            } while (checkLag(sequence) < wrapPoint);
+        }
+        return sequence;
+    }
+
+    private void commit(long sequence) {
+        cursor = sequence;
+        wake();
+    }
+
+    /**
+     * Updates the lag metrics for a publish of {@code sequence}.
+     * @return The lowest finished sequence of any consumer.
+     */
+    private long checkLag(long sequence) {
+        long minimum = sequence - 1;
+        for (Subscription s : subscriptions) {
+            long done = s.sequence;
+            long lag = sequence - 1 - done;
+            if (lag > s.maxLag) s.maxLag = lag;
+            if (!s.slow && lag >= slowLag) {
+                s.slow = true;
+                long episodes = ++s.slowEpisodes;
+                // Saturating bursts can trip this constantly; log the 1st, 2nd, 4th, 8th... time
+                if (Long.bitCount(episodes) == 1) DiagnosticLog.w(TAG, "Consumer {} is falling behind", s.name);
+            } else if (s.slow && lag < slowLag / 2) {
+                s.slow = false;
+            }
+            if (done < minimum) minimum = done;
+        }
+        return minimum;
+    }
+
+    private void consume(Subscription s) {
+        long next = s.sequence + 1;
+        while (!closed && !s.removed) {
+            long available = available(s);
+            if (available < next) {
+                s.waiting = true;
+                if (available(s) < next && !closed && !s.removed) LockSupport.park(this);
+                s.waiting = false;
+                continue;
+            }
+            for (long sequence = next; sequence <= available; sequence++) {
+                try {
+                    s.consumer.onTagBatch(ring[(int) (sequence & mask)]);
+                } catch (RuntimeException e) {
+                    DiagnosticLog.e(TAG, "Tag consumer " + s.name + " failed", e);
+                }
+            }
+            s.sequence = available;
+            next = available + 1;
+            wake();
+            // A session start left behind by a full ring goes out as soon as there is room
+            if (sessionStartPending.get()) publishPendingSessionStart();
+        }
+        if (s.removed) {
+            // No longer gates the publisher or anything that ran after it
+            s.sequence = Long.MAX_VALUE;
+            drop(s);
+            wake();
+        }
+        try {
+            s.consumer.onClose();
+        } catch (RuntimeException e) {
+            DiagnosticLog.e(TAG, "Tag consumer " + s.name + " failed to close", e);
+        }
+    }
+
+    private synchronized void drop(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        int at = Arrays.asList(current).indexOf(subscription);
+        if (at < 0) return;
+        Subscription[] next = new Subscription[current.length - 1];
+        System.arraycopy(current, 0, next, 0, at);
+        System.arraycopy(current, at + 1, next, at, next.length - at);
+        subscriptions = next;
+    }
+
+    /** Last sequence {@code s} may consume: published and finished by everything it runs after. */
+    private long available(Subscription s) {
+        long available = cursor;
+        for (Subscription before : s.after) {
+            long done = before.sequence;
+            if (done < available) available = done;
+        }
+        return available;
+    }
+
+    private void wake() {
+        for (Subscription s : subscriptions) {
+            if (s.waiting) LockSupport.unpark(s.thread);
+        }
+    }
+}
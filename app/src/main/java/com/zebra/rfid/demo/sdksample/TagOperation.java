@@ -0,0 +1,103 @@
+package com.zebra.rfid.demo.sdksample;
+
+import com.zebra.rfid.api3.LOCK_DATA_FIELD;
+import com.zebra.rfid.api3.LOCK_PRIVILEGE;
+import com.zebra.rfid.api3.MEMORY_BANK;
+
+/**
+ * Immutable description of a single tag access operation (read, write, lock or kill)
+ * to be applied by {@link TagAccessBatch}.
+ */
+final class TagOperation {
+    /** Word offset of the EPC inside the EPC memory bank (after CRC and PC). */
+    static final int EPC_WORD_OFFSET = 2;
+
+    enum Kind { READ, WRITE, LOCK, KILL }
+
+    /** Outcome of one attempt of an operation. */
+    enum Status {
+        SUCCESS(false),
+        NO_RESPONSE(true),
+        MEMORY_LOCKED(false),
+        PASSWORD_ERROR(false),
+        /** The reader rejected the call itself, e.g. a range outside the memory bank; a retry fails the same way. */
+        REJECTED(false),
+        FAILED(true);
+
+        final boolean retryable;
+
+        Status(boolean retryable) {
+            this.retryable = retryable;
+        }
+    }
+
+    final Kind kind;
+    final MEMORY_BANK memoryBank;
+    final int wordOffset;
+    final int wordCount;
+    final byte[] data;
+    final long password;
+    final LOCK_DATA_FIELD lockField;
+    final LOCK_PRIVILEGE lockPrivilege;
+
+    private TagOperation(Kind kind, MEMORY_BANK memoryBank, int wordOffset, int wordCount, byte[] data,
+                         long password, LOCK_DATA_FIELD lockField, LOCK_PRIVILEGE lockPrivilege) {
+        this.kind = kind;
+        this.memoryBank = memoryBank;
+        this.wordOffset = wordOffset;
+        this.wordCount = wordCount;
+        this.data = data;
+        this.password = password;
+        this.lockField = lockField;
+        this.lockPrivilege = lockPrivilege;
+    }
+
+    static TagOperation read(MEMORY_BANK bank, int wordOffset, int wordCount, long accessPassword) {
+        return new TagOperation(Kind.READ, bank, wordOffset, wordCount, null, accessPassword, null, null);
+    }
+
+    static TagOperation write(MEMORY_BANK bank, int wordOffset, byte[] data, long accessPassword) {
+        if (data == null || data.length == 0 || (data.length & 1) != 0) {
+            throw new IllegalArgumentException("Write data must be a whole number of 16-bit words");
+        }
+        return new TagOperation(Kind.WRITE, bank, wordOffset, data.length / 2, data.clone(), accessPassword, null, null);
+    }
+
+    /** Writes a new EPC over the current one; later operations for the target address the new EPC. */
+    static TagOperation writeEpc(String newEpcHex, long accessPassword) {
+        byte[] epc = new byte[EpcCodec.MAX_EPC_BYTES];
+        int length = EpcCodec.hexToBytes(newEpcHex, epc, 0);
+        if (length <= 0 || (length & 1) != 0) {
+            throw new IllegalArgumentException("Invalid EPC: " + newEpcHex);
+        }
+        byte[] data = new byte[length];
+        System.arraycopy(epc, 0, data, 0, length);
+        return write(MEMORY_BANK.MEMORY_BANK_EPC, EPC_WORD_OFFSET, data, accessPassword);
+    }
+
+    static TagOperation lock(LOCK_DATA_FIELD field, LOCK_PRIVILEGE privilege, long accessPassword) {
+        return new TagOperation(Kind.LOCK, null, 0, 0, null, accessPassword, field, privilege);
+    }
+
+    static TagOperation kill(long killPassword) {
+        return new TagOperation(Kind.KILL, null, 0, 0, null, killPassword, null, null);
+    }
+
+    /** True if this operation replaces the EPC the tag answers to. */
+    boolean changesEpc() {
+        return kind == Kind.WRITE && memoryBank == MEMORY_BANK.MEMORY_BANK_EPC && wordOffset == EPC_WORD_OFFSET;
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case READ:
+            case WRITE:
+                return kind + " " + memoryBank + "@" + wordOffset + "x" + wordCount;
+            case LOCK:
+                return kind + " " + lockField + "=" + lockPrivilege;
+            default:
+                return kind.toString();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Tags ordered by peak RSSI and by read count, maintained as reads arrive.
+ * <p>
+ * Each tag sits in two balanced search trees, one per key. A read re-keys the tag in a tree
+ * only when that key changed, at O(log n), and the strongest or most-read k tags are read off
+ * the front of a tree in O(k), so the tag list never needs a full sort.
+ * Ties are broken by EPC so the order is stable. Not thread-safe.
+ */
+class TagRanking {
+    enum Key { RSSI, READS }
+
+    static final class Ranked {
+        final String epc;
+        short peakRssi;
+        int reads;
+
+        Ranked(String epc, short peakRssi, int reads) {
+            this.epc = epc;
+            this.peakRssi = peakRssi;
+            this.reads = reads;
+        }
+    }
+
+    private static final Comparator<Ranked> BY_RSSI = (a, b) -> {
+        if (a.peakRssi != b.peakRssi) return b.peakRssi - a.peakRssi;
+        return a.epc.compareTo(b.epc);
+    };
+
+    private static final Comparator<Ranked> BY_READS = (a, b) -> {
+        if (a.reads != b.reads) return Integer.compare(b.reads, a.reads);
+        return a.epc.compareTo(b.epc);
+    };
+
+    private final HashMap<String, Ranked> tags = new HashMap<>();
+    private final TreeSet<Ranked> byRssi = new TreeSet<>(BY_RSSI);
+    private final TreeSet<Ranked> byReads = new TreeSet<>(BY_READS);
+
+    /** Records one read of {@code epc}. */
+    void onRead(String epc, short rssi) {
+        Ranked tag = tags.get(epc);
+        if (tag == null) {
+            put(new Ranked(epc, rssi, 1));
+            return;
+        }
+        byReads.remove(tag);
+        tag.reads++;
+        byReads.add(tag);
+        if (rssi > tag.peakRssi) {
+            byRssi.remove(tag);
+            tag.peakRssi = rssi;
+            byRssi.add(tag);
+        }
+    }
+
+    /** Sets a tag's stats outright, e.g. when rebuilding from a session store. */
+    void put(String epc, short peakRssi, int reads) {
+        remove(epc);
+        put(new Ranked(epc, peakRssi, reads));
+    }
+
+    void remove(String epc) {
+        Ranked tag = tags.remove(epc);
+        if (tag == null) return;
+        byRssi.remove(tag);
+        byReads.remove(tag);
+    }
+
+    void clear() {
+        tags.clear();
+        byRssi.clear();
+        byReads.clear();
+    }
+
+    int size() {
+        return tags.size();
+    }
+
+    /**
+     * Visits the top {@code k} tags by {@code key}, best first.
+     * Visitors must not change the ranking.
+     */
+    void forEachTop(Key key, int k, Visitor visitor) {
+        Iterator<Ranked> it = (key == Key.RSSI ? byRssi : byReads).iterator();
+        for (int i = 0; i < k && it.hasNext(); i++) {
+            Ranked tag = it.next();
+            visitor.visit(tag.epc, tag.peakRssi, tag.reads);
+        }
+    }
+
+    /** Top {@code k} EPCs by {@code key}, best first. */
+    List<String> top(Key key, int k) {
+        final List<String> epcs = new ArrayList<>(Math.min(k, tags.size()));
+        forEachTop(key, k, (epc, peakRssi, reads) -> epcs.add(epc));
+        return epcs;
+    }
+
+    interface Visitor {
+        void visit(String epc, short peakRssi, int reads);
+    }
+
+    private void put(Ranked tag) {
+        tags.put(tag.epc, tag);
+        byRssi.add(tag);
+        byReads.add(tag);
+    }
+}
@@ -0,0 +1,256 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-session tag store for long-running monitoring.
+ * <p>
+ * Entries are kept in least-recently-seen order. When bounded, the store holds at most
+ * {@code maxBytes} of estimated heap: the least recently seen tag is evicted when a new tag
+ * would exceed the cap, and tags not seen for {@code ttlMillis} expire. Both checks only look
+ * at the head of the recency list, so they cost O(1) amortized per read. Evicted entries can
+ * be spilled to an {@link AppendOnlyJournal} so nothing seen is lost; they are written in
+ * blocks of {@link #SPILL_BLOCK} entries, one {@link SessionCodec} record per block. Until
+ * its block is written an evicted entry is only in memory, so a crash loses up to
+ * {@code SPILL_BLOCK - 1} of them; {@link #flush()} writes the partial block and syncs.
+ * A tag seen again after eviction is counted as new. {@link #clear()} does no I/O: the
+ * previous session's spill is discarded when the next block is written, or on close.
+ */
+class TagSessionStore {
+    private static final String TAG = "TagSessionStore";
+    /** Estimated heap per entry beyond the EPC characters: map node, entry object, String and char[] headers. */
+    private static final int ENTRY_OVERHEAD_BYTES = 136;
+    private static final int SPILL_BLOCK = 256;
+    private static final long EXPIRY_SCAN_MILLIS = 100;
+
+    enum EvictionReason { CAPACITY, TTL }
+
+    /** Called under the store lock for every evicted entry. */
+    interface EvictionListener {
+        void onEvicted(Entry entry, EvictionReason reason);
+    }
+
+    static final class Entry {
+        final String epc;
+        final long firstSeen;
+        long lastSeen;
+        int reads;
+        short peakRssi;
+
+        Entry(String epc, short rssi, long now) {
+            this.epc = epc;
+            this.firstSeen = now;
+            this.lastSeen = now;
+            this.reads = 1;
+            this.peakRssi = rssi;
+        }
+    }
+
+    /** Replaced rather than emptied on {@link #clear()}, so starting a session costs O(1). */
+    private LinkedHashMap<String, Entry> entries = newEntries();
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final AppendOnlyJournal spill;
+    private final ArrayList<Entry> spillBlock = new ArrayList<>();
+    /** Set by {@link #clear()}: the spill journal holds an earlier session. */
+    private boolean spillStale;
+    private volatile EvictionListener evictionListener;
+    private long bytes;
+    private long inserted;
+    private long evictedCapacity;
+    private long evictedTtl;
+    private long spilled;
+    /** Time of the last expiry scan from {@link #record}. */
+    private long lastExpiry;
+
+    /** Unbounded store, matching the plain per-session set. */
+    TagSessionStore() {
+        this(0, 0, null);
+    }
+
+    /**
+     * @param maxBytes Heap cap for entries, or 0 for no cap.
+     * @param ttlMillis Expiry after a tag was last seen, or 0 for none.
+     * @param spill Journal that receives evicted entries, or null to drop them.
+     */
+    TagSessionStore(long maxBytes, long ttlMillis, AppendOnlyJournal spill) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.spill = spill;
+    }
+
+    void setEvictionListener(EvictionListener listener) {
+        evictionListener = listener;
+    }
+
+    boolean isBounded() {
+        return maxBytes > 0 || ttlMillis > 0;
+    }
+
+    /**
+     * Records one read.
+     * @return True if the tag is not currently in the store.
+     */
+    synchronized boolean record(String epc, short rssi, long now) {
+        // Read times come from the reader and are not strictly ordered; scan at most every EXPIRY_SCAN_MILLIS
+        if (Math.abs(now - lastExpiry) >= EXPIRY_SCAN_MILLIS) {
+            lastExpiry = now;
+            expire(now);
+        }
+        Entry entry = entries.get(epc);
+        if (entry != null) {
+            if (now > entry.lastSeen) entry.lastSeen = now;
+            entry.reads++;
+            if (rssi > entry.peakRssi) entry.peakRssi = rssi;
+            return false;
+        }
+        entries.put(epc, new Entry(epc, rssi, now));
+        bytes += estimateBytes(epc);
+        inserted++;
+        if (maxBytes > 0) {
+            while (bytes > maxBytes && !entries.isEmpty()) {
+                evictEldest(EvictionReason.CAPACITY);
+            }
+        }
+        return true;
+    }
+
+    /** Expires tags not seen for the TTL. Called from {@link #record}; may also be called from a timer. */
+    synchronized void expire(long now) {
+        if (ttlMillis <= 0) return;
+        while (!entries.isEmpty()) {
+            Entry eldest = entries.values().iterator().next();
+            if (now - eldest.lastSeen <= ttlMillis) break;
+            evictEldest(EvictionReason.TTL);
+        }
+    }
+
+    /**
+     * Starts a new session, discarding entries and the spill journal. O(1) and free of I/O,
+     * so it can run on any thread.
+     */
+    synchronized void clear() {
+        entries = newEntries();
+        bytes = 0;
+        inserted = 0;
+        evictedCapacity = 0;
+        evictedTtl = 0;
+        spilled = 0;
+        spillBlock.clear();
+        spillStale = spill != null;
+    }
+
+    /** Tags currently held. */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /** Tags added this session, including ones since evicted. */
+    synchronized long uniqueCount() {
+        return inserted;
+    }
+
+    synchronized long evictedCount() {
+        return evictedCapacity + evictedTtl;
+    }
+
+    /** Copies of the entries currently held, least recently seen first. */
+    synchronized List<Entry> snapshot() {
+        List<Entry> copy = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            Entry clone = new Entry(entry.epc, entry.peakRssi, entry.firstSeen);
+            clone.lastSeen = entry.lastSeen;
+            clone.reads = entry.reads;
+            copy.add(clone);
+        }
+        return copy;
+    }
+
+    synchronized String report() {
+        return String.format(Locale.US, "%d tags held (~%d KB), %d added, %d evicted (%d capacity, %d TTL), %d spilled",
+                entries.size(), bytes / 1024, inserted, evictedCapacity + evictedTtl, evictedCapacity, evictedTtl, spilled);
+    }
+
+    /** Writes evicted entries not yet spilled and syncs the journal. Does I/O; call off the UI thread. */
+    void flush() {
+        if (spill == null) return;
+        try {
+            synchronized (this) {
+                truncateStaleSpill();
+                flushSpill();
+            }
+            spill.sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Error flushing spill journal", e);
+        }
+    }
+
+    void close() {
+        if (spill == null) return;
+        flush();
+        try {
+            spill.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Error closing spill journal", e);
+        }
+    }
+
+    private void evictEldest(EvictionReason reason) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        Entry eldest = it.next().getValue();
+        it.remove();
+        bytes -= estimateBytes(eldest.epc);
+        if (reason == EvictionReason.CAPACITY) evictedCapacity++; else evictedTtl++;
+        EvictionListener listener = evictionListener;
+        if (listener != null) listener.onEvicted(eldest, reason);
+        if (spill != null) {
+            spillBlock.add(eldest);
+            if (spillBlock.size() >= SPILL_BLOCK) {
+                try {
+                    flushSpill();
+                } catch (IOException e) {
+                    Log.e(TAG, "Error spilling evicted tags", e);
+                    spillBlock.clear();
+                }
+            }
+        }
+    }
+
+    private void truncateStaleSpill() throws IOException {
+        if (!spillStale) return;
+        spillStale = false;
+        spill.truncate();
+    }
+
+    private void flushSpill() throws IOException {
+        if (spillBlock.isEmpty()) return;
+        truncateStaleSpill();
+        spill.append(ByteBuffer.wrap(SessionCodec.encode(spillBlock)));
+        spilled += spillBlock.size();
+        spillBlock.clear();
+    }
+
+    private static LinkedHashMap<String, Entry> newEntries() {
+        return new LinkedHashMap<>(256, 0.75f, true);
+    }
+
+    private static int estimateBytes(String epc) {
+        return ENTRY_OVERHEAD_BYTES + 2 * epc.length();
+    }
+
+    /** Entries of one spill journal record. */
+    static List<Entry> decodeSpill(ByteBuffer record) {
+        byte[] data = new byte[record.remaining()];
+        record.get(data);
+        return SessionCodec.decode(data);
+    }
+}
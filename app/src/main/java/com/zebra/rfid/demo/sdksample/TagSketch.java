@@ -0,0 +1,203 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Fixed-memory read analytics for always-on monitoring, used instead of a per-tag store.
+ * <p>
+ * Distinct EPCs are counted with HyperLogLog sketches of {@value #HLL_REGISTERS} registers,
+ * one for the session and one for the current time window: relative standard error
+ * 1.04 / sqrt(2048) ~ 2.3%, so about 95% of estimates fall within +/-4.6%.
+ * Per-EPC read counts come from a Count-Min sketch of {@value #CMS_DEPTH} rows by
+ * {@value #CMS_WIDTH} counters: an estimate never undercounts and exceeds the true count by
+ * at most e / {@value #CMS_WIDTH} ~ 1.1% of all reads with probability 1 - e^-{@value #CMS_DEPTH}
+ * ~ 98%, which still separates the tags read most from the ones passing by. The
+ * {@value #HEAVY_HITTERS} EPCs with the highest estimates are kept as heavy hitters.
+ * Memory is about 8 KB whatever the tag population.
+ */
+class TagSketch {
+    private static final int HLL_BITS = 11;
+    static final int HLL_REGISTERS = 1 << HLL_BITS;
+    static final int CMS_WIDTH = 256;
+    static final int CMS_DEPTH = 4;
+    static final int HEAVY_HITTERS = 16;
+    /** Relative standard error of the distinct counts. */
+    static final double DISTINCT_STANDARD_ERROR = 1.04 / Math.sqrt(HLL_REGISTERS);
+
+    static final class HeavyHitter {
+        final String epc;
+        final long estimatedReads;
+
+        HeavyHitter(String epc, long estimatedReads) {
+            this.epc = epc;
+            this.estimatedReads = estimatedReads;
+        }
+    }
+
+    private final long windowMillis;
+    private final byte[] sessionRegisters = new byte[HLL_REGISTERS];
+    private final byte[] windowRegisters = new byte[HLL_REGISTERS];
+    private final int[] counters = new int[CMS_DEPTH * CMS_WIDTH];
+    private final String[] hitterEpcs = new String[HEAVY_HITTERS];
+    private final long[] hitterCounts = new long[HEAVY_HITTERS];
+    private long totalReads;
+    private long windowStart = -1;
+    private long lastWindowDistinct = -1;
+
+    /** @param windowMillis Length of the windows for {@link #distinctInWindow()}. */
+    TagSketch(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    synchronized void onRead(String epc, long now) {
+        if (windowStart < 0) windowStart = now;
+        if (now - windowStart >= windowMillis) {
+            lastWindowDistinct = estimate(windowRegisters);
+            Arrays.fill(windowRegisters, (byte) 0);
+            windowStart = now - (now - windowStart) % windowMillis;
+        }
+        long hash = hash(epc);
+        addToHll(sessionRegisters, hash);
+        addToHll(windowRegisters, hash);
+        totalReads++;
+        long estimate = addToCountMin(hash);
+        offerHeavyHitter(epc, estimate);
+    }
+
+    /** Estimated distinct EPCs this session. */
+    synchronized long distinctTotal() {
+        return estimate(sessionRegisters);
+    }
+
+    /** Estimated distinct EPCs in the window in progress. */
+    synchronized long distinctInWindow() {
+        return estimate(windowRegisters);
+    }
+
+    /** Estimated distinct EPCs in the last completed window, or -1 before the first one ends. */
+    synchronized long distinctLastWindow() {
+        return lastWindowDistinct;
+    }
+
+    /** Estimated reads of {@code epc}; never below the true count. */
+    synchronized long estimateReads(String epc) {
+        return countMin(hash(epc));
+    }
+
+    synchronized long totalReads() {
+        return totalReads;
+    }
+
+    /** Heavy hitters, most read first. */
+    synchronized List<HeavyHitter> heavyHitters() {
+        List<HeavyHitter> hitters = new ArrayList<>(HEAVY_HITTERS);
+        for (int i = 0; i < HEAVY_HITTERS; i++) {
+            if (hitterEpcs[i] != null) hitters.add(new HeavyHitter(hitterEpcs[i], hitterCounts[i]));
+        }
+        hitters.sort((a, b) -> Long.compare(b.estimatedReads, a.estimatedReads));
+        return hitters;
+    }
+
+    synchronized void clear() {
+        Arrays.fill(sessionRegisters, (byte) 0);
+        Arrays.fill(windowRegisters, (byte) 0);
+        Arrays.fill(counters, 0);
+        Arrays.fill(hitterEpcs, null);
+        Arrays.fill(hitterCounts, 0);
+        totalReads = 0;
+        windowStart = -1;
+        lastWindowDistinct = -1;
+    }
+
+    /** Bytes held by the sketches. */
+    static int memoryBytes() {
+        return 2 * HLL_REGISTERS + 4 * CMS_DEPTH * CMS_WIDTH + 8 * HEAVY_HITTERS;
+    }
+
+    synchronized String report() {
+        return String.format(Locale.US, "~%d unique (+/-%.1f%%), ~%d this window, %d reads, %d KB",
+                estimate(sessionRegisters), 100 * DISTINCT_STANDARD_ERROR, estimate(windowRegisters),
+                totalReads, memoryBytes() / 1024);
+    }
+
+    private static void addToHll(byte[] registers, long hash) {
+        int index = (int) (hash >>> (64 - HLL_BITS));
+        // Rank of the first set bit in the remaining bits, capped by their width
+        long rest = (hash << HLL_BITS) | (1L << (HLL_BITS - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) registers[index] = rank;
+    }
+
+    private static long estimate(byte[] registers) {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) zeros++;
+        }
+        double m = registers.length;
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        // Linear counting is more accurate for small cardinalities
+        if (estimate <= 2.5 * m && zeros > 0) estimate = m * Math.log(m / zeros);
+        return Math.round(estimate);
+    }
+
+    /** Adds one read and returns the new estimate for the EPC. */
+    private long addToCountMin(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < CMS_DEPTH; row++) {
+            int column = ((h1 + row * h2) & Integer.MAX_VALUE) % CMS_WIDTH;
+            int index = row * CMS_WIDTH + column;
+            if (counters[index] != Integer.MAX_VALUE) counters[index]++;
+            min = Math.min(min, counters[index]);
+        }
+        return min;
+    }
+
+    private long countMin(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < CMS_DEPTH; row++) {
+            int column = ((h1 + row * h2) & Integer.MAX_VALUE) % CMS_WIDTH;
+            min = Math.min(min, counters[row * CMS_WIDTH + column]);
+        }
+        return min;
+    }
+
+    private void offerHeavyHitter(String epc, long estimate) {
+        int smallest = 0;
+        for (int i = 0; i < HEAVY_HITTERS; i++) {
+            if (epc.equals(hitterEpcs[i])) {
+                hitterCounts[i] = estimate;
+                return;
+            }
+            if (hitterCounts[i] < hitterCounts[smallest]) smallest = i;
+        }
+        if (estimate > hitterCounts[smallest]) {
+            hitterEpcs[smallest] = epc;
+            hitterCounts[smallest] = estimate;
+        }
+    }
+
+    /** 64-bit FNV-1a over the EPC characters with a MurmurHash3 finalizer. */
+    static long hash(String epc) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < epc.length(); i++) {
+            h ^= epc.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
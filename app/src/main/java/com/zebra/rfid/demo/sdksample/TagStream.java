@@ -0,0 +1,459 @@
+package com.zebra.rfid.demo.sdksample;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tag reads as a flow-controlled stream for apps that embed this RFID layer.
+ * <p>
+ * {@link Publisher}, {@link Subscriber} and {@link Subscription} have the signatures and
+ * semantics of the Reactive Streams interfaces: a subscriber gets nothing until it calls
+ * {@link Subscription#request(long)}, and {@link Subscription#cancel()} stops the stream. Each
+ * subscriber is fed by its own {@link TagEventBus} consumer through a buffer of fixed size, so
+ * a slow subscriber never holds more than that buffer; what does not fit is dropped according
+ * to the {@link Overflow} policy. Signals are delivered on a thread of the subscription's own,
+ * or on the executor given to {@link #observeOn(Executor)}, with at most one drain task per
+ * subscriber queued on it; the bus consumer thread only fills the buffer.
+ * <p>
+ * A {@code TagStream} is an immutable description; every operator returns a new one and every
+ * subscription gets its own operator state.
+ */
+final class TagStream {
+    static final int DEFAULT_BUFFER = 1024;
+    /** Gate for {@link #distinct()}: a tag passes once per subscription. */
+    private static final long FOREVER = Long.MAX_VALUE;
+
+    interface Publisher<T> {
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable error);
+
+        void onComplete();
+    }
+
+    interface Subscription {
+        /** Adds {@code n} items of demand; {@code n} must be positive. */
+        void request(long n);
+
+        void cancel();
+    }
+
+    /** What a full subscriber buffer gives up. */
+    enum Overflow {
+        /** Keep the most recent items, e.g. for a live view. */
+        DROP_OLDEST,
+        /** Keep the items already buffered, e.g. for a first-seen list. */
+        DROP_LATEST
+    }
+
+    /** One tag read. */
+    static final class Read {
+        final String epc;
+        final short rssi;
+        final short antenna;
+        /** Phase and hop channel index of the read, 0 if the reader does not report them. */
+        final short phase;
+        final short channel;
+        /** {@code System.currentTimeMillis()} time the reader saw the tag; see {@link TagBatch#seenTimes}. */
+        final long time;
+
+        Read(String epc, short rssi, short antenna, short phase, short channel, long time) {
+            this.epc = epc;
+            this.rssi = rssi;
+            this.antenna = antenna;
+            this.phase = phase;
+            this.channel = channel;
+            this.time = time;
+        }
+
+        @Override
+        public String toString() {
+            return epc + " (RSSI: " + rssi + ", antenna " + antenna + ")";
+        }
+    }
+
+    private static ScheduledExecutorService timer;
+
+    private final TagEventBus bus;
+    private final long gateMillis;
+    private final int bufferSize;
+    private final Overflow overflow;
+    private final Executor executor;
+
+    /** Every read, delivered on a signal thread per subscription. */
+    TagStream(TagEventBus bus) {
+        this(bus, 0, DEFAULT_BUFFER, Overflow.DROP_OLDEST, null);
+    }
+
+    private TagStream(TagEventBus bus, long gateMillis, int bufferSize, Overflow overflow, Executor executor) {
+        this.bus = bus;
+        this.gateMillis = gateMillis;
+        this.bufferSize = bufferSize;
+        this.overflow = overflow;
+        this.executor = executor;
+    }
+
+    /** Only the first read of each tag. Replaces {@link #sample(long)}. */
+    TagStream distinct() {
+        return new TagStream(bus, FOREVER, bufferSize, overflow, executor);
+    }
+
+    /** At most one read of each tag per {@code periodMillis}, the first. Replaces {@link #distinct()}. */
+    TagStream sample(long periodMillis) {
+        if (periodMillis <= 0) throw new IllegalArgumentException("Sample period must be positive");
+        return new TagStream(bus, periodMillis, bufferSize, overflow, executor);
+    }
+
+    /** Items buffered per subscriber before {@code policy} applies. */
+    TagStream buffer(int items, Overflow policy) {
+        if (items <= 0) throw new IllegalArgumentException("Buffer size must be positive");
+        return new TagStream(bus, gateMillis, items, policy, executor);
+    }
+
+    /**
+     * Delivers signals on {@code signalExecutor}, e.g. the main thread's, instead of a thread
+     * per subscription. It must not run tasks on the calling thread, or a slow subscriber
+     * holds up the bus.
+     */
+    TagStream observeOn(Executor signalExecutor) {
+        return new TagStream(bus, gateMillis, bufferSize, overflow, signalExecutor);
+    }
+
+    Publisher<Read> reads() {
+        return subscriber -> start(new ReadSource(this, subscriber), subscriber);
+    }
+
+    /**
+     * Reads grouped into lists covering {@code windowMillis} from their first read, or fewer
+     * if {@code maxReads} arrive first. Empty windows are not emitted.
+     */
+    Publisher<List<Read>> windows(long windowMillis, int maxReads) {
+        if (windowMillis <= 0 || maxReads <= 0) throw new IllegalArgumentException("Window must be positive");
+        return subscriber -> start(new WindowSource(this, subscriber, windowMillis, maxReads), subscriber);
+    }
+
+    private <T> void start(Source<T> source, Subscriber<? super T> subscriber) {
+        if (subscriber == null) throw new NullPointerException("subscriber");
+        subscriber.onSubscribe(source);
+        source.attach(bus);
+    }
+
+    private static synchronized ScheduledExecutorService timer() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "tag-stream-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return timer;
+    }
+
+    /**
+     * Bounded buffer between a bus consumer and one subscriber, with the demand accounting
+     * and serialized signalling of a Reactive Streams publisher.
+     */
+    private abstract static class Source<T> implements Subscription, TagEventBus.Consumer {
+        private static final String TAG = "TagStream";
+        private static final AtomicInteger STREAMS = new AtomicInteger();
+        private final String name = "stream-" + STREAMS.incrementAndGet();
+        private final Subscriber<? super T> subscriber;
+        private final Executor executor;
+        /** The subscription's own signal thread, or null with {@link #observeOn(Executor)}. */
+        private final ExecutorService signalThread;
+        private final Overflow overflow;
+        private final Object[] buffer;
+        private int head;
+        private int count;
+        private long dropped;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final Runnable drainTask = this::drain;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile Throwable error;
+        private volatile TagEventBus bus;
+        private volatile TagEventBus.Subscription busSubscription;
+        /** Set by the thread that delivers the terminal signal or sees the cancel. */
+        private boolean terminated;
+
+        Source(TagStream stream, Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            if (stream.executor != null) {
+                this.signalThread = null;
+                this.executor = stream.executor;
+            } else {
+                this.signalThread = Executors.newSingleThreadExecutor(task -> {
+                    Thread thread = new Thread(task, "signals-" + name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                this.executor = signalThread;
+            }
+            this.overflow = stream.overflow;
+            this.buffer = new Object[stream.bufferSize];
+        }
+
+        final void attach(TagEventBus tagBus) {
+            if (cancelled) return;
+            bus = tagBus;
+            busSubscription = tagBus.subscribe(name, this);
+            // A cancel that raced with subscribing found no bus subscription to remove
+            if (cancelled) tagBus.unsubscribe(busSubscription);
+        }
+
+        @Override
+        public final void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("request(" + n + "): demand must be positive");
+                detach();
+                schedule();
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                if (current == Long.MAX_VALUE) return;
+                next = current + n;
+                if (next < 0) next = Long.MAX_VALUE;
+            } while (!requested.compareAndSet(current, next));
+            schedule();
+        }
+
+        @Override
+        public final void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            detach();
+            schedule();
+        }
+
+        @Override
+        public void onClose() {
+            done = true;
+            schedule();
+        }
+
+        /** Buffers {@code item} for the subscriber, or drops per the overflow policy. */
+        final void emit(T item) {
+            if (cancelled) return;
+            synchronized (buffer) {
+                if (count == buffer.length) {
+                    dropped++;
+                    if (overflow == Overflow.DROP_LATEST) return;
+                    buffer[head] = null;
+                    head = (head + 1) % buffer.length;
+                    count--;
+                }
+                buffer[(head + count) % buffer.length] = item;
+                count++;
+            }
+            schedule();
+        }
+
+        private void detach() {
+            TagEventBus tagBus = bus;
+            TagEventBus.Subscription subscription = busSubscription;
+            if (tagBus != null && subscription != null) tagBus.unsubscribe(subscription);
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() != 0) return;
+            try {
+                executor.execute(drainTask);
+            } catch (RejectedExecutionException e) {
+                // The signal thread stopped after the terminal signal; nothing is delivered any more
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T poll() {
+            synchronized (buffer) {
+                if (count == 0) return null;
+                T item = (T) buffer[head];
+                buffer[head] = null;
+                head = (head + 1) % buffer.length;
+                count--;
+                return item;
+            }
+        }
+
+        private boolean isEmpty() {
+            synchronized (buffer) {
+                return count == 0;
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (terminated) return;
+                long wanted = requested.get();
+                long sent = 0;
+                while (sent != wanted && !cancelled && error == null) {
+                    T item = poll();
+                    if (item == null) break;
+                    try {
+                        subscriber.onNext(item);
+                    } catch (RuntimeException e) {
+                        // A subscriber must not throw; treat it as a cancel
+                        DiagnosticLog.e(TAG, "Subscriber failed, stream cancelled", e);
+                        cancelled = true;
+                        detach();
+                    }
+                    sent++;
+                }
+                if (cancelled) {
+                    finish();
+                    return;
+                }
+                if (error != null) {
+                    finish();
+                    subscriber.onError(error);
+                    return;
+                }
+                if (done && isEmpty()) {
+                    finish();
+                    subscriber.onComplete();
+                    return;
+                }
+                if (sent != 0 && wanted != Long.MAX_VALUE) requested.addAndGet(-sent);
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void finish() {
+            terminated = true;
+            // Lets the drain in progress end; later signals are rejected
+            if (signalThread != null) signalThread.shutdown();
+            long lost;
+            synchronized (buffer) {
+                lost = dropped;
+                Arrays.fill(buffer, null);
+                count = 0;
+            }
+            if (lost > 0) DiagnosticLog.d(TAG, "Stream ended, {} items dropped on overflow", lost);
+        }
+    }
+
+    /** Applies the stream's per-tag gate to the bus batches. Runs on the bus consumer thread. */
+    private abstract static class GatedSource<T> extends Source<T> {
+        private final long gateMillis;
+        /** Last time each tag passed the gate; only used when gating. */
+        private final Map<String, Long> passed = new HashMap<>();
+        private int pruneAt = 1024;
+
+        GatedSource(TagStream stream, Subscriber<? super T> subscriber) {
+            super(stream, subscriber);
+            this.gateMillis = stream.gateMillis;
+        }
+
+        @Override
+        public final void onTagBatch(TagBatch batch) {
+            for (int i = 0; i < batch.size; i++) {
+                long seen = batch.seenTimes[i];
+                if (gateMillis > 0 && !pass(batch.epcs[i], seen)) continue;
+                onRead(new Read(batch.epcs[i], batch.rssi[i], batch.antennas[i], batch.phases[i], batch.channels[i], seen));
+            }
+        }
+
+        abstract void onRead(Read read);
+
+        private boolean pass(String epc, long now) {
+            Long last = passed.get(epc);
+            if (last != null && (gateMillis == FOREVER || now - last < gateMillis)) return false;
+            passed.put(epc, now);
+            if (gateMillis != FOREVER && passed.size() >= pruneAt) {
+                // Tags outside their period would pass anyway; keep the map to the tags in range
+                for (Iterator<Long> it = passed.values().iterator(); it.hasNext(); ) {
+                    if (now - it.next() >= gateMillis) it.remove();
+                }
+                pruneAt = Math.max(1024, passed.size() * 2);
+            }
+            return true;
+        }
+    }
+
+    private static final class ReadSource extends GatedSource<Read> {
+        ReadSource(TagStream stream, Subscriber<? super Read> subscriber) {
+            super(stream, subscriber);
+        }
+
+        @Override
+        void onRead(Read read) {
+            emit(read);
+        }
+    }
+
+    /** Reads collected into windows that close on size or on the shared timer. */
+    private static final class WindowSource extends GatedSource<List<Read>> {
+        private final long windowMillis;
+        private final int maxReads;
+        /** Guarded by this; also closed from the timer thread. */
+        private List<Read> window;
+        private long windowId;
+
+        WindowSource(TagStream stream, Subscriber<? super List<Read>> subscriber, long windowMillis, int maxReads) {
+            super(stream, subscriber);
+            this.windowMillis = windowMillis;
+            this.maxReads = maxReads;
+        }
+
+        @Override
+        void onRead(Read read) {
+            List<Read> full = null;
+            synchronized (this) {
+                if (window == null) {
+                    window = new ArrayList<>(Math.min(maxReads, 256));
+                    final long id = ++windowId;
+                    timer().schedule(() -> closeWindow(id), windowMillis, TimeUnit.MILLISECONDS);
+                }
+                window.add(read);
+                if (window.size() >= maxReads) {
+                    full = window;
+                    window = null;
+                }
+            }
+            if (full != null) emit(full);
+        }
+
+        @Override
+        public void onClose() {
+            long id;
+            synchronized (this) {
+                id = windowId;
+            }
+            closeWindow(id);
+            super.onClose();
+        }
+
+        private void closeWindow(long id) {
+            List<Read> closing;
+            synchronized (this) {
+                if (id != windowId || window == null) return;
+                closing = window;
+                window = null;
+            }
+            emit(closing);
+        }
+    }
+}
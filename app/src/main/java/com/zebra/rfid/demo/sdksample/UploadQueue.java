@@ -0,0 +1,378 @@
+package com.zebra.rfid.demo.sdksample;
+
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Outbound sync of session records to a backend.
+ * <p>
+ * Records are collected into a batch that is sealed once it holds {@code maxBatchRecords}
+ * records or has been open for {@code maxBatchMillis}. A sealed batch is gzip-compressed and
+ * written to an on-disk outbox before it is sent, so chunks survive restarts; a chunk file is
+ * synced before it is renamed into place and deleted only once the backend acknowledges it
+ * with a 2xx. At most {@code concurrency} chunks are in flight. Failed sends are retried with
+ * exponential backoff; retries wait on a timer, not on a sending thread.
+ * <p>
+ * Chunk body, before compression, is a {@link SessionCodec} encoding of the batch, whose
+ * magic identifies the format; {@link #start()} migrates chunks left in the earlier format.
+ * Each request carries the chunk name in {@value #CHUNK_ID_HEADER} so the backend can ignore
+ * a chunk delivered twice.
+ */
+class UploadQueue {
+    private static final String TAG = "UploadQueue";
+    static final String CHUNK_ID_HEADER = "X-Chunk-Id";
+    private static final String CHUNK_SUFFIX = ".chunk";
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int READ_TIMEOUT_MS = 10000;
+    private static final long BASE_BACKOFF_MS = 250;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    /** Rest for a chunk that used up its attempts before it gets another round. */
+    private static final long RESTED_RETRY_MS = 5 * 60_000;
+
+    private final File outbox;
+    private final URL endpoint;
+    private final int maxBatchRecords;
+    private final long maxBatchMillis;
+    private final int maxAttempts;
+    /** Owns the open batch. */
+    private final ScheduledExecutorService batcher = Executors.newSingleThreadScheduledExecutor();
+    /** Sends chunks; its size bounds the number of requests in flight. */
+    private final ScheduledExecutorService senders;
+    private final AtomicLong nextChunk = new AtomicLong();
+
+    private final ArrayList<TagSessionStore.Entry> batch = new ArrayList<>();
+    private long batchOpenedNanos;
+    private ScheduledFuture<?> batchTimer;
+
+    private final LatencyHistogram requestLatency = new LatencyHistogram();
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+    private final AtomicLong recordsAcked = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong sentBytes = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicInteger pendingChunks = new AtomicInteger();
+    private volatile int readTimeoutMs = READ_TIMEOUT_MS;
+    private volatile long firstSealNanos;
+    private volatile long lastAckNanos;
+
+    /**
+     * @param outbox Directory holding chunks not yet acknowledged.
+     * @param maxAttempts Sends per round of retries. A chunk that uses them all rests for five
+     *        minutes before the next round; it stays in the outbox throughout.
+     */
+    UploadQueue(File outbox, URL endpoint, int maxBatchRecords, long maxBatchMillis, int concurrency, int maxAttempts) {
+        this.outbox = outbox;
+        this.endpoint = endpoint;
+        this.maxBatchRecords = maxBatchRecords;
+        this.maxBatchMillis = maxBatchMillis;
+        this.maxAttempts = maxAttempts;
+        this.senders = Executors.newScheduledThreadPool(concurrency);
+    }
+
+    /** Queues every chunk left in the outbox by an earlier run. */
+    void start() throws IOException {
+        if (!outbox.isDirectory() && !outbox.mkdirs()) throw new IOException("Cannot create " + outbox);
+        File[] files = outbox.listFiles((dir, name) -> name.endsWith(CHUNK_SUFFIX));
+        if (files == null) return;
+        Arrays.sort(files);
+        long highest = -1;
+        for (File file : files) {
+            long[] parsed = parseName(file.getName());
+            if (parsed == null) continue;
+            highest = Math.max(highest, parsed[0]);
+            if (!migrate(file)) continue;
+            pendingChunks.incrementAndGet();
+            final int records = (int) parsed[1];
+            senders.execute(() -> send(file, records, System.nanoTime(), 1));
+        }
+        nextChunk.set(highest + 1);
+        if (files.length > 0) Log.d(TAG, "Resuming " + files.length + " chunks from the outbox");
+    }
+
+    /** The entry must not change after it is queued; pass a copy of a live store entry. */
+    void add(TagSessionStore.Entry entry) {
+        if (batcher.isShutdown()) return;
+        batcher.execute(() -> append(entry));
+    }
+
+    void addAll(Collection<TagSessionStore.Entry> entries) {
+        if (batcher.isShutdown()) return;
+        final ArrayList<TagSessionStore.Entry> copy = new ArrayList<>(entries);
+        batcher.execute(() -> {
+            for (TagSessionStore.Entry entry : copy) append(entry);
+        });
+    }
+
+    /** Seals the open batch now. */
+    void flush() {
+        batcher.execute(this::seal);
+    }
+
+    /** Time a send waits for the reply before it counts as failed. */
+    void setReadTimeout(int millis) {
+        readTimeoutMs = millis;
+    }
+
+    /** Chunks sealed but not yet acknowledged. */
+    int pendingChunks() {
+        return pendingChunks.get();
+    }
+
+    /** Bytes per tag, request and batch latency, and sustained records/sec. */
+    String report() {
+        long records = recordsAcked.get();
+        double seconds = (lastAckNanos - firstSealNanos) / 1e9;
+        return String.format(Locale.US,
+                "%d records acked, %.1f bytes/tag gzip (%.1f raw), %.0f records/s, %d retries, %d chunks pending"
+                        + "\nrequest %s\nbatch %s",
+                records, records > 0 ? (double) sentBytes.get() / records : 0, records > 0 ? (double) rawBytes.get() / records : 0,
+                seconds > 0 ? records / seconds : 0, retries.get(), pendingChunks.get(), requestLatency, batchLatency);
+    }
+
+    /** Seals the open batch and stops; unsent chunks stay in the outbox. */
+    void shutdown() {
+        batcher.execute(this::seal);
+        batcher.shutdown();
+        try {
+            batcher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        senders.shutdownNow();
+    }
+
+    private void append(TagSessionStore.Entry entry) {
+        if (batch.isEmpty()) {
+            batchOpenedNanos = System.nanoTime();
+            try {
+                batchTimer = batcher.schedule(this::seal, maxBatchMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the seal queued by shutdown() closes this batch
+                batchTimer = null;
+            }
+        }
+        batch.add(entry);
+        if (batch.size() >= maxBatchRecords) seal();
+    }
+
+    /** Compresses the open batch into an outbox chunk and queues it for sending. */
+    private void seal() {
+        if (batch.isEmpty()) return;
+        if (batchTimer != null) batchTimer.cancel(false);
+        byte[] body = SessionCodec.encode(batch);
+        final int records = batch.size();
+        final long openedNanos = batchOpenedNanos;
+        batch.clear();
+        File chunk = new File(outbox, String.format(Locale.US, "%012d-%d%s", nextChunk.getAndIncrement(), records, CHUNK_SUFFIX));
+        try {
+            writeChunk(chunk, body);
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing chunk, dropping " + records + " records", e);
+            return;
+        }
+        rawBytes.addAndGet(body.length);
+        if (firstSealNanos == 0) firstSealNanos = System.nanoTime();
+        pendingChunks.incrementAndGet();
+        sendLater(chunk, records, openedNanos, 1, 0);
+    }
+
+    /** Compresses {@code body} into a temporary file, syncs it and renames it to {@code chunk}. */
+    private void writeChunk(File chunk, byte[] body) throws IOException {
+        File tmp = new File(outbox, chunk.getName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp);
+             GZIPOutputStream out = new GZIPOutputStream(file, 8192)) {
+            out.write(body);
+            out.finish();
+            // On disk before the rename, so a crash never leaves a truncated chunk behind
+            file.getFD().sync();
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        if (!tmp.renameTo(chunk)) {
+            tmp.delete();
+            throw new IOException("Cannot commit chunk " + chunk.getName());
+        }
+        syncDirectory(outbox);
+    }
+
+    /**
+     * Rewrites a chunk written before chunk bodies were {@link SessionCodec} encodings, which
+     * the backend would reject. That body is {@code [int count]} then per record
+     * {@code [short length][EPC][long firstSeen][long lastSeen][int reads][short peakRssi]}.
+     * @return False if the chunk cannot be read; it is left in the outbox.
+     */
+    private boolean migrate(File chunk) {
+        try {
+            byte[] body = gunzip(Files.readAllBytes(chunk.toPath()));
+            if (SessionCodec.isEncoding(body)) return true;
+            writeChunk(chunk, SessionCodec.encode(decodeUnversioned(body)));
+            Log.d(TAG, "Migrated " + chunk.getName() + " to the current chunk format");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Unreadable chunk " + chunk.getName() + ", left in the outbox", e);
+            return false;
+        }
+    }
+
+    private static List<TagSessionStore.Entry> decodeUnversioned(byte[] body) {
+        ByteBuffer in = ByteBuffer.wrap(body);
+        int count = in.getInt();
+        if (count < 0 || count > body.length) throw new IllegalArgumentException("Bad record count " + count);
+        List<TagSessionStore.Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] epc = new byte[in.getShort() & 0xFFFF];
+            in.get(epc);
+            TagSessionStore.Entry entry = new TagSessionStore.Entry(new String(epc, StandardCharsets.US_ASCII),
+                    (short) 0, in.getLong());
+            entry.lastSeen = in.getLong();
+            entry.reads = in.getInt();
+            entry.peakRssi = in.getShort();
+            entries.add(entry);
+        }
+        if (in.hasRemaining()) throw new IllegalArgumentException(in.remaining() + " bytes after the records");
+        return entries;
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) >= 0) out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private void send(File chunk, int records, long openedNanos, int attempt) {
+        int status;
+        byte[] body;
+        long start = System.nanoTime();
+        try {
+            body = Files.readAllBytes(chunk.toPath());
+            status = post(chunk.getName(), body);
+        } catch (IOException e) {
+            Log.d(TAG, chunk.getName() + " attempt " + attempt + ": " + e.getMessage());
+            body = null;
+            status = -1;
+        }
+        requestLatency.record(System.nanoTime() - start);
+        if (status >= 200 && status < 300) {
+            if (!chunk.delete()) Log.e(TAG, "Error deleting sent chunk " + chunk.getName());
+            long now = System.nanoTime();
+            batchLatency.record(now - openedNanos);
+            sentBytes.addAndGet(body.length);
+            recordsAcked.addAndGet(records);
+            lastAckNanos = now;
+            pendingChunks.decrementAndGet();
+            return;
+        }
+        boolean retryable = status < 0 || status == 408 || status == 429 || status >= 500;
+        if (!retryable) {
+            Log.e(TAG, "Backend rejected " + chunk.getName() + " with HTTP " + status + ", discarding");
+            chunk.delete();
+            pendingChunks.decrementAndGet();
+            return;
+        }
+        retries.incrementAndGet();
+        if (attempt >= maxAttempts) {
+            Log.e(TAG, chunk.getName() + " failed " + attempt + " times, next round in "
+                    + RESTED_RETRY_MS / 1000 + " s");
+            sendLater(chunk, records, openedNanos, 1, RESTED_RETRY_MS);
+            return;
+        }
+        long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt - 1, 16));
+        backoff += ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        sendLater(chunk, records, openedNanos, attempt + 1, backoff);
+    }
+
+    private void sendLater(File chunk, int records, long openedNanos, int attempt, long delayMillis) {
+        try {
+            senders.schedule(() -> send(chunk, records, openedNanos, attempt), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shut down; the next start() picks the chunk up from the outbox
+            pendingChunks.decrementAndGet();
+        }
+    }
+
+    private int post(String chunkId, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(readTimeoutMs);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestProperty("Content-Type", "application/octet-stream");
+            connection.setRequestProperty("Content-Encoding", "gzip");
+            connection.setRequestProperty(CHUNK_ID_HEADER, chunkId);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            InputStream response = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (response != null) {
+                byte[] drain = new byte[512];
+                while (response.read(drain) >= 0) {
+                    // Read the whole reply before closing
+                }
+                response.close();
+            }
+            return status;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /** Makes a rename in {@code dir} durable. Best effort: not every file system syncs a directory. */
+    private static void syncDirectory(File dir) {
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            Log.d(TAG, "Cannot sync " + dir + ": " + e.getMessage());
+        }
+    }
+
+    /** @return {sequence, record count} from {@code <seq>-<count>.chunk}, or null. */
+    private static long[] parseName(String name) {
+        int dash = name.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            return new long[] {
+                    Long.parseLong(name.substring(0, dash)),
+                    Long.parseLong(name.substring(dash + 1, name.length() - CHUNK_SUFFIX.length()))
+            };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.zebra.rfid.demo.sdksample;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.zebra.rfid.api3.STATUS_EVENT_TYPE;
+import com.zebra.rfid.api3.TagData;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Records events with {@link EventRecorder} and replays them with {@link EventReplayer}. */
+public class EventRecordReplayTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /** Keeps every replayed event as a string, in order. */
+    private static final class Capture implements EventReplayer.Sink {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onTags(TagData[] tags) {
+            StringBuilder sb = new StringBuilder("tags");
+            for (TagData tag : tags) {
+                sb.append(' ').append(tag.getTagID()).append('/').append(tag.getPeakRSSI())
+                        .append('/').append(tag.getAntennaID());
+            }
+            events.add(sb.toString());
+        }
+
+        @Override
+        public void onStatus(STATUS_EVENT_TYPE type, int value, int extra, String detail) {
+            events.add(type + " " + value + " " + extra + " " + detail);
+        }
+    }
+
+    /** Counts replayed events without looking at them. */
+    private static final class Counter implements EventReplayer.Sink {
+        long batches;
+        long tags;
+        long statuses;
+
+        @Override
+        public void onTags(TagData[] batch) {
+            batches++;
+            tags += batch.length;
+        }
+
+        @Override
+        public void onStatus(STATUS_EVENT_TYPE type, int value, int extra, String detail) {
+            statuses++;
+        }
+    }
+
+    private static TagData tag(String epc, int rssi, int antenna) {
+        TagData tag = new TagData();
+        tag.setTagID(epc);
+        tag.setPeakRSSI((short) rssi);
+        tag.setAntennaID((short) antenna);
+        return tag;
+    }
+
+    @Test
+    public void replaysWhatWasRecorded() throws IOException {
+        File file = folder.newFile("events.rec");
+        List<String> expected = new ArrayList<>();
+        try (EventRecorder recorder = new EventRecorder(file)) {
+            recorder.recordStatus(STATUS_EVENT_TYPE.HANDHELD_TRIGGER_EVENT, 1, 0, null);
+            expected.add(STATUS_EVENT_TYPE.HANDHELD_TRIGGER_EVENT + " 1 0 ");
+            recorder.recordStatus(STATUS_EVENT_TYPE.INVENTORY_START_EVENT, 0, 0, null);
+            expected.add(STATUS_EVENT_TYPE.INVENTORY_START_EVENT + " 0 0 ");
+            // Packed hex EPCs of several lengths, a non-hex EPC, and a slot the reader left empty
+            recorder.recordTags(new TagData[]{
+                    tag("3034257BF7194E4000000001", -48, 1),
+                    tag("E28011606000020000000000000000AB", -71, 4),
+                    null,
+                    tag("3034", 0, 2),
+                    tag("not-hex-epc", -90, 300)});
+            expected.add("tags 3034257BF7194E4000000001/-48/1 E28011606000020000000000000000AB/-71/4"
+                    + " 3034/0/2 not-hex-epc/-90/300");
+            recorder.recordStatus(STATUS_EVENT_TYPE.BUFFER_FULL_WARNING_EVENT, 0, 0, "");
+            expected.add(STATUS_EVENT_TYPE.BUFFER_FULL_WARNING_EVENT + " 0 0 ");
+            recorder.recordStatus(STATUS_EVENT_TYPE.BATTERY_EVENT, 87, 1, "Cause \u00b0");
+            expected.add(STATUS_EVENT_TYPE.BATTERY_EVENT + " 87 1 Cause \u00b0");
+            recorder.recordStatus(STATUS_EVENT_TYPE.TEMPERATURE_ALARM_EVENT, -5, 2, null);
+            expected.add(STATUS_EVENT_TYPE.TEMPERATURE_ALARM_EVENT + " -5 2 ");
+            // Not replayable, so not recorded
+            recorder.recordStatus(STATUS_EVENT_TYPE.DISCONNECTION_EVENT, 0, 0, null);
+            recorder.recordTags(new TagData[0]);
+            expected.add("tags");
+            recorder.recordStatus(STATUS_EVENT_TYPE.POWER_EVENT, 0, 0, "3.70 V 0.45 A");
+            expected.add(STATUS_EVENT_TYPE.POWER_EVENT + " 0 0 3.70 V 0.45 A");
+            recorder.recordStatus(STATUS_EVENT_TYPE.INVENTORY_STOP_EVENT, 0, 0, null);
+            expected.add(STATUS_EVENT_TYPE.INVENTORY_STOP_EVENT + " 0 0 ");
+            recorder.recordStatus(STATUS_EVENT_TYPE.HANDHELD_TRIGGER_EVENT, 0, 0, null);
+            expected.add(STATUS_EVENT_TYPE.HANDHELD_TRIGGER_EVENT + " 0 0 ");
+            assertEquals(expected.size(), recorder.events());
+        }
+
+        Capture capture = new Capture();
+        EventReplayer.Result result = EventReplayer.replay(file, capture, EventReplayer.MAX_SPEED);
+
+        assertArrayEquals(expected.toArray(), capture.events.toArray());
+        assertEquals(expected.size(), result.events);
+        assertEquals(4, result.tags);
+    }
+
+    @Test
+    public void rejectsAFileThatIsNotARecording() throws IOException {
+        File file = folder.newFile("other.bin");
+        try {
+            EventReplayer.replay(file, new Counter(), EventReplayer.MAX_SPEED);
+            throw new AssertionError("replayed an empty file");
+        } catch (IOException expected) {
+            // Missing magic
+        }
+    }
+
+    @Test
+    public void replaysAtMaxSpeedIntoACountingSink() throws IOException {
+        int batches = 5_000;
+        int batchSize = 64;
+        File file = folder.newFile("load.rec");
+        try (EventRecorder recorder = new EventRecorder(file)) {
+            TagData[] batch = new TagData[batchSize];
+            for (int b = 0; b < batches; b++) {
+                for (int i = 0; i < batchSize; i++) {
+                    batch[i] = tag(String.format("3034257BF7194E40%08X", (b * batchSize + i) % 10_000), -60, 1 + i % 4);
+                }
+                recorder.recordTags(batch);
+                if (b % 100 == 0) recorder.recordStatus(STATUS_EVENT_TYPE.BATTERY_EVENT, 80, 0, null);
+            }
+        }
+
+        Counter counter = new Counter();
+        EventReplayer.Result result = EventReplayer.replay(file, counter, EventReplayer.MAX_SPEED);
+
+        assertEquals(batches, counter.batches);
+        assertEquals((long) batches * batchSize, counter.tags);
+        assertEquals(batches / 100, counter.statuses);
+        assertEquals(counter.tags, result.tags);
+        assertEquals(counter.batches + counter.statuses, result.events);
+        // Decoding alone; far below what a debug build on a handheld manages
+        assertTrue("replayed " + result, result.tagsPerSecond() > 100_000);
+    }
+}
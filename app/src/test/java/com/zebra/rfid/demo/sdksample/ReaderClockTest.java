@@ -0,0 +1,113 @@
+package com.zebra.rfid.demo.sdksample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/** Fits {@link ReaderClock} to synthetic reader up-times with transport delay, stalls and a reboot. */
+public class ReaderClockTest {
+    /** Batches arrive every 50 ms, 20 to a bucket. */
+    private static final long BATCH_MILLIS = 50;
+    /** Least transport delay from read to arrival. */
+    private static final long BASE_DELAY_MILLIS = 5;
+    private static final double DRIFT_PPM = 100;
+
+    /** A reader whose microsecond up-time runs {@link #DRIFT_PPM} fast and started at {@code bootHost}. */
+    private static final class Reader {
+        final long bootHost;
+        final Random random = new Random(50);
+        long lastArrival;
+
+        Reader(long bootHost) {
+            this.bootHost = bootHost;
+        }
+
+        long upTime(long host) {
+            return Math.round((host - bootHost) * 1000 * (1 + DRIFT_PPM / 1e6));
+        }
+
+        /**
+         * Reads a batch every {@link #BATCH_MILLIS} from {@code from} to {@code to}. Arrivals lag
+         * by the base delay plus up to 20 ms, and one batch in 50 stalls for up to 2 s.
+         */
+        void run(ReaderClock clock, long from, long to) {
+            for (long host = from; host < to; host += BATCH_MILLIS) {
+                long delay = BASE_DELAY_MILLIS + random.nextInt(20);
+                if (random.nextInt(50) == 0) delay += 500 + random.nextInt(1500);
+                // Batches arrive in order, so the ones behind a stall arrive with it
+                lastArrival = Math.max(lastArrival, host + delay);
+                clock.sync(upTime(host), lastArrival);
+                // A late report of a tag read 200 ms earlier, after the first sample, must not look like a reboot
+                if (random.nextInt(10) == 0 && host - 200 >= from) clock.sync(upTime(host - 200), lastArrival);
+            }
+        }
+
+        /** Checks reads over the last {@code millis} before {@code end} map to their read time. */
+        void assertMapped(ReaderClock clock, long end, long millis) {
+            for (long host = end - millis; host < end - 100; host += 97) {
+                long mapped = clock.toHost(upTime(host));
+                // The fit runs through the anchor with the least delay, a few ms above the read
+                assertTrue("read at " + host + " mapped to " + mapped,
+                        mapped >= host && mapped - host <= BASE_DELAY_MILLIS + 5);
+            }
+        }
+    }
+
+    @Test
+    public void fitsOffsetAndDriftThroughJitterAndStalls() {
+        ReaderClock clock = new ReaderClock();
+        long start = 1_000_000;
+        // Up an hour before the app connects
+        Reader reader = new Reader(start - 3_600_000);
+        reader.run(clock, start, start + 120_000);
+
+        assertEquals(1e-3 / (1 + DRIFT_PPM / 1e6), clock.slope(), 1e-3 * 50e-6);
+        assertEquals(DRIFT_PPM, clock.driftPpm(), 50);
+        reader.assertMapped(clock, start + 120_000, 60_000);
+        assertTrue(clock.report(), clock.report().endsWith(" 0 resets"));
+    }
+
+    @Test
+    public void readerRebootStartsANewFit() {
+        ReaderClock clock = new ReaderClock();
+        long start = 1_000_000;
+        Reader before = new Reader(start - 3_600_000);
+        before.run(clock, start, start + 90_000);
+        before.assertMapped(clock, start + 90_000, 30_000);
+
+        // The reader reboots: up-times step back by an hour
+        long reboot = start + 90_000;
+        Reader after = new Reader(reboot - 5_000);
+        after.lastArrival = before.lastArrival;
+        clock.sync(after.upTime(reboot), reboot + BASE_DELAY_MILLIS);
+        assertTrue(Double.isNaN(clock.slope()));
+        assertEquals(reboot + BASE_DELAY_MILLIS, clock.toHost(after.upTime(reboot)));
+        assertTrue(clock.report(), clock.report().endsWith("(1 resets)"));
+
+        after.run(clock, reboot + BATCH_MILLIS, reboot + 90_000);
+        assertEquals(DRIFT_PPM, clock.driftPpm(), 50);
+        after.assertMapped(clock, reboot + 90_000, 30_000);
+        assertTrue(clock.report(), clock.report().endsWith(" 1 resets"));
+    }
+
+    @Test
+    public void readsWithoutAFitGetTheirBatchArrival() {
+        ReaderClock clock = new ReaderClock();
+        assertEquals("Reader clock: not fitted yet, batch arrival times used (0 resets)", clock.report());
+        clock.sync(1_000_000, 5_000);
+        clock.sync(1_050_000, 5_050);
+        // One bucket of samples gives no anchors yet
+        assertTrue(Double.isNaN(clock.slope()));
+        assertEquals(5_050, clock.toHost(1_020_000));
+        // No seen-time, or a fitted time past the latest arrival, also gives the arrival
+        clock = new ReaderClock();
+        Reader reader = new Reader(-3_600_000);
+        reader.run(clock, 10_000, 40_000);
+        assertTrue(clock.slope() > 0);
+        assertEquals(reader.lastArrival, clock.toHost(0));
+        assertEquals(reader.lastArrival, clock.toHost(reader.upTime(reader.lastArrival + 60_000)));
+    }
+}
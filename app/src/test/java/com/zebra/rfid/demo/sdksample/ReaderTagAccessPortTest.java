@@ -0,0 +1,38 @@
+package com.zebra.rfid.demo.sdksample;
+
+import static org.junit.Assert.assertEquals;
+
+import com.zebra.rfid.api3.LOCK_DATA_FIELD;
+import com.zebra.rfid.api3.LOCK_PRIVILEGE;
+import com.zebra.rfid.api3.TagAccess;
+
+import org.junit.Test;
+
+/** Builds the SDK parameters {@link ReaderTagAccessPort} hands to the reader. */
+public class ReaderTagAccessPortTest {
+    private static final LOCK_DATA_FIELD[] FIELDS = {
+            LOCK_DATA_FIELD.LOCK_KILL_PASSWORD, LOCK_DATA_FIELD.LOCK_ACCESS_PASSWORD,
+            LOCK_DATA_FIELD.LOCK_EPC_MEMORY, LOCK_DATA_FIELD.LOCK_TID_MEMORY, LOCK_DATA_FIELD.LOCK_USER_MEMORY
+    };
+
+    @Test
+    public void lockParamsChangeOnlyTheLockedField() {
+        TagAccess access = new TagAccess();
+        for (LOCK_DATA_FIELD field : FIELDS) {
+            TagAccess.LockAccessParams params = ReaderTagAccessPort.lockParams(access,
+                    TagOperation.lock(field, LOCK_PRIVILEGE.LOCK_PRIVILEGE_PERMA_LOCK, 0x12345678L));
+            LOCK_PRIVILEGE[] privileges = params.getLockPrivilege();
+            assertEquals(FIELDS.length, privileges.length);
+            int changed = 0;
+            for (LOCK_PRIVILEGE privilege : privileges) {
+                if (privilege == LOCK_PRIVILEGE.LOCK_PRIVILEGE_PERMA_LOCK) {
+                    changed++;
+                } else {
+                    assertEquals(LOCK_PRIVILEGE.LOCK_PRIVILEGE_NONE, privilege);
+                }
+            }
+            assertEquals(field.toString(), 1, changed);
+            assertEquals(0x12345678L, params.getAccessPassword());
+        }
+    }
+}
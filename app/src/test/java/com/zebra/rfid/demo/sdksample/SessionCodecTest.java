@@ -0,0 +1,155 @@
+package com.zebra.rfid.demo.sdksample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/** Round trips and malformed input for {@link SessionCodec}. */
+public class SessionCodecTest {
+    private static TagSessionStore.Entry entry(String epc, int rssi, long firstSeen, long lastSeen, int reads) {
+        TagSessionStore.Entry entry = new TagSessionStore.Entry(epc, (short) rssi, firstSeen);
+        entry.lastSeen = lastSeen;
+        entry.reads = reads;
+        return entry;
+    }
+
+    private static String describe(TagSessionStore.Entry entry) {
+        return entry.epc + " " + entry.peakRssi + " " + entry.firstSeen + " " + entry.lastSeen + " " + entry.reads;
+    }
+
+    /** Encodes and decodes {@code entries}, checking every field; decoding returns EPC order. */
+    private static void assertRoundTrip(List<TagSessionStore.Entry> entries) {
+        List<TagSessionStore.Entry> expected = new ArrayList<>(entries);
+        // Stable, so duplicates keep their order
+        expected.sort(Comparator.comparing((TagSessionStore.Entry entry) -> entry.epc));
+        List<TagSessionStore.Entry> decoded = SessionCodec.decode(SessionCodec.encode(entries));
+        assertEquals(expected.size(), decoded.size());
+        for (int i = 0; i < expected.size(); i++) assertEquals(describe(expected.get(i)), describe(decoded.get(i)));
+    }
+
+    private static List<TagSessionStore.Entry> sample() {
+        List<TagSessionStore.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            long seen = 1_700_000_000_000L + i * 37L;
+            entries.add(entry(String.format("3034257BF7194E40%08X", i * 3), -40 - i % 50, seen, seen + i, 1 + i % 9));
+        }
+        return entries;
+    }
+
+    @Test
+    public void roundTripsHexEpcsOfMixedLengthsAndDuplicates() {
+        List<TagSessionStore.Entry> entries = sample();
+        // 4, 16, 32 and 62 bytes, tails that carry into the next byte, and a shared head with another length
+        entries.add(entry("3034257B", -60, 5, 9, 2));
+        entries.add(entry("E28011606000020000000000000000AB", -71, 7, 7, 1));
+        entries.add(entry("E28011606000020000000000000001AB", -72, 8, 30, 4));
+        entries.add(entry("3034257BF7194E4000FFFFFF", -50, 3, 4, 1));
+        entries.add(entry("3034257BF7194E4001000000", -51, 3, 5, 1));
+        entries.add(entry("3034257BF7194E40FFFFFFFFFFFF", -52, 2, 2, 1));
+        StringBuilder longest = new StringBuilder();
+        for (int i = 0; i < EpcCodec.MAX_EPC_BYTES; i++) longest.append(String.format("%02X", 255 - i));
+        entries.add(entry(longest.toString(), -30, 1, 100, 3));
+        // The same EPC twice, with different fields
+        entries.add(entry("3034257BF7194E4000000003", -45, 11, 12, 5));
+        entries.add(entry("3034257BF7194E4000000003", -46, 13, 14, 6));
+        assertRoundTrip(entries);
+    }
+
+    @Test
+    public void keepsEpcsThatAreNotUpperCaseHexAsGiven() {
+        List<TagSessionStore.Entry> entries = sample();
+        entries.add(entry("not-hex-epc", -90, 1, 2, 1));
+        entries.add(entry("ABC", -91, 1, 2, 1));
+        assertRoundTrip(entries);
+
+        // Lower-case hex would come back upper case if it were packed
+        List<TagSessionStore.Entry> lower = new ArrayList<>();
+        lower.add(entry("e28011606000020000000000000000ab", -70, 1, 2, 1));
+        lower.add(entry("e28011606000020000000000000000ac", -70, 1, 2, 1));
+        lower.add(entry("3034257BF7194E4000000001", -70, 1, 2, 1));
+        assertRoundTrip(lower);
+    }
+
+    @Test
+    public void roundTripsExtremeTimesCountsAndRssi() {
+        List<TagSessionStore.Entry> entries = new ArrayList<>();
+        // Deltas and delta-of-deltas between these overflow a long
+        entries.add(entry("3034257BF7194E4000000001", Short.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE));
+        entries.add(entry("3034257BF7194E4000000002", Short.MAX_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, -1));
+        entries.add(entry("3034257BF7194E4000000003", 0, 0, 0, 0));
+        entries.add(entry("3034257BF7194E4000000004", -1, Long.MIN_VALUE, Long.MIN_VALUE, Integer.MIN_VALUE));
+        entries.add(entry("3034257BF7194E4000000005", 1, -1, 1, 1));
+        assertRoundTrip(entries);
+    }
+
+    @Test
+    public void roundTripsNoRecords() {
+        assertRoundTrip(new ArrayList<>());
+    }
+
+    @Test
+    public void rejectsEveryTruncation() {
+        byte[] data = SessionCodec.encode(sample());
+        for (int length = 0; length < data.length; length++) {
+            try {
+                SessionCodec.decode(data, 0, length);
+                fail("decoded the first " + length + " of " + data.length + " bytes");
+            } catch (IllegalArgumentException expected) {
+                // Cut short
+            }
+        }
+    }
+
+    @Test
+    public void rejectsTrailingBytesAndOtherFormats() {
+        byte[] data = SessionCodec.encode(sample());
+        assertTrue(SessionCodec.isEncoding(data));
+        assertRejected(Arrays.copyOf(data, data.length + 1));
+
+        byte[] otherMagic = data.clone();
+        otherMagic[3] ^= 1;
+        assertFalse(SessionCodec.isEncoding(otherMagic));
+        assertRejected(otherMagic);
+
+        // A count beyond the records in the body
+        byte[] moreRecords = data.clone();
+        moreRecords[5]++;
+        assertRejected(moreRecords);
+    }
+
+    @Test(timeout = 10_000)
+    public void corruptInputFailsWithAnErrorOrDecodes() {
+        byte[] data = SessionCodec.encode(sample());
+        Random random = new Random(41);
+        for (int round = 0; round < 20_000; round++) {
+            byte[] corrupt = data.clone();
+            for (int flips = 1 + random.nextInt(4); flips > 0; flips--) {
+                // Past the magic, which only selects the format
+                corrupt[4 + random.nextInt(corrupt.length - 4)] = (byte) random.nextInt(256);
+            }
+            try {
+                SessionCodec.decode(corrupt);
+            } catch (IllegalArgumentException expected) {
+                // Detected
+            }
+        }
+    }
+
+    private static void assertRejected(byte[] data) {
+        try {
+            SessionCodec.decode(data);
+            fail("decoded malformed input");
+        } catch (IllegalArgumentException expected) {
+            // Rejected
+        }
+    }
+}
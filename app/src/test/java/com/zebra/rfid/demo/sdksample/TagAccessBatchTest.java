@@ -0,0 +1,226 @@
+package com.zebra.rfid.demo.sdksample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.zebra.rfid.api3.LOCK_DATA_FIELD;
+import com.zebra.rfid.api3.LOCK_PRIVILEGE;
+import com.zebra.rfid.api3.MEMORY_BANK;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/** Drives {@link TagAccessBatch} through a {@link SimulatedTagAccessPort}. */
+public class TagAccessBatchTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /** Collects the results of one batch. */
+    private static final class Results implements TagAccessBatch.Listener {
+        final List<TagAccessBatch.OperationResult> operations = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile TagAccessBatch.Stats stats;
+
+        @Override
+        public void onOperationResult(TagAccessBatch.OperationResult result) {
+            operations.add(result);
+        }
+
+        @Override
+        public void onBatchComplete(TagAccessBatch.Stats stats) {
+            this.stats = stats;
+            done.countDown();
+        }
+
+        TagAccessBatch.Stats await() throws InterruptedException {
+            assertTrue("batch did not finish", done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            return stats;
+        }
+    }
+
+    private static List<String> epcs(int count) {
+        List<String> epcs = new ArrayList<>();
+        for (int i = 0; i < count; i++) epcs.add(String.format("3034257BF7194E40%08X", i));
+        return epcs;
+    }
+
+    @Test
+    public void encodesEveryTarget() throws InterruptedException {
+        List<String> epcs = epcs(20);
+        SimulatedTagAccessPort port = new SimulatedTagAccessPort(epcs, 0, 0, 1);
+        List<TagAccessBatch.Target> targets = new ArrayList<>();
+        for (int i = 0; i < epcs.size(); i++) {
+            String newEpc = String.format("E2801160600002%010X", i);
+            targets.add(new TagAccessBatch.Target(epcs.get(i), Arrays.asList(
+                    TagOperation.writeEpc(newEpc, 0),
+                    TagOperation.write(MEMORY_BANK.MEMORY_BANK_USER, 0, new byte[]{1, 2, 3, 4}, 0),
+                    TagOperation.lock(LOCK_DATA_FIELD.LOCK_EPC_MEMORY, LOCK_PRIVILEGE.LOCK_PRIVILEGE_READ_WRITE, 0),
+                    TagOperation.read(MEMORY_BANK.MEMORY_BANK_USER, 0, 2, 0))));
+        }
+        TagAccessBatch batch = new TagAccessBatch(port, 0);
+        Results results = new Results();
+        assertTrue(batch.start(targets, results));
+        TagAccessBatch.Stats stats = results.await();
+
+        assertEquals(20, stats.tagsEncoded);
+        assertEquals(0, stats.tagsFailed);
+        assertEquals(80, stats.operations);
+        assertEquals(0, stats.retries);
+        assertFalse(batch.isRunning());
+        for (int i = 0; i < epcs.size(); i++) {
+            assertNull(port.getTag(epcs.get(i)));
+            SimulatedTagAccessPort.SimulatedTag tag = port.getTag(String.format("E2801160600002%010X", i));
+            assertNotNull(tag);
+            assertTrue(tag.epcLocked);
+        }
+        // The READ after the EPC write addresses the tag by its new EPC
+        for (TagAccessBatch.OperationResult result : results.operations) {
+            if (result.operation.kind == TagOperation.Kind.READ) assertEquals("01020304", result.readData);
+        }
+    }
+
+    @Test
+    public void retriesTagsThatDoNotRespond() throws InterruptedException {
+        List<String> epcs = epcs(50);
+        SimulatedTagAccessPort port = new SimulatedTagAccessPort(epcs, 0, 0.3, 7);
+        List<TagAccessBatch.Target> targets = new ArrayList<>();
+        for (String epc : epcs) {
+            targets.add(new TagAccessBatch.Target(epc, Collections.singletonList(
+                    TagOperation.read(MEMORY_BANK.MEMORY_BANK_TID, 0, 6, 0))));
+        }
+        TagAccessBatch batch = new TagAccessBatch(port, 20);
+        Results results = new Results();
+        batch.start(targets, results);
+        TagAccessBatch.Stats stats = results.await();
+
+        assertEquals(50, stats.tagsEncoded);
+        assertTrue("expected retries at a 30% failure rate", stats.retries > 0);
+        int attempts = 0;
+        for (TagAccessBatch.OperationResult result : results.operations) attempts += result.attempts;
+        assertEquals(stats.operations + stats.retries, attempts);
+    }
+
+    @Test
+    public void doesNotRetryRejectedAccess() throws InterruptedException {
+        List<String> epcs = epcs(3);
+        SimulatedTagAccessPort port = new SimulatedTagAccessPort(epcs, 0, 0, 1);
+        // Past the end of the 12-byte TID bank
+        TagOperation outOfRange = TagOperation.read(MEMORY_BANK.MEMORY_BANK_TID, 4, 6, 0);
+        List<TagAccessBatch.Target> targets = new ArrayList<>();
+        for (String epc : epcs) targets.add(new TagAccessBatch.Target(epc, Collections.singletonList(outOfRange)));
+        TagAccessBatch batch = new TagAccessBatch(port, 5);
+        Results results = new Results();
+        batch.start(targets, results);
+        TagAccessBatch.Stats stats = results.await();
+
+        assertEquals(3, stats.tagsFailed);
+        assertEquals(0, stats.retries);
+        for (TagAccessBatch.OperationResult result : results.operations) {
+            assertEquals(TagOperation.Status.REJECTED, result.status);
+            assertEquals(1, result.attempts);
+        }
+    }
+
+    @Test
+    public void stopsAtTheFirstOperationThatFails() throws InterruptedException {
+        List<String> epcs = epcs(1);
+        SimulatedTagAccessPort port = new SimulatedTagAccessPort(epcs, 0, 0, 1);
+        TagAccessBatch batch = new TagAccessBatch(port, 3);
+        Results results = new Results();
+        batch.start(Collections.singletonList(new TagAccessBatch.Target(epcs.get(0), Arrays.asList(
+                TagOperation.lock(LOCK_DATA_FIELD.LOCK_USER_MEMORY, LOCK_PRIVILEGE.LOCK_PRIVILEGE_READ_WRITE, 0),
+                TagOperation.write(MEMORY_BANK.MEMORY_BANK_USER, 0, new byte[]{1, 2}, 0),
+                TagOperation.kill(1)))), results);
+        TagAccessBatch.Stats stats = results.await();
+
+        assertEquals(1, stats.tagsFailed);
+        assertEquals(2, results.operations.size());
+        assertEquals(TagOperation.Status.MEMORY_LOCKED, results.operations.get(1).status);
+        assertFalse(port.getTag(epcs.get(0)).killed);
+    }
+
+    @Test
+    public void finishesWhenThePortFailsToPrepare() throws InterruptedException {
+        List<String> epcs = epcs(12);
+        SimulatedTagAccessPort simulated = new SimulatedTagAccessPort(epcs, 0, 0, 1);
+        // Fails the way building lock parameters with too short a privilege array did
+        TagAccessPort port = operation -> {
+            if (operation.kind == TagOperation.Kind.LOCK) throw new ArrayIndexOutOfBoundsException(2);
+            return simulated.prepare(operation);
+        };
+        List<TagAccessBatch.Target> targets = new ArrayList<>();
+        for (String epc : epcs) {
+            targets.add(new TagAccessBatch.Target(epc, Arrays.asList(
+                    TagOperation.read(MEMORY_BANK.MEMORY_BANK_TID, 0, 6, 0),
+                    TagOperation.lock(LOCK_DATA_FIELD.LOCK_EPC_MEMORY, LOCK_PRIVILEGE.LOCK_PRIVILEGE_READ_WRITE, 0))));
+        }
+        TagAccessBatch batch = new TagAccessBatch(port, 3);
+        Results results = new Results();
+        assertTrue(batch.start(targets, results));
+        TagAccessBatch.Stats stats = results.await();
+
+        assertEquals(12, stats.tagsFailed);
+        assertEquals(0, stats.retries);
+        assertEquals(24, results.operations.size());
+        for (TagAccessBatch.OperationResult result : results.operations) {
+            if (result.operation.kind == TagOperation.Kind.LOCK) {
+                assertEquals(TagOperation.Status.REJECTED, result.status);
+            } else {
+                assertEquals(TagOperation.Status.SUCCESS, result.status);
+            }
+        }
+        assertFalse(batch.isRunning());
+        // The batch released the port, so the next one starts
+        Results next = new Results();
+        assertTrue(batch.start(Collections.singletonList(new TagAccessBatch.Target(epcs.get(0),
+                Collections.singletonList(TagOperation.read(MEMORY_BANK.MEMORY_BANK_TID, 0, 6, 0)))), next));
+        assertEquals(1, next.await().tagsEncoded);
+    }
+
+    @Test
+    public void cancelSkipsRemainingTargets() throws InterruptedException {
+        List<String> epcs = epcs(100);
+        SimulatedTagAccessPort port = new SimulatedTagAccessPort(epcs, 5, 0, 1);
+        List<TagAccessBatch.Target> targets = new ArrayList<>();
+        for (String epc : epcs) {
+            targets.add(new TagAccessBatch.Target(epc, Collections.singletonList(
+                    TagOperation.read(MEMORY_BANK.MEMORY_BANK_TID, 0, 6, 0))));
+        }
+        TagAccessBatch batch = new TagAccessBatch(port, 0);
+        Results results = new Results();
+        batch.start(targets, results);
+        Thread.sleep(50);
+        batch.cancel();
+        TagAccessBatch.Stats stats = results.await();
+
+        assertTrue(stats.cancelled);
+        assertTrue(stats.tagsEncoded < 100);
+    }
+
+    @Test
+    public void runsAgainAfterABatchEnds() throws InterruptedException {
+        List<String> epcs = epcs(5);
+        SimulatedTagAccessPort port = new SimulatedTagAccessPort(epcs, 0, 0, 1);
+        List<TagAccessBatch.Target> targets = new ArrayList<>();
+        for (String epc : epcs) {
+            targets.add(new TagAccessBatch.Target(epc, Collections.singletonList(
+                    TagOperation.read(MEMORY_BANK.MEMORY_BANK_TID, 0, 6, 0))));
+        }
+        TagAccessBatch batch = new TagAccessBatch(port, 0);
+        for (int run = 0; run < 3; run++) {
+            Results results = new Results();
+            assertTrue(batch.start(targets, results));
+            assertEquals(5, results.await().tagsEncoded);
+        }
+        batch.shutdown();
+    }
+}
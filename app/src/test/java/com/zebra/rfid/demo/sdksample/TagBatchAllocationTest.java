@@ -0,0 +1,83 @@
+package com.zebra.rfid.demo.sdksample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.zebra.rfid.api3.TagData;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Checks that the steady-state read path, {@link TagBatch#copyFrom} into
+ * {@link TagSessionStore#record} for tags already in the session, allocates nothing per read.
+ */
+public class TagBatchAllocationTest {
+    private static final int TAGS = 2_000;
+    private static final int BATCH = 200;
+    private static final int ROUNDS = 500;
+    /** Allowance per measured run for the JVM's own bookkeeping, not per read. */
+    private static final long BUDGET_BYTES = 4 * 1024;
+
+    private static TagData[][] batches() {
+        TagData[][] batches = new TagData[TAGS / BATCH][BATCH];
+        for (int i = 0; i < TAGS; i++) {
+            TagData tag = new TagData();
+            tag.setTagID(String.format("3034257BF7194E40%08X", i));
+            tag.setPeakRSSI((short) (-40 - i % 40));
+            tag.setAntennaID((short) (1 + i % 4));
+            batches[i / BATCH][i % BATCH] = tag;
+        }
+        return batches;
+    }
+
+    /** Runs {@code rounds} passes over every batch and returns the reads recorded. */
+    private static long run(TagData[][] batches, TagBatch slot, ReaderClock clock, TagSessionStore store, int rounds) {
+        long reads = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (TagData[] tags : batches) {
+                TagBatch batch = slot.copyFrom(tags, clock);
+                for (int i = 0; i < batch.size; i++) {
+                    store.record(batch.epcs[i], batch.rssi[i], batch.seenTimes[i]);
+                }
+                reads += batch.size;
+            }
+        }
+        return reads;
+    }
+
+    private static void assertWithinBudget(TagSessionStore store) {
+        java.lang.management.ThreadMXBean platform = ManagementFactory.getThreadMXBean();
+        assumeTrue(platform instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) platform;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        TagData[][] batches = batches();
+        TagBatch slot = new TagBatch(BATCH);
+        ReaderClock clock = new ReaderClock();
+        // Seeds the session and warms the path up, so only steady-state reads are measured
+        run(batches, slot, clock, store, ROUNDS);
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        long reads = run(batches, slot, clock, store, ROUNDS);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertTrue(allocated + " bytes allocated over " + reads + " reads", allocated <= BUDGET_BYTES);
+        assertEquals(TAGS, store.uniqueCount());
+    }
+
+    @Test
+    public void unboundedStoreAllocatesNothingPerRead() {
+        assertWithinBudget(new TagSessionStore());
+    }
+
+    @Test
+    public void boundedStoreAllocatesNothingPerRead() {
+        // Cap and TTL far above the test's tags and run time, so nothing is evicted
+        assertWithinBudget(new TagSessionStore(64L * 1024 * 1024, 60 * 60 * 1000L, null));
+    }
+}
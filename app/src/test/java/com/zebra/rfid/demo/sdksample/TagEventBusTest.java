@@ -0,0 +1,264 @@
+package com.zebra.rfid.demo.sdksample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.zebra.rfid.api3.TagData;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Ring capacity, consumer ordering, lag reporting and session markers of {@link TagEventBus}. */
+public class TagEventBusTest {
+    private static final int SLOTS = 4;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final TagEventBus bus = new TagEventBus(SLOTS, 8);
+    private final ReaderClock clock = new ReaderClock();
+
+    @After
+    public void close() {
+        bus.close();
+    }
+
+    private static TagData[] batch(String epc) {
+        TagData tag = new TagData();
+        tag.setTagID(epc);
+        return new TagData[]{tag};
+    }
+
+    /** Publishes {@code count} batches on another thread and counts down {@code published} after each. */
+    private Thread publishInBackground(int count, CountDownLatch published) {
+        Thread thread = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                bus.publish(batch("P" + i), clock);
+                published.countDown();
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void ringHoldsAsManyBatchesAsItHasSlots() throws InterruptedException {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        bus.subscribe("stuck", batch -> {
+            holding.countDown();
+            awaitQuietly(release);
+        });
+        bus.publish(batch("first"), clock);
+        assertTrue(holding.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // The consumer holds slot 0; the other slots fill without waiting, the next one waits
+        CountDownLatch published = new CountDownLatch(SLOTS);
+        Thread publisher = publishInBackground(SLOTS, published);
+        assertFalse(published.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, published.getCount());
+        release.countDown();
+        assertTrue(published.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        publisher.join();
+    }
+
+    @Test
+    public void unsubscribedConsumerKeepsItsSlotUntilItLeaves() throws InterruptedException {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        TagEventBus.Subscription subscription = bus.subscribe("leaving", batch -> {
+            holding.countDown();
+            awaitQuietly(release);
+            seen.add(batch.epcs[0]);
+        });
+        bus.publish(batch("kept"), clock);
+        assertTrue(holding.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        bus.unsubscribe(subscription);
+
+        // A full lap would overwrite the slot the consumer is still reading
+        CountDownLatch published = new CountDownLatch(SLOTS);
+        Thread publisher = publishInBackground(SLOTS, published);
+        assertFalse(published.await(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(published.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        publisher.join();
+        assertEquals("kept", seen.get(0));
+    }
+
+    @Test
+    public void sessionStartArrivesInOrderWithTheBatches() throws InterruptedException {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(5);
+        bus.subscribe("session", batch -> {
+            events.add(batch.sessionStart ? "start" : batch.epcs[0] + "/" + batch.size);
+            done.countDown();
+        });
+        bus.publish(batch("A"), clock);
+        bus.publish(batch("B"), clock);
+        bus.publishSessionStart();
+        bus.publish(batch("C"), clock);
+        bus.publishSessionStart();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertEquals(5, events.size());
+        assertEquals("A/1", events.get(0));
+        assertEquals("B/1", events.get(1));
+        assertEquals("start", events.get(2));
+        assertEquals("C/1", events.get(3));
+        assertEquals("start", events.get(4));
+    }
+
+    @Test
+    public void sessionStartDoesNotWaitForAFullRing() throws InterruptedException {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(SLOTS + 2);
+        bus.subscribe("stuck", batch -> {
+            holding.countDown();
+            awaitQuietly(release);
+            events.add(batch.sessionStart ? "start" : batch.epcs[0]);
+            done.countDown();
+        });
+        for (int i = 0; i < SLOTS; i++) bus.publish(batch("P" + i), clock);
+        assertTrue(holding.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // The ring is full and a publisher is waiting for room while holding the publish lock
+        CountDownLatch published = new CountDownLatch(1);
+        Thread publisher = new Thread(() -> {
+            bus.publish(batch("late"), clock);
+            published.countDown();
+        });
+        publisher.start();
+        assertFalse(published.await(100, TimeUnit.MILLISECONDS));
+        long start = System.nanoTime();
+        bus.publishSessionStart();
+        assertTrue("session start waited", System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+
+        release.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        publisher.join();
+        // The waiting publisher had claimed its turn first; the marker still precedes later batches
+        bus.publish(batch("after"), clock);
+        long deadline = System.currentTimeMillis() + TIMEOUT_SECONDS * 1000;
+        while (events.size() < SLOTS + 3 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        assertEquals(Arrays.asList("P0", "P1", "P2", "P3", "late", "start", "after"), events);
+    }
+
+    @Test
+    public void sessionStartLeftByAFullRingGoesOutOnceThereIsRoom() throws InterruptedException {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(SLOTS + 1);
+        bus.subscribe("stuck", batch -> {
+            holding.countDown();
+            awaitQuietly(release);
+            events.add(batch.sessionStart ? "start" : batch.epcs[0]);
+            done.countDown();
+        });
+        for (int i = 0; i < SLOTS; i++) bus.publish(batch("P" + i), clock);
+        assertTrue(holding.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        bus.publishSessionStart();
+
+        // No further publish: the consumer sends the marker once it frees a slot
+        release.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("P0", "P1", "P2", "P3", "start"), events);
+    }
+
+    @Test
+    public void dependentConsumerSeesABatchOnlyAfterItsPredecessor() throws InterruptedException {
+        int batches = 200;
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong firstDone = new AtomicLong();
+        AtomicLong independentDone = new AtomicLong();
+        AtomicInteger violations = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(batches);
+        TagEventBus.Subscription first = bus.subscribe("first", batch -> {
+            awaitQuietly(release);
+            // Written into the slot for the consumer that runs after this one
+            batch.fresh[0] = true;
+            firstDone.incrementAndGet();
+        });
+        AtomicLong secondDone = new AtomicLong();
+        bus.subscribe("second", batch -> {
+            if (!batch.fresh[0] || secondDone.incrementAndGet() > firstDone.get()) violations.incrementAndGet();
+            done.countDown();
+        }, first);
+        bus.subscribe("independent", batch -> independentDone.incrementAndGet());
+
+        Thread publisher = new Thread(() -> {
+            for (int i = 0; i < batches; i++) bus.publish(batch("E" + i), clock);
+        });
+        publisher.start();
+        long deadline = System.currentTimeMillis() + TIMEOUT_SECONDS * 1000;
+        while (independentDone.get() < 1 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        Thread.sleep(100);
+        // The independent consumer runs on while the second waits behind the first
+        assertTrue(independentDone.get() >= 1);
+        assertEquals(0, secondDone.get());
+
+        release.countDown();
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        publisher.join();
+        assertEquals(0, violations.get());
+        assertEquals(batches, secondDone.get());
+    }
+
+    @Test
+    public void reportsAConsumerThatFallsBehind() throws InterruptedException {
+        TagEventBus wide = new TagEventBus(16, 8);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(16);
+            wide.subscribe("slow", batch -> {
+                awaitQuietly(release);
+                done.countDown();
+            });
+            AtomicLong fastDone = new AtomicLong();
+            wide.subscribe("fast", batch -> fastDone.incrementAndGet());
+            // The slow consumer holds the first batch while its lag passes 3/4 of the ring;
+            // publishing in step with the fast one keeps its lag at a batch
+            long deadline = System.currentTimeMillis() + TIMEOUT_SECONDS * 1000;
+            for (int i = 0; i < 16; i++) {
+                wide.publish(batch("E" + i), clock);
+                while (fastDone.get() <= i && System.currentTimeMillis() < deadline) Thread.sleep(1);
+            }
+            release.countDown();
+            assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+            String report = wide.report();
+            assertTrue(report, report.contains("\nslow: "));
+            assertTrue(report, line(report, "slow").endsWith("slow 1x"));
+            assertTrue(report, line(report, "fast").endsWith("slow 0x"));
+            assertTrue(report, line(report, "slow").contains("(max 15)"));
+        } finally {
+            wide.close();
+        }
+    }
+
+    private static String line(String report, String consumer) {
+        for (String line : report.split("\n")) {
+            if (line.startsWith(consumer + ": ")) return line;
+        }
+        throw new AssertionError("no " + consumer + " in " + report);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.zebra.rfid.demo.sdksample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/** Drives {@link TagSessionStore} with many unique EPCs and checks it stays within its bounds. */
+public class TagSessionStoreTest {
+    private static final long MAX_BYTES = 64 * 1024;
+    /** Estimated heap of one entry with a 24-character EPC. */
+    private static final int ENTRY_BYTES = 136 + 2 * 24;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static String epc(int i) {
+        return String.format("3034257BF7194E40%08X", i);
+    }
+
+    private static long reportedKilobytes(TagSessionStore store) {
+        String report = store.report();
+        int start = report.indexOf("(~") + 2;
+        return Long.parseLong(report.substring(start, report.indexOf(" KB", start)));
+    }
+
+    @Test
+    public void residentSizeStaysCappedUnderManyUniqueTags() {
+        TagSessionStore store = new TagSessionStore(MAX_BYTES, 0, null);
+        int total = 200_000;
+        for (int i = 0; i < total; i++) {
+            assertTrue(store.record(epc(i), (short) -50, i));
+            // The newest tag is held, so a repeat read is not new
+            assertFalse(store.record(epc(i), (short) -40, i));
+            if (i % 1_000 == 0) {
+                assertTrue(store.report(), store.size() <= MAX_BYTES / ENTRY_BYTES);
+                assertTrue(store.report(), reportedKilobytes(store) <= MAX_BYTES / 1024);
+            }
+        }
+        // Full to within one entry of the cap
+        assertEquals(MAX_BYTES / ENTRY_BYTES, store.size());
+        assertEquals(total, store.uniqueCount());
+        assertEquals(total - store.size(), store.evictedCount());
+        // The least recently seen tags went first
+        assertEquals(epc(total - store.size()), store.snapshot().get(0).epc);
+        // An evicted tag seen again counts as new
+        assertTrue(store.record(epc(0), (short) -50, total));
+    }
+
+    @Test
+    public void expiredTagsLeaveTheStore() {
+        long ttl = 10_000;
+        TagSessionStore store = new TagSessionStore(0, ttl, null);
+        // 100 new tags a second for ten minutes
+        for (int i = 0; i < 60_000; i++) {
+            store.record(epc(i), (short) -50, i * 10L);
+            // Tags seen within the TTL, plus the ones read since the last expiry scan
+            assertTrue(store.report(), store.size() <= ttl / 10 + 11);
+        }
+        assertEquals(60_000, store.uniqueCount());
+        assertEquals(60_000 - store.size(), store.evictedCount());
+    }
+
+    @Test
+    public void spillKeepsEveryEvictedTag() throws Exception {
+        AppendOnlyJournal journal = new AppendOnlyJournal(folder.newFile("spill"), false);
+        TagSessionStore store = new TagSessionStore(MAX_BYTES, 0, journal);
+        int total = 10_000;
+        for (int i = 0; i < total; i++) store.record(epc(i), (short) -50, i);
+        // Writes the partial last block too
+        store.flush();
+
+        Set<String> seen = new HashSet<>();
+        journal.replay(record -> {
+            for (TagSessionStore.Entry entry : TagSessionStore.decodeSpill(record)) {
+                assertTrue(entry.epc + " spilled twice", seen.add(entry.epc));
+            }
+        });
+        assertEquals(store.evictedCount(), seen.size());
+        for (TagSessionStore.Entry entry : store.snapshot()) {
+            assertTrue(entry.epc + " held and spilled", seen.add(entry.epc));
+        }
+        assertEquals(total, seen.size());
+        store.close();
+    }
+}
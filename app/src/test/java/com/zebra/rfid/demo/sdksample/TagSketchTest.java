@@ -0,0 +1,113 @@
+package com.zebra.rfid.demo.sdksample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/** Checks {@link TagSketch} against the error bounds it documents. */
+public class TagSketchTest {
+
+    private static String epc(int i) {
+        return String.format("3034257BF7194E40%08X", i);
+    }
+
+    @Test
+    public void distinctCountsStayWithinThreeStandardErrors() {
+        for (int cardinality : new int[]{100, 1_000, 10_000, 100_000, 1_000_000}) {
+            TagSketch sketch = new TagSketch(Long.MAX_VALUE);
+            for (int i = 0; i < cardinality; i++) {
+                sketch.onRead(epc(i), 0);
+                // Repeat reads must not move the estimate
+                if (i % 10 == 0) sketch.onRead(epc(i), 0);
+            }
+            double error = Math.abs(sketch.distinctTotal() - cardinality) / (double) cardinality;
+            assertTrue(cardinality + " tags: relative error " + error,
+                    error <= 3 * TagSketch.DISTINCT_STANDARD_ERROR);
+        }
+    }
+
+    @Test
+    public void windowCountsRestartEachWindow() {
+        TagSketch sketch = new TagSketch(1000);
+        for (int i = 0; i < 5_000; i++) sketch.onRead(epc(i), 0);
+        for (int i = 0; i < 2_000; i++) sketch.onRead(epc(i), 1500);
+        long last = sketch.distinctLastWindow();
+        long current = sketch.distinctInWindow();
+        assertTrue("last window " + last, Math.abs(last - 5_000) <= 3 * TagSketch.DISTINCT_STANDARD_ERROR * 5_000);
+        assertTrue("current window " + current, Math.abs(current - 2_000) <= 3 * TagSketch.DISTINCT_STANDARD_ERROR * 2_000);
+    }
+
+    @Test
+    public void readCountsNeverUndercountAndRarelyExceedTheBound() {
+        int keys = 20_000;
+        int[] reads = new int[keys];
+        TagSketch sketch = new TagSketch(Long.MAX_VALUE);
+        Random random = new Random(42);
+        long total = 0;
+        // Skewed: a few tags sit next to the antenna and most pass by
+        for (int n = 0; n < 500_000; n++) {
+            int key = (int) (keys * Math.pow(random.nextDouble(), 3));
+            reads[key]++;
+            sketch.onRead(epc(key), 0);
+            total++;
+        }
+        assertEquals(total, sketch.totalReads());
+        double bound = Math.E * total / TagSketch.CMS_WIDTH;
+        int exceeded = 0;
+        for (int key = 0; key < keys; key++) {
+            long estimate = sketch.estimateReads(epc(key));
+            assertTrue(epc(key) + " undercounted", estimate >= reads[key]);
+            if (estimate - reads[key] > bound) exceeded++;
+        }
+        // Each key exceeds the bound with probability at most e^-depth
+        assertTrue(exceeded + " of " + keys + " keys over the bound",
+                exceeded <= keys * Math.exp(-TagSketch.CMS_DEPTH));
+    }
+
+    @Test
+    public void heavyHittersAreTheMostReadTags() {
+        TagSketch sketch = new TagSketch(Long.MAX_VALUE);
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 1_000; i++) {
+                // Tags 0..7 are read on every round, the rest once in ten
+                if (i < 8 || round % 10 == 0) sketch.onRead(epc(i), 0);
+            }
+        }
+        List<TagSketch.HeavyHitter> hitters = sketch.heavyHitters();
+        assertEquals(TagSketch.HEAVY_HITTERS, hitters.size());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(epc(i) + " missing", containsEpc(hitters, epc(i)));
+        }
+        for (int i = 1; i < hitters.size(); i++) {
+            assertTrue(hitters.get(i - 1).estimatedReads >= hitters.get(i).estimatedReads);
+        }
+    }
+
+    @Test
+    public void clearStartsANewSession() {
+        TagSketch sketch = new TagSketch(1000);
+        for (int i = 0; i < 1_000; i++) sketch.onRead(epc(i), 0);
+        sketch.clear();
+        assertEquals(0, sketch.distinctTotal());
+        assertEquals(0, sketch.totalReads());
+        assertEquals(0, sketch.estimateReads(epc(0)));
+        assertEquals(-1, sketch.distinctLastWindow());
+        assertTrue(sketch.heavyHitters().isEmpty());
+    }
+
+    @Test
+    public void fitsInAFewKilobytes() {
+        assertTrue(TagSketch.memoryBytes() + " bytes", TagSketch.memoryBytes() <= 9 * 1024);
+    }
+
+    private static boolean containsEpc(List<TagSketch.HeavyHitter> hitters, String epc) {
+        for (TagSketch.HeavyHitter hitter : hitters) {
+            if (hitter.epc.equals(epc)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,267 @@
+package com.zebra.rfid.demo.sdksample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.zebra.rfid.api3.TagData;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Checks {@link TagStream} against the Reactive Streams rules it follows. */
+public class TagStreamTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+    /** Time given to signals that must not arrive. */
+    private static final long QUIET_MILLIS = 200;
+    private static final Pattern STREAM_PROGRESS = Pattern.compile("stream-\\d+: (\\d+) batches");
+
+    private final TagEventBus bus = new TagEventBus(8, 16);
+    private final ReaderClock clock = new ReaderClock();
+
+    @After
+    public void close() {
+        bus.close();
+    }
+
+    /** Records every signal; {@link #subscription} is set before the first one. */
+    private static class Recorder implements TagStream.Subscriber<TagStream.Read> {
+        final List<String> epcs = new CopyOnWriteArrayList<>();
+        final CountDownLatch terminated = new CountDownLatch(1);
+        volatile TagStream.Subscription subscription;
+        volatile Throwable error;
+        volatile boolean completed;
+
+        @Override
+        public void onSubscribe(TagStream.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(TagStream.Read item) {
+            epcs.add(item.epc);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+
+        void awaitReads(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (epcs.size() < count && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            assertEquals(count, epcs.size());
+        }
+    }
+
+    private static String epc(int i) {
+        return String.format("3034257BF7194E40%08X", i);
+    }
+
+    /** Publishes {@code count} reads from {@code first}, one batch of up to 10 at a time. */
+    private void publish(int first, int count) {
+        for (int start = first; start < first + count; start += 10) {
+            int size = Math.min(10, first + count - start);
+            TagData[] tags = new TagData[size];
+            for (int i = 0; i < size; i++) {
+                tags[i] = new TagData();
+                tags[i].setTagID(epc(start + i));
+            }
+            bus.publish(tags, clock);
+        }
+    }
+
+    /** Waits until the stream's bus consumer has taken {@code batches} batches into its buffer. */
+    private void awaitBuffered(long batches) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            Matcher matcher = STREAM_PROGRESS.matcher(bus.report());
+            if (matcher.find() && Long.parseLong(matcher.group(1)) >= batches) return;
+            Thread.sleep(5);
+        }
+        throw new AssertionError("stream consumer stuck: " + bus.report());
+    }
+
+    @Test
+    public void deliversNothingBeyondDemand() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        new TagStream(bus).reads().subscribe(recorder);
+        publish(0, 100);
+        awaitBuffered(10);
+        Thread.sleep(QUIET_MILLIS);
+        assertTrue(recorder.epcs.isEmpty());
+
+        recorder.subscription.request(10);
+        recorder.awaitReads(10);
+        Thread.sleep(QUIET_MILLIS);
+        assertEquals(10, recorder.epcs.size());
+
+        recorder.subscription.request(5);
+        recorder.awaitReads(15);
+        Thread.sleep(QUIET_MILLIS);
+        assertEquals(15, recorder.epcs.size());
+        for (int i = 0; i < 15; i++) assertEquals(epc(i), recorder.epcs.get(i));
+    }
+
+    @Test
+    public void nonPositiveRequestEndsTheStreamWithAnError() throws InterruptedException {
+        for (long n : new long[]{0, -1}) {
+            Recorder recorder = new Recorder();
+            new TagStream(bus).reads().subscribe(recorder);
+            recorder.subscription.request(n);
+            assertTrue(recorder.terminated.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            assertTrue(recorder.error instanceof IllegalArgumentException);
+            assertFalse(recorder.completed);
+            // Later demand and reads deliver nothing
+            recorder.subscription.request(10);
+            publish(0, 10);
+            Thread.sleep(QUIET_MILLIS);
+            assertTrue(recorder.epcs.isEmpty());
+        }
+    }
+
+    @Test
+    public void cancelStopsDelivery() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        new TagStream(bus).reads().subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        publish(0, 20);
+        recorder.awaitReads(20);
+
+        recorder.subscription.cancel();
+        recorder.subscription.cancel();
+        publish(20, 50);
+        Thread.sleep(QUIET_MILLIS);
+        assertEquals(20, recorder.epcs.size());
+        assertNull(recorder.error);
+        assertFalse(recorder.completed);
+        assertFalse("cancelled stream still on the bus", STREAM_PROGRESS.matcher(bus.report()).find());
+    }
+
+    @Test
+    public void fullBufferDropsOldestOrLatest() throws InterruptedException {
+        Recorder oldest = new Recorder();
+        Recorder latest = new Recorder();
+        new TagStream(bus).buffer(4, TagStream.Overflow.DROP_OLDEST).reads().subscribe(oldest);
+        new TagStream(bus).buffer(4, TagStream.Overflow.DROP_LATEST).reads().subscribe(latest);
+        publish(0, 10);
+        // One batch of 10 reads into buffers of 4
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        Matcher matcher;
+        do {
+            Thread.sleep(5);
+            matcher = Pattern.compile("stream-\\d+: 1 batches").matcher(bus.report());
+        } while (!(matcher.find() && matcher.find()) && System.currentTimeMillis() < deadline);
+
+        oldest.subscription.request(Long.MAX_VALUE);
+        latest.subscription.request(Long.MAX_VALUE);
+        oldest.awaitReads(4);
+        latest.awaitReads(4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(epc(6 + i), oldest.epcs.get(i));
+            assertEquals(epc(i), latest.epcs.get(i));
+        }
+    }
+
+    @Test
+    public void signalsAreSerialized() throws InterruptedException {
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onNext(TagStream.Read item) {
+                if (inside.incrementAndGet() != 1) overlaps.incrementAndGet();
+                super.onNext(item);
+                // Reentrant demand must not start a nested onNext
+                subscription.request(1);
+                inside.decrementAndGet();
+            }
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            new TagStream(bus).observeOn(pool).reads().subscribe(recorder);
+            // Demand from several threads at once, racing the reads
+            List<Thread> requesters = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 50; i++) recorder.subscription.request(1);
+                });
+                requesters.add(thread);
+                thread.start();
+            }
+            publish(0, 500);
+            for (Thread thread : requesters) thread.join();
+            recorder.awaitReads(500);
+            assertEquals(0, overlaps.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void slowSubscriberDoesNotHoldUpThePublisher() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder slow = new Recorder() {
+            @Override
+            public void onNext(TagStream.Read item) {
+                try {
+                    release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onNext(item);
+            }
+        };
+        new TagStream(bus).buffer(16, TagStream.Overflow.DROP_OLDEST).reads().subscribe(slow);
+        slow.subscription.request(Long.MAX_VALUE);
+
+        // Ten times the ring, while the subscriber is stuck in its first onNext
+        long start = System.nanoTime();
+        publish(0, 800);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue("publishing took " + elapsedMillis + " ms", elapsedMillis < TIMEOUT_MILLIS / 2);
+
+        // Closing drops batches the consumer has not taken yet
+        awaitBuffered(80);
+        release.countDown();
+        bus.close();
+        assertTrue(slow.terminated.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(slow.completed);
+        // The first read, which was in hand, then what the buffer kept
+        assertTrue(slow.epcs.size() <= 17);
+        assertEquals(epc(799), slow.epcs.get(slow.epcs.size() - 1));
+    }
+
+    @Test
+    public void closingTheBusCompletesTheStream() throws InterruptedException {
+        Recorder recorder = new Recorder();
+        new TagStream(bus).distinct().reads().subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+        publish(0, 30);
+        publish(0, 30);
+        recorder.awaitReads(30);
+        bus.close();
+        assertTrue(recorder.terminated.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(recorder.completed);
+        assertEquals(30, recorder.epcs.size());
+    }
+}
@@ -0,0 +1,128 @@
+package com.zebra.rfid.demo.sdksample;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/** Sends session records through {@link UploadQueue} to a {@link LocalUploadServer} that fails on purpose. */
+public class UploadQueueTest {
+    private static final long TIMEOUT_MILLIS = 60_000;
+    private static final int RECORDS = 3_000;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<TagSessionStore.Entry> entries(int count) {
+        List<TagSessionStore.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(new TagSessionStore.Entry(String.format("3034257BF7194E40%08X", i), (short) (-40 - i % 40),
+                    1_700_000_000_000L + i * 7L));
+        }
+        return entries;
+    }
+
+    @Test
+    public void deliversEveryRecordOnceThrough503sAndTimeouts() throws Exception {
+        // A fifth of the requests fail with 503, a fifth of the accepted chunks are answered too late
+        LocalUploadServer server = new LocalUploadServer(0.2, 0.2, 500);
+        server.start();
+        File outbox = folder.newFolder("outbox");
+        UploadQueue queue = new UploadQueue(outbox, server.getUrl(), 50, 100, 4, 20);
+        queue.setReadTimeout(200);
+        try {
+            queue.start();
+            queue.addAll(entries(RECORDS));
+            queue.flush();
+
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while ((server.getRecords() < RECORDS || queue.pendingChunks() > 0)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(server.report(), RECORDS, server.getRecords());
+            assertEquals(queue.report(), 0, queue.pendingChunks());
+            // No chunk and no half-written temporary left behind
+            assertArrayEquals(new String[0], outbox.list());
+            // Timed-out chunks were sent again, and the backend counted them once
+            assertTrue(server.report(), server.getDuplicates() > 0);
+        } finally {
+            queue.shutdown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void migratesChunksInTheEarlierFormat() throws Exception {
+        File outbox = folder.newFolder("outbox");
+        List<TagSessionStore.Entry> entries = entries(40);
+        // [int count] then fixed-width records, as chunks were written before SessionCodec
+        ByteBuffer body = ByteBuffer.allocate(4 + entries.size() * 48);
+        body.putInt(entries.size());
+        for (TagSessionStore.Entry entry : entries) {
+            byte[] epc = entry.epc.getBytes(StandardCharsets.US_ASCII);
+            body.putShort((short) epc.length).put(epc);
+            body.putLong(entry.firstSeen).putLong(entry.lastSeen).putInt(entry.reads).putShort(entry.peakRssi);
+        }
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(new File(outbox, "000000000007-40.chunk")))) {
+            out.write(body.array(), 0, body.position());
+        }
+
+        LocalUploadServer server = new LocalUploadServer(0);
+        server.start();
+        UploadQueue queue = new UploadQueue(outbox, server.getUrl(), 100, 100, 2, 5);
+        try {
+            queue.start();
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (queue.pendingChunks() > 0 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+            // The backend answers 400 to a body it cannot decode, which would discard the chunk
+            assertEquals(server.report(), 40, server.getRecords());
+            assertArrayEquals(new String[0], outbox.list());
+        } finally {
+            queue.shutdown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void resumesChunksLeftInTheOutbox() throws Exception {
+        File outbox = folder.newFolder("outbox");
+        // Nothing listens on the port of a stopped server, so every send fails
+        LocalUploadServer down = new LocalUploadServer(0);
+        down.start();
+        URL unreachable = down.getUrl();
+        down.stop();
+        UploadQueue first = new UploadQueue(outbox, unreachable, 100, 100, 2, 1);
+        first.start();
+        first.addAll(entries(250));
+        first.shutdown();
+        assertEquals(3, outbox.list().length);
+
+        LocalUploadServer server = new LocalUploadServer(0);
+        server.start();
+        UploadQueue second = new UploadQueue(outbox, server.getUrl(), 100, 100, 2, 5);
+        try {
+            second.start();
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (second.pendingChunks() > 0 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+            assertEquals(250, server.getRecords());
+            assertArrayEquals(new String[0], outbox.list());
+        } finally {
+            second.shutdown();
+            server.stop();
+        }
+    }
+}